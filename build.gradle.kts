@@ -1,6 +1,7 @@
 plugins {
   java
   application
+  id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -44,6 +45,26 @@ application {
   mainClass.set("io.vertx.howtos.resilience4j.CircuitBreakerVerticle")
 }
 
+jmh {
+  jmhVersion.set("1.37")
+  profilers.add("gc")
+}
+
+sourceSets {
+  create("loadtest") {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+  }
+}
+
+tasks.register<JavaExec>("loadtest") {
+  description = "Runs the load test scenarios against a local fault-injecting backend."
+  classpath = sourceSets["loadtest"].runtimeClasspath
+  mainClass.set("io.vertx.howtos.resilience4j.LoadTest")
+  args = (project.findProperty("loadtest.args") as String? ?: "all 1000 20").split(" ")
+  systemProperty("loadtest.backend", project.findProperty("loadtest.backend") ?: "{}")
+}
+
 tasks.withType<Test> {
   useJUnitPlatform()
 }
@@ -0,0 +1,59 @@
+package io.vertx.howtos.resilience4j;
+
+import io.vertx.core.Future;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.VertxInternal;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/**
+ * Runs a batch of calls either on the benchmark thread (no current {@link ContextInternal})
+ * or on an event loop context of its own. Every benchmark thread gets the next event loop,
+ * so {@code @Threads(Threads.MAX)} spreads the load over all event loops.
+ */
+@State(Scope.Thread)
+public class CallerState {
+  public static final int BATCH = 1_000;
+
+  @Param({"none", "event-loop"})
+  public String context;
+
+  private ContextInternal ctx;
+
+  @Setup
+  public void setUp(VertxState state) {
+    if ("event-loop".equals(context)) {
+      ctx = ((VertxInternal) state.vertx).createEventLoopContext();
+    }
+  }
+
+  public void run(Supplier<? extends Future<?>> call, Blackhole blackhole) {
+    if (ctx == null) {
+      runBatch(call, blackhole);
+      return;
+    }
+
+    CountDownLatch latch = new CountDownLatch(1);
+    ctx.runOnContext(ignored -> {
+      runBatch(call, blackhole);
+      latch.countDown();
+    });
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void runBatch(Supplier<? extends Future<?>> call, Blackhole blackhole) {
+    for (int i = 0; i < BATCH; i++) {
+      blackhole.consume(call.get());
+    }
+  }
+}
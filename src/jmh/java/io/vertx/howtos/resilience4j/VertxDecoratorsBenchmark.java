@@ -0,0 +1,91 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares the five policies stacked by nesting {@code decorateFuture} suppliers
+ * with the same stack built by {@link VertxDecorators}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VertxDecoratorsBenchmark {
+  @Param({"nested", "fused"})
+  public String style;
+
+  private Supplier<Future<String>> call;
+
+  @Setup
+  public void setUp(VertxState state) {
+    Vertx vertx = state.vertx;
+    Retry retry = Retry.ofDefaults("benchmark");
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("benchmark");
+    RateLimiter rateLimiter = RateLimiter.of("benchmark", RateLimiterConfig.custom()
+      .limitForPeriod(Integer.MAX_VALUE)
+      .limitRefreshPeriod(Duration.ofMillis(1))
+      .timeoutDuration(Duration.ZERO)
+      .build());
+    TimeLimiter timeLimiter = TimeLimiter.of(Duration.ofSeconds(1));
+    Bulkhead bulkhead = Bulkhead.of("benchmark", BulkheadConfig.custom().maxConcurrentCalls(Integer.MAX_VALUE).build());
+    Supplier<Future<String>> supplier = () -> Future.succeededFuture("Hello");
+
+    if ("nested".equals(style)) {
+      call = VertxRetry.decorateFuture(retry, vertx,
+        VertxCircuitBreaker.decorateFuture(circuitBreaker,
+          VertxRateLimiter.decorateFuture(rateLimiter,
+            VertxTimeLimiter.decorateFuture(timeLimiter, vertx,
+              VertxBulkhead.decorateFuture(bulkhead, supplier)), vertx)));
+    } else {
+      call = VertxDecorators.ofSupplier(vertx, supplier)
+        .withRetry(retry)
+        .withCircuitBreaker(circuitBreaker)
+        .withRateLimiter(rateLimiter)
+        .withTimeLimiter(timeLimiter)
+        .withBulkhead(bulkhead)
+        .decorate();
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  @OperationsPerInvocation(CallerState.BATCH)
+  public void singleEventLoop(CallerState caller, Blackhole blackhole) {
+    caller.run(call, blackhole);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  @OperationsPerInvocation(CallerState.BATCH)
+  public void allEventLoops(CallerState caller, Blackhole blackhole) {
+    caller.run(call, blackhole);
+  }
+}
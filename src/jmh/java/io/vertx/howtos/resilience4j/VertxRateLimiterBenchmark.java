@@ -0,0 +1,78 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.vertx.core.Future;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VertxRateLimiterBenchmark {
+  @Param({"permitted", "rejected"})
+  public String path;
+
+  @Param({"shared", "leasing"})
+  public String limiter;
+
+  private Supplier<Future<String>> call;
+
+  @Setup
+  public void setUp(VertxState state) {
+    RateLimiter rateLimiter;
+    if ("rejected".equals(path)) {
+      rateLimiter = RateLimiter.of("benchmark", RateLimiterConfig.custom()
+        .limitForPeriod(1)
+        .limitRefreshPeriod(Duration.ofDays(1))
+        .timeoutDuration(Duration.ZERO)
+        .build());
+      rateLimiter.acquirePermission();
+    } else {
+      rateLimiter = RateLimiter.of("benchmark", RateLimiterConfig.custom()
+        .limitForPeriod(Integer.MAX_VALUE)
+        .limitRefreshPeriod(Duration.ofMillis(1))
+        .timeoutDuration(Duration.ZERO)
+        .build());
+    }
+    if ("leasing".equals(limiter)) {
+      LeasingRateLimiter leasing = LeasingRateLimiter.of(state.vertx, rateLimiter);
+      call = VertxRateLimiter.decorateFuture(leasing, () -> Future.succeededFuture("Hello"), state.vertx);
+    } else {
+      call = VertxRateLimiter.decorateFuture(rateLimiter, () -> Future.succeededFuture("Hello"), state.vertx);
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  @OperationsPerInvocation(CallerState.BATCH)
+  public void singleEventLoop(CallerState caller, Blackhole blackhole) {
+    caller.run(call, blackhole);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  @OperationsPerInvocation(CallerState.BATCH)
+  public void allEventLoops(CallerState caller, Blackhole blackhole) {
+    caller.run(call, blackhole);
+  }
+}
@@ -0,0 +1,24 @@
+package io.vertx.howtos.resilience4j;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+public class VertxState {
+  public Vertx vertx;
+
+  @Setup
+  public void setUp() {
+    vertx = Vertx.vertx(new VertxOptions()
+      .setEventLoopPoolSize(Runtime.getRuntime().availableProcessors()));
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.close().await();
+  }
+}
@@ -0,0 +1,69 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.vertx.core.Future;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VertxTimeLimiterBenchmark {
+  @Param({"permitted", "rejected"})
+  public String path;
+
+  @Param({"timer", "wheel"})
+  public String scheduler;
+
+  private Supplier<Future<String>> call;
+
+  @Setup
+  public void setUp(VertxState state) {
+    TimeLimiter timeLimiter = TimeLimiter.of(Duration.ofSeconds(1));
+    Supplier<Future<String>> supplier;
+    if ("rejected".equals(path)) {
+      RuntimeException failure = new RuntimeException("Rejected");
+      supplier = () -> Future.failedFuture(failure);
+    } else {
+      supplier = () -> Future.succeededFuture("Hello");
+    }
+    if ("wheel".equals(scheduler)) {
+      call = VertxTimeLimiter.decorateFuture(timeLimiter, TimeoutScheduler.create(state.vertx), supplier);
+    } else {
+      call = VertxTimeLimiter.decorateFuture(timeLimiter, state.vertx, supplier);
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  @OperationsPerInvocation(CallerState.BATCH)
+  public void singleEventLoop(CallerState caller, Blackhole blackhole) {
+    caller.run(call, blackhole);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  @OperationsPerInvocation(CallerState.BATCH)
+  public void allEventLoops(CallerState caller, Blackhole blackhole) {
+    caller.run(call, blackhole);
+  }
+}
@@ -0,0 +1,98 @@
+package io.vertx.howtos.resilience4j;
+
+import io.vertx.core.Future;
+import io.vertx.core.VerticleBase;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A stand-in downstream service answering every request after a random latency, with a configurable share of
+ * {@code 500} responses and periodic brownouts.
+ * <p>
+ * Latencies follow a log-normal distribution given by its median and 99th percentile, which is close to what real
+ * services show: most requests are fast and a few are much slower. During a brownout, latencies are multiplied and
+ * the error rate is replaced. The configuration, with its defaults:
+ * <pre>
+ * {
+ *   "port": 8081,
+ *   "medianLatencyMs": 5,
+ *   "p99LatencyMs": 50,
+ *   "errorRate": 0.01,
+ *   "brownout": {
+ *     "periodMs": 10000,   // 0 disables brownouts
+ *     "durationMs": 2000,
+ *     "latencyFactor": 10,
+ *     "errorRate": 0.5
+ *   }
+ * }
+ * </pre>
+ */
+public class FaultInjectingBackend extends VerticleBase {
+  // the 99th percentile of the standard normal distribution
+  private static final double Z_99 = 2.326;
+
+  private double mu;
+  private double sigma;
+  private double errorRate;
+  private long brownoutPeriodMs;
+  private long brownoutDurationMs;
+  private double brownoutLatencyFactor;
+  private double brownoutErrorRate;
+  private long startMs;
+  private HttpServer server;
+
+  @Override
+  public Future<?> start() {
+    JsonObject config = config();
+    double median = config.getDouble("medianLatencyMs", 5.0);
+    double p99 = config.getDouble("p99LatencyMs", 50.0);
+    mu = Math.log(median);
+    sigma = Math.log(Math.max(p99, median) / median) / Z_99;
+    errorRate = config.getDouble("errorRate", 0.01);
+
+    JsonObject brownout = config.getJsonObject("brownout", new JsonObject());
+    brownoutPeriodMs = brownout.getLong("periodMs", 10_000L);
+    brownoutDurationMs = brownout.getLong("durationMs", 2_000L);
+    brownoutLatencyFactor = brownout.getDouble("latencyFactor", 10.0);
+    brownoutErrorRate = brownout.getDouble("errorRate", 0.5);
+    startMs = System.currentTimeMillis();
+
+    return vertx.createHttpServer()
+      .requestHandler(this::handle)
+      .listen(config.getInteger("port", 8081))
+      .onSuccess(server -> this.server = server);
+  }
+
+  public int actualPort() {
+    return server.actualPort();
+  }
+
+  private boolean inBrownout() {
+    return brownoutPeriodMs > 0 && (System.currentTimeMillis() - startMs) % brownoutPeriodMs >= brownoutPeriodMs - brownoutDurationMs;
+  }
+
+  private void handle(HttpServerRequest request) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    boolean brownout = inBrownout();
+    double latencyMs = Math.exp(mu + sigma * random.nextGaussian()) * (brownout ? brownoutLatencyFactor : 1);
+    boolean fail = random.nextDouble() < (brownout ? brownoutErrorRate : errorRate);
+
+    long delay = Math.round(latencyMs);
+    if (delay < 1) {
+      respond(request, fail);
+    } else {
+      vertx.setTimer(delay, ignored -> respond(request, fail));
+    }
+  }
+
+  private static void respond(HttpServerRequest request, boolean fail) {
+    if (fail) {
+      request.response().setStatusCode(500).end("injected failure");
+    } else {
+      request.response().end("ok");
+    }
+  }
+}
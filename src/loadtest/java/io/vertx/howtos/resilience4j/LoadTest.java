@@ -0,0 +1,150 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpResponseExpectation;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Runs the same open-loop load against a local {@link FaultInjectingBackend}, once without any policy and once with
+ * each policy, and prints the goodput and latency percentiles of every run.
+ * <p>
+ * Usage: {@code LoadTest [scenario|all] [rate per second] [duration in seconds]}, e.g.
+ * {@code mvn -Ploadtest compile exec:exec -Dloadtest.args="circuit-breaker 2000 30"}. The backend configuration
+ * is read from the {@code loadtest.backend} system property, as JSON.
+ */
+public class LoadTest {
+  private static final int MAX_IN_FLIGHT = 10_000;
+  private static final Duration WARMUP = Duration.ofSeconds(5);
+
+  enum Scenario {
+    BASELINE {
+      @Override
+      Supplier<Future<Object>> decorate(Vertx vertx, Supplier<Future<Object>> call) {
+        return call;
+      }
+    },
+    CIRCUIT_BREAKER {
+      @Override
+      Supplier<Future<Object>> decorate(Vertx vertx, Supplier<Future<Object>> call) {
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("loadtest", CircuitBreakerConfig.custom()
+          .slidingWindowSize(100)
+          .failureRateThreshold(25)
+          .slowCallDurationThreshold(Duration.ofMillis(100))
+          .slowCallRateThreshold(50)
+          .waitDurationInOpenState(Duration.ofSeconds(1))
+          .build());
+        return VertxCircuitBreaker.decorateFuture(circuitBreaker, call);
+      }
+    },
+    BULKHEAD {
+      @Override
+      Supplier<Future<Object>> decorate(Vertx vertx, Supplier<Future<Object>> call) {
+        Bulkhead bulkhead = Bulkhead.of("loadtest", BulkheadConfig.custom()
+          .maxConcurrentCalls(100)
+          .maxWaitDuration(Duration.ZERO)
+          .build());
+        return VertxBulkhead.decorateFuture(bulkhead, call);
+      }
+    },
+    RATE_LIMITER {
+      @Override
+      Supplier<Future<Object>> decorate(Vertx vertx, Supplier<Future<Object>> call) {
+        RateLimiter rateLimiter = RateLimiter.of("loadtest", RateLimiterConfig.custom()
+          .limitForPeriod(100)
+          .limitRefreshPeriod(Duration.ofMillis(100))
+          .timeoutDuration(Duration.ofMillis(50))
+          .build());
+        return VertxRateLimiter.decorateFuture(rateLimiter, call, vertx);
+      }
+    },
+    RETRY {
+      @Override
+      Supplier<Future<Object>> decorate(Vertx vertx, Supplier<Future<Object>> call) {
+        Retry retry = Retry.of("loadtest", RetryConfig.custom()
+          .maxAttempts(3)
+          .waitDuration(Duration.ofMillis(10))
+          .build());
+        return VertxRetry.decorateFuture(retry, vertx, call);
+      }
+    },
+    TIME_LIMITER {
+      @Override
+      Supplier<Future<Object>> decorate(Vertx vertx, Supplier<Future<Object>> call) {
+        TimeLimiter timeLimiter = TimeLimiter.of("loadtest", TimeLimiterConfig.custom()
+          .timeoutDuration(Duration.ofMillis(100))
+          .build());
+        return VertxTimeLimiter.decorateFuture(timeLimiter, TimeoutScheduler.create(vertx), call);
+      }
+    };
+
+    abstract Supplier<Future<Object>> decorate(Vertx vertx, Supplier<Future<Object>> call);
+
+    String label() {
+      return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+  }
+
+  public static void main(String[] args) {
+    String scenarioArg = args.length > 0 ? args[0] : "all";
+    int rate = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 20);
+    JsonObject backendConfig = new JsonObject(System.getProperty("loadtest.backend", "{}")).put("port", 0);
+
+    List<Scenario> scenarios = new ArrayList<>();
+    for (Scenario scenario : Scenario.values()) {
+      if ("all".equals(scenarioArg) || scenario.label().equals(scenarioArg) || scenario == Scenario.BASELINE) {
+        scenarios.add(scenario);
+      }
+    }
+
+    Vertx vertx = Vertx.vertx();
+    try {
+      // the first run would otherwise pay for the JIT compilation of the whole stack
+      run(vertx, Scenario.BASELINE, backendConfig, rate, WARMUP);
+      System.out.println(OpenLoopLoadGenerator.Report.header());
+      for (Scenario scenario : scenarios) {
+        System.out.println(run(vertx, scenario, backendConfig, rate, duration).format(scenario.label()));
+      }
+    } finally {
+      vertx.close().await();
+    }
+  }
+
+  private static OpenLoopLoadGenerator.Report run(Vertx vertx, Scenario scenario, JsonObject backendConfig, int rate,
+                                                  Duration duration) {
+    // a fresh backend per run, so every run starts at the same point of the brownout cycle
+    FaultInjectingBackend backend = new FaultInjectingBackend();
+    String deploymentId = vertx.deployVerticle(backend, new DeploymentOptions().setConfig(backendConfig)).await();
+    WebClient client = WebClient.create(vertx, new WebClientOptions(), new PoolOptions().setHttp1MaxSize(MAX_IN_FLIGHT));
+    int port = backend.actualPort();
+    Supplier<Future<Object>> call = () -> client.get(port, "localhost", "/").send().expecting(HttpResponseExpectation.SC_SUCCESS).mapEmpty();
+
+    try {
+      return OpenLoopLoadGenerator.run(vertx, rate, duration, MAX_IN_FLIGHT, scenario.decorate(vertx, call)).await();
+    } finally {
+      client.close();
+      vertx.undeploy(deploymentId).await();
+    }
+  }
+}
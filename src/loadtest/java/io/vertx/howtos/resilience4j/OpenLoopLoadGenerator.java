@@ -0,0 +1,183 @@
+package io.vertx.howtos.resilience4j;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.VertxInternal;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sends calls at a fixed rate, whether or not the previous calls have completed, and measures their latency from
+ * the time each call was meant to be sent.
+ * <p>
+ * A closed-loop generator waits for a response before sending the next request, so a stalled service also stalls
+ * the load and the requests that would have been sent meanwhile are never measured: the coordinated omission
+ * problem. Here the schedule is fixed upfront, call {@code i} is due at {@code start + i / rate}, and a call sent late
+ * because the generator fell behind is charged for the delay. Both the response time, from the intended start, and
+ * the service time, from the actual send, are reported, so the gap between them shows the queueing.
+ * <p>
+ * Calls are issued from a single event loop, woken up every millisecond to send the calls due by then. When
+ * {@code maxInFlight} calls are already pending, the due calls are dropped and counted instead.
+ */
+public class OpenLoopLoadGenerator {
+  private final ContextInternal ctx;
+  private final int rate;
+  private final long durationNanos;
+  private final int maxInFlight;
+  private final Supplier<? extends Future<?>> call;
+
+  private final LatencySketch responseTimes = new LatencySketch();
+  private final LatencySketch serviceTimes = new LatencySketch();
+  private final Promise<Report> result = Promise.promise();
+  private long start;
+  private long total;
+  private long issued;
+  private long inFlight;
+  private long succeeded;
+  private long failed;
+  private long dropped;
+  private long timerId;
+
+  private OpenLoopLoadGenerator(Vertx vertx, int rate, Duration duration, int maxInFlight, Supplier<? extends Future<?>> call) {
+    this.ctx = ((VertxInternal) vertx).createEventLoopContext();
+    this.rate = rate;
+    this.durationNanos = duration.toNanos();
+    this.maxInFlight = maxInFlight;
+    this.call = call;
+  }
+
+  /**
+   * Runs {@code call} {@code rate} times per second for {@code duration}, and completes the report once every call
+   * has completed.
+   */
+  public static Future<Report> run(Vertx vertx, int rate, Duration duration, int maxInFlight, Supplier<? extends Future<?>> call) {
+    OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(vertx, rate, duration, maxInFlight, call);
+    generator.ctx.runOnContext(ignored -> generator.start());
+    return generator.result.future();
+  }
+
+  private void start() {
+    start = System.nanoTime();
+    total = durationNanos * rate / TimeUnit.SECONDS.toNanos(1);
+    timerId = ctx.setPeriodic(1, ignored -> tick());
+  }
+
+  private void tick() {
+    long now = System.nanoTime();
+    long due = Math.min(total, (now - start) * rate / TimeUnit.SECONDS.toNanos(1) + 1);
+    while (issued < due) {
+      long intendedStart = start + issued * TimeUnit.SECONDS.toNanos(1) / rate;
+      issued++;
+      if (inFlight >= maxInFlight) {
+        dropped++;
+        continue;
+      }
+      send(intendedStart);
+    }
+    if (issued == total) {
+      ctx.owner().cancelTimer(timerId);
+      completeIfDone();
+    }
+  }
+
+  private void send(long intendedStart) {
+    inFlight++;
+    long sendStart = System.nanoTime();
+    Future<?> future;
+    try {
+      future = call.get();
+    } catch (Exception e) {
+      future = Future.failedFuture(e);
+    }
+    future.onComplete(result -> {
+      long end = System.nanoTime();
+      responseTimes.record(end - intendedStart);
+      serviceTimes.record(end - sendStart);
+      if (result.succeeded()) {
+        succeeded++;
+      } else {
+        failed++;
+      }
+      inFlight--;
+      completeIfDone();
+    });
+  }
+
+  private void completeIfDone() {
+    if (issued == total && inFlight == 0) {
+      result.tryComplete(new Report(rate, System.nanoTime() - start, succeeded, failed, dropped, responseTimes, serviceTimes));
+    }
+  }
+
+  /**
+   * The outcome of a run; latencies are in nanoseconds.
+   */
+  public static final class Report {
+    private final int rate;
+    private final long elapsedNanos;
+    private final long succeeded;
+    private final long failed;
+    private final long dropped;
+    private final LatencySketch responseTimes;
+    private final LatencySketch serviceTimes;
+
+    Report(int rate, long elapsedNanos, long succeeded, long failed, long dropped, LatencySketch responseTimes,
+           LatencySketch serviceTimes) {
+      this.rate = rate;
+      this.elapsedNanos = elapsedNanos;
+      this.succeeded = succeeded;
+      this.failed = failed;
+      this.dropped = dropped;
+      this.responseTimes = responseTimes;
+      this.serviceTimes = serviceTimes;
+    }
+
+    public long getSucceeded() {
+      return succeeded;
+    }
+
+    public long getFailed() {
+      return failed;
+    }
+
+    public long getDropped() {
+      return dropped;
+    }
+
+    /**
+     * Successful calls per second.
+     */
+    public double getGoodput() {
+      return succeeded * 1e9 / elapsedNanos;
+    }
+
+    public long getResponseTimeAtQuantile(double quantile) {
+      return responseTimes.getValueAtQuantile(quantile);
+    }
+
+    public long getServiceTimeAtQuantile(double quantile) {
+      return serviceTimes.getValueAtQuantile(quantile);
+    }
+
+    public static String header() {
+      return String.format("%-16s %8s %10s %8s %8s %8s %9s %9s %9s %9s %12s",
+        "scenario", "rate", "goodput/s", "ok", "failed", "dropped", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "p99 svc ms");
+    }
+
+    public String format(String scenario) {
+      return String.format("%-16s %8d %10.1f %8d %8d %8d %9.2f %9.2f %9.2f %9.2f %12.2f",
+        scenario, rate, getGoodput(), succeeded, failed, dropped,
+        millis(getResponseTimeAtQuantile(0.5)), millis(getResponseTimeAtQuantile(0.99)),
+        millis(getResponseTimeAtQuantile(0.999)), millis(getResponseTimeAtQuantile(1.0)),
+        millis(getServiceTimeAtQuantile(0.99)));
+    }
+
+    private static double millis(long nanos) {
+      return nanos / 1e6;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Predicate;
+
+/**
+ * A {@link Bulkhead} whose concurrency limit follows a {@link LimitAlgorithm}.
+ * <p>
+ * The round trip time of every permitted call is fed to the algorithm. Failures matching the drop predicate, by
+ * default timeouts, are reported to the algorithm as dropped calls. The algorithm is updated by a single completion at
+ * a time, without a lock: a completion that finds an update in progress skips its sample instead of waiting, so under
+ * contention the algorithm sees a sample of the completions.
+ * <p>
+ * The limit is enforced by a counter of the calls in flight, checked before the permission of the bulkhead is
+ * acquired, so lowering the limit never waits for calls to complete: calls above the new limit are rejected until
+ * enough calls in flight complete. The configuration of the bulkhead is left untouched, its
+ * {@code maxConcurrentCalls} caps the limit, and its {@code maxWaitDuration} should be zero.
+ */
+public class AdaptiveBulkhead {
+  private static final AtomicIntegerFieldUpdater<AdaptiveBulkhead> IN_FLIGHT =
+    AtomicIntegerFieldUpdater.newUpdater(AdaptiveBulkhead.class, "inFlight");
+  private static final AtomicIntegerFieldUpdater<AdaptiveBulkhead> UPDATING =
+    AtomicIntegerFieldUpdater.newUpdater(AdaptiveBulkhead.class, "updating");
+
+  private final Bulkhead bulkhead;
+  private final LimitAlgorithm algorithm;
+  private final Predicate<Throwable> dropPredicate;
+  private volatile int limit;
+  private volatile int inFlight;
+  // 1 while a completion updates the algorithm
+  private volatile int updating;
+
+  private AdaptiveBulkhead(Bulkhead bulkhead, LimitAlgorithm algorithm, Predicate<Throwable> dropPredicate) {
+    this.bulkhead = bulkhead;
+    this.algorithm = algorithm;
+    this.dropPredicate = dropPredicate;
+    this.limit = algorithm.getLimit();
+  }
+
+  public static AdaptiveBulkhead of(Bulkhead bulkhead, LimitAlgorithm algorithm) {
+    return of(bulkhead, algorithm, TimeoutException.class::isInstance);
+  }
+
+  public static AdaptiveBulkhead of(Bulkhead bulkhead, LimitAlgorithm algorithm, Predicate<Throwable> dropPredicate) {
+    return new AdaptiveBulkhead(bulkhead, algorithm, dropPredicate);
+  }
+
+  public Bulkhead getBulkhead() {
+    return bulkhead;
+  }
+
+  /**
+   * The current concurrency limit.
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * The number of permitted calls that have not completed yet.
+   */
+  public int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Returns the number of calls in flight including this one, or {@code -1} when the call is not permitted.
+   */
+  int tryAcquirePermission() {
+    int current;
+    do {
+      current = inFlight;
+      if (current >= limit) {
+        return -1;
+      }
+    } while (!IN_FLIGHT.compareAndSet(this, current, current + 1));
+
+    if (!bulkhead.tryAcquirePermission()) {
+      IN_FLIGHT.decrementAndGet(this);
+      return -1;
+    }
+    return current + 1;
+  }
+
+  void onComplete(long rttNanos, int inFlight, Throwable failure) {
+    bulkhead.onComplete();
+    IN_FLIGHT.decrementAndGet(this);
+    if (!UPDATING.compareAndSet(this, 0, 1)) {
+      return;
+    }
+    try {
+      limit = algorithm.update(rttNanos, inFlight, failure != null && dropPredicate.test(failure));
+    } finally {
+      updating = 0;
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package io.vertx.howtos.resilience4j;
+
+import java.time.Duration;
+
+/**
+ * Additive increase, multiplicative decrease: the limit grows by one while the calls saturate it
+ * and shrinks by {@code backoffRatio} whenever a call is dropped or slower than {@code timeout}.
+ */
+public class AimdLimit implements LimitAlgorithm {
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final long timeoutNanos;
+  private int limit;
+
+  public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, Duration timeout) {
+    if (backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.backoffRatio = backoffRatio;
+    this.timeoutNanos = timeout.toNanos();
+    this.limit = initialLimit;
+  }
+
+  @Override
+  public int getLimit() {
+    return limit;
+  }
+
+  @Override
+  public int update(long rttNanos, int inFlight, boolean dropped) {
+    if (dropped || rttNanos > timeoutNanos) {
+      limit = Math.max(minLimit, (int) (limit * backoffRatio));
+    } else if (inFlight * 2 >= limit) {
+      limit = Math.min(maxLimit, limit + 1);
+    }
+    return limit;
+  }
+}
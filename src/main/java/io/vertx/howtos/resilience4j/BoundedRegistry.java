@@ -0,0 +1,268 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.vertx.core.Vertx;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A registry of policy instances keyed by name, such as a circuit breaker per tenant or a rate limiter per endpoint,
+ * holding at most {@code maxSize} instances and dropping those idle for longer than {@code idleTimeout}.
+ * <p>
+ * Unlike the resilience4j registries, instances are not kept forever: they are created on first use from a template
+ * config and evicted when the registry grows past its size, least recently used first, or when they are idle. Looking
+ * up an existing instance does not lock. An insertion that overflows the registry evicts the least recently used
+ * instance right away, with a scan of the instances, so the size only exceeds {@code maxSize} while insertions are
+ * running. When the registry is given a {@link Vertx} instance, reaching the size also trims a tenth of the
+ * instances on a worker thread, sorting them by last access off the request path so that the next insertions do
+ * not have to scan, and idle instances are swept periodically.
+ * <p>
+ * An evicted instance is recreated in its initial state on the next lookup of its name. The calls still running
+ * with the evicted instance complete normally. The {@link ResilienceMetrics} recorder of an evicted circuit breaker
+ * or rate limiter is removed from the default metrics.
+ */
+public class BoundedRegistry<E> implements AutoCloseable {
+  private static final long CIRCUIT_BREAKER_BASE_BYTES = 1024;
+  private static final long CIRCUIT_BREAKER_BYTES_PER_CALL = 48;
+  private static final long RATE_LIMITER_BYTES = 512;
+  private static final long ENTRY_BYTES = 96;
+  // hot instances only publish their access time once per millisecond, instead of writing to a shared line per lookup
+  private static final long ACCESS_GRANULARITY_NANOS = 1_000_000;
+
+  private final Function<String, E> factory;
+  private final int maxSize;
+  private final long idleTimeoutNanos;
+  private final long instanceBytes;
+  private final LongSupplier clock;
+  private final ResilienceMetrics.Policy policy;
+  private final Map<String, Entry<E>> entries = new ConcurrentHashMap<>();
+  private final AtomicBoolean trimming = new AtomicBoolean();
+  private final LongAdder creations = new LongAdder();
+  private final LongAdder sizeEvictions = new LongAdder();
+  private final LongAdder idleEvictions = new LongAdder();
+  private final Vertx vertx;
+  private final long sweepTimerId;
+
+  BoundedRegistry(Vertx vertx, Function<String, E> factory, int maxSize, Duration idleTimeout, long instanceBytes,
+                  ResilienceMetrics.Policy policy, LongSupplier clock) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be positive");
+    }
+    this.factory = Objects.requireNonNull(factory);
+    this.maxSize = maxSize;
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    this.instanceBytes = instanceBytes;
+    this.clock = clock;
+    this.policy = policy;
+    this.vertx = vertx;
+    this.sweepTimerId = vertx != null ? vertx.setPeriodic(Math.max(1, idleTimeout.toMillis() / 2), ignored -> expireIdle()) : -1;
+  }
+
+  /**
+   * Creates a registry of instances built by {@code factory}, each estimated to take {@code instanceBytes} of heap.
+   * Idle instances are swept every half {@code idleTimeout} on {@code vertx}, or only on overflow and
+   * {@link #expireIdle()} calls when {@code vertx} is {@code null}.
+   */
+  public static <E> BoundedRegistry<E> create(Vertx vertx, Function<String, E> factory, int maxSize, Duration idleTimeout,
+                                              long instanceBytes) {
+    return new BoundedRegistry<>(vertx, factory, maxSize, idleTimeout, instanceBytes, null, System::nanoTime);
+  }
+
+  public static BoundedRegistry<CircuitBreaker> ofCircuitBreakers(Vertx vertx, CircuitBreakerConfig template, int maxSize,
+                                                                  Duration idleTimeout) {
+    long instanceBytes = CIRCUIT_BREAKER_BASE_BYTES + CIRCUIT_BREAKER_BYTES_PER_CALL * template.getSlidingWindowSize();
+    return new BoundedRegistry<>(vertx, name -> CircuitBreaker.of(name, template), maxSize, idleTimeout, instanceBytes,
+      ResilienceMetrics.Policy.CIRCUIT_BREAKER, System::nanoTime);
+  }
+
+  public static BoundedRegistry<RateLimiter> ofRateLimiters(Vertx vertx, RateLimiterConfig template, int maxSize,
+                                                            Duration idleTimeout) {
+    return new BoundedRegistry<>(vertx, name -> RateLimiter.of(name, template), maxSize, idleTimeout, RATE_LIMITER_BYTES,
+      ResilienceMetrics.Policy.RATE_LIMITER, System::nanoTime);
+  }
+
+  /**
+   * Returns the instance named {@code name}, creating it if it does not exist or was evicted.
+   */
+  public E get(String name) {
+    long now = clock.getAsLong();
+    Entry<E> entry = entries.get(name);
+    if (entry == null) {
+      entry = entries.computeIfAbsent(name, this::createEntry);
+      int size = entries.size();
+      if (size >= maxSize) {
+        trimInBackground();
+      }
+      while (size > maxSize) {
+        evictLeastRecentlyUsed();
+        size = entries.size();
+      }
+    }
+    if (now - entry.lastAccess > ACCESS_GRANULARITY_NANOS) {
+      entry.lastAccess = now;
+    }
+    return entry.value;
+  }
+
+  private Entry<E> createEntry(String name) {
+    creations.increment();
+    return new Entry<>(factory.apply(name), clock.getAsLong());
+  }
+
+  /**
+   * Removes the instances idle for longer than the idle timeout.
+   */
+  public void expireIdle() {
+    long deadline = clock.getAsLong() - idleTimeoutNanos;
+    entries.entrySet().removeIf(entry -> {
+      if (entry.getValue().lastAccess - deadline < 0) {
+        idleEvictions.increment();
+        onEvicted(entry.getKey());
+        return true;
+      }
+      return false;
+    });
+  }
+
+  private void evictLeastRecentlyUsed() {
+    String oldestName = null;
+    Entry<E> oldest = null;
+    for (Map.Entry<String, Entry<E>> entry : entries.entrySet()) {
+      if (oldest == null || entry.getValue().lastAccess - oldest.lastAccess < 0) {
+        oldestName = entry.getKey();
+        oldest = entry.getValue();
+      }
+    }
+    // another thread may have removed it meanwhile, the caller checks the size again
+    if (oldest != null && entries.remove(oldestName, oldest)) {
+      sizeEvictions.increment();
+      onEvicted(oldestName);
+    }
+  }
+
+  private void trimInBackground() {
+    if (vertx == null || !trimming.compareAndSet(false, true)) {
+      return;
+    }
+    vertx.executeBlocking(() -> {
+      try {
+        trim();
+      } finally {
+        trimming.set(false);
+      }
+      return null;
+    }, false);
+  }
+
+  private void trim() {
+    long now = clock.getAsLong();
+    expireIdle();
+    // evict down to 90% of the size, so the next insertions do not overflow the registry
+    int toEvict = entries.size() - (maxSize - maxSize / 10);
+    if (toEvict <= 0) {
+      return;
+    }
+    long[] ages = new long[entries.size()];
+    int count = 0;
+    for (Entry<E> entry : entries.values()) {
+      if (count == ages.length) {
+        break;
+      }
+      ages[count++] = now - entry.lastAccess;
+    }
+    Arrays.sort(ages, 0, count);
+    long minAge = ages[Math.max(0, count - toEvict)];
+    int[] remaining = {toEvict};
+    entries.entrySet().removeIf(entry -> {
+      if (remaining[0] > 0 && now - entry.getValue().lastAccess >= minAge) {
+        remaining[0]--;
+        sizeEvictions.increment();
+        onEvicted(entry.getKey());
+        return true;
+      }
+      return false;
+    });
+  }
+
+  private void onEvicted(String name) {
+    if (policy != null) {
+      ResilienceMetrics.getDefault().remove(policy, name);
+    }
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * The number of instances created, including those recreated after an eviction.
+   */
+  public long getCreations() {
+    return creations.sum();
+  }
+
+  /**
+   * The number of instances evicted because the registry was full.
+   */
+  public long getSizeEvictions() {
+    return sizeEvictions.sum();
+  }
+
+  /**
+   * The number of instances evicted because they were idle.
+   */
+  public long getIdleEvictions() {
+    return idleEvictions.sum();
+  }
+
+  /**
+   * An estimate of the heap retained by the registry, in bytes: the instances, their names, their map entries and,
+   * when metrics are recorded, their {@link ResilienceMetrics} recorders.
+   */
+  public long getEstimatedMemoryFootprint() {
+    long perInstance = ENTRY_BYTES + instanceBytes + 40;
+    if (policy != null && ResilienceMetrics.getDefault().isEnabled()) {
+      perInstance += ResilienceMetrics.RECORDER_BYTES;
+    }
+    long bytes = 0;
+    for (String name : entries.keySet()) {
+      bytes += perInstance + name.length();
+    }
+    return bytes;
+  }
+
+  /**
+   * Stops the periodic sweep of idle instances.
+   */
+  @Override
+  public void close() {
+    if (vertx != null) {
+      vertx.cancelTimer(sweepTimerId);
+    }
+  }
+
+  private static final class Entry<E> {
+    private final E value;
+    private volatile long lastAccess;
+
+    Entry(E value, long lastAccess) {
+      this.value = value;
+      this.lastAccess = lastAccess;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.event.CircuitBreakerOnStateTransitionEvent;
+import io.github.resilience4j.core.EventConsumer;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.core.eventbus.MessageConsumer;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Shares the state transitions of a {@link CircuitBreaker} with the breakers of the same name on other
+ * Vert.x instances, so that an outage detected by one instance opens the breakers of all of them.
+ * <p>
+ * Every local transition to OPEN, HALF_OPEN or CLOSED is published on the event bus. A breaker receiving a
+ * transition to OPEN opens too, unless it is already OPEN. A breaker receiving a transition to HALF_OPEN or
+ * CLOSED while it is OPEN moves to HALF_OPEN, so it probes the dependency itself rather than trusting a peer to
+ * close it. Transitions applied from a peer are not published again, and breakers in DISABLED, FORCED_OPEN or
+ * METRICS_ONLY state are left untouched.
+ */
+public class CircuitBreakerStatePropagation implements AutoCloseable {
+  private static final CircuitBreaker.State[] STATES = CircuitBreaker.State.values();
+
+  private final CircuitBreaker circuitBreaker;
+  private final String address;
+  private final long origin = ThreadLocalRandom.current().nextLong();
+  private final EventBus eventBus;
+  private final MessageConsumer<StateTransition> consumer;
+  private final EventConsumer<CircuitBreakerOnStateTransitionEvent> listener = this::onStateTransition;
+  private volatile Thread applyingThread;
+  private volatile boolean closed;
+
+  private CircuitBreakerStatePropagation(Vertx vertx, CircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+    this.address = "resilience4j.circuitbreaker." + circuitBreaker.getName();
+    this.eventBus = vertx.eventBus();
+    try {
+      eventBus.registerDefaultCodec(StateTransition.class, new StateTransitionCodec());
+    } catch (IllegalStateException alreadyRegistered) {
+      // another breaker of this Vert.x instance registered it first
+    }
+    this.consumer = eventBus.consumer(address, this::onPeerTransition);
+    circuitBreaker.getEventPublisher().onStateTransition(listener);
+  }
+
+  public static CircuitBreakerStatePropagation enable(Vertx vertx, CircuitBreaker circuitBreaker) {
+    return new CircuitBreakerStatePropagation(vertx, circuitBreaker);
+  }
+
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * Completes once the peers can reach this breaker.
+   */
+  public Future<Void> completion() {
+    return consumer.completion();
+  }
+
+  /**
+   * Stops publishing and applying transitions. The event publisher of the breaker has no way to remove
+   * a consumer, so the local listener stays registered but does nothing.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    consumer.unregister();
+  }
+
+  private void onStateTransition(CircuitBreakerOnStateTransitionEvent event) {
+    if (closed || applyingThread == Thread.currentThread()) {
+      return;
+    }
+    CircuitBreaker.State state = event.getStateTransition().getToState();
+    if (state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.HALF_OPEN || state == CircuitBreaker.State.CLOSED) {
+      eventBus.publish(address, new StateTransition(origin, state));
+    }
+  }
+
+  private void onPeerTransition(Message<StateTransition> message) {
+    StateTransition transition = message.body();
+    if (transition.origin == origin) {
+      return;
+    }
+    CircuitBreaker.State current = circuitBreaker.getState();
+    applyingThread = Thread.currentThread();
+    try {
+      switch (transition.state) {
+        case OPEN:
+          if (current == CircuitBreaker.State.CLOSED || current == CircuitBreaker.State.HALF_OPEN) {
+            circuitBreaker.transitionToOpenState();
+          }
+          break;
+        case HALF_OPEN:
+        case CLOSED:
+          if (current == CircuitBreaker.State.OPEN) {
+            circuitBreaker.transitionToHalfOpenState();
+          }
+          break;
+        default:
+          break;
+      }
+    } catch (IllegalStateException concurrentTransition) {
+      // the breaker moved on its own in the meantime
+    } finally {
+      applyingThread = null;
+    }
+  }
+
+  static final class StateTransition {
+    final long origin;
+    final CircuitBreaker.State state;
+
+    StateTransition(long origin, CircuitBreaker.State state) {
+      this.origin = origin;
+      this.state = state;
+    }
+  }
+
+  /**
+   * Encodes a transition in 9 bytes: the origin, then the ordinal of the target state.
+   */
+  static final class StateTransitionCodec implements MessageCodec<StateTransition, StateTransition> {
+    @Override
+    public void encodeToWire(Buffer buffer, StateTransition transition) {
+      buffer.appendLong(transition.origin).appendByte((byte) transition.state.ordinal());
+    }
+
+    @Override
+    public StateTransition decodeFromWire(int pos, Buffer buffer) {
+      return new StateTransition(buffer.getLong(pos), STATES[buffer.getByte(pos + 8)]);
+    }
+
+    @Override
+    public StateTransition transform(StateTransition transition) {
+      return transition;
+    }
+
+    @Override
+    public String name() {
+      return "resilience4j-circuitbreaker-state";
+    }
+
+    @Override
+    public byte systemCodecID() {
+      return -1;
+    }
+  }
+}
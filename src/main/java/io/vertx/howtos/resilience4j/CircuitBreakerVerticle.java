@@ -15,6 +15,9 @@ public class CircuitBreakerVerticle extends VerticleBase {
 // end::class[]
   // tag::main[]
   public static void main(String[] args) {
+    // tag::install-metrics[]
+    ResilienceMetrics.setDefault(new ResilienceMetrics());
+    // end::install-metrics[]
     Vertx vertx = Vertx.vertx();
     vertx.deployVerticle(new CircuitBreakerVerticle());
   }
@@ -45,6 +48,14 @@ public class CircuitBreakerVerticle extends VerticleBase {
     });
     // end::router[]
 
+    // tag::metrics[]
+    router.get("/metrics").handler(ctx -> {
+      ctx.response()
+        .putHeader("Content-Type", "text/plain; version=0.0.4")
+        .end(ResilienceMetrics.getDefault().scrape());
+    });
+    // end::metrics[]
+
     // tag::server[]
     return vertx.createHttpServer()
       .requestHandler(router)
@@ -0,0 +1,107 @@
+package io.vertx.howtos.resilience4j;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.vertx.core.Handler;
+import io.vertx.core.ThreadingModel;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.ContextInternal;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs delayed tasks of an event loop from a single timer.
+ * <p>
+ * Tasks are kept in deadline order, and in scheduling order for equal deadlines. The timer is armed for the
+ * earliest deadline only, and every task that is due when it fires runs in the same pass, on the context
+ * of the caller that scheduled it.
+ */
+final class CoalescedTimer {
+  private static final FastThreadLocal<CoalescedTimer> TIMERS = new FastThreadLocal<>() {
+    @Override
+    protected CoalescedTimer initialValue() {
+      return new CoalescedTimer(ContextInternal.current());
+    }
+  };
+
+  private final ContextInternal context;
+  private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+  private long sequence;
+  private long timerId = -1;
+  private long timerDeadline;
+  private boolean firing;
+
+  private CoalescedTimer(ContextInternal ctx) {
+    this.context = ctx.owner().contextBuilder()
+      .withThreadingModel(ThreadingModel.EVENT_LOOP)
+      .withEventLoop(ctx.nettyEventLoop())
+      .build();
+  }
+
+  /**
+   * Schedules {@code task} to run on {@code ctx} after {@code delayNanos}. When the caller is not on
+   * an event loop, the task gets its own Vert.x timer.
+   */
+  static void schedule(Vertx vertx, ContextInternal ctx, long delayNanos, Task task) {
+    if (ctx != null && ctx.isEventLoopContext() && ctx.nettyEventLoop().inEventLoop()) {
+      TIMERS.get().add(ctx, delayNanos, task);
+    } else {
+      vertx.setTimer(Math.max(1, TimeUnit.NANOSECONDS.toMillis(delayNanos)), ignored -> task.handle(null));
+    }
+  }
+
+  private void add(ContextInternal ctx, long delayNanos, Task task) {
+    task.ctx = ctx;
+    task.deadline = System.nanoTime() + delayNanos;
+    task.sequence = sequence++;
+    tasks.add(task);
+    if (!firing && (timerId == -1 || task.deadline - timerDeadline < 0)) {
+      arm(task.deadline);
+    }
+  }
+
+  private void arm(long deadline) {
+    if (timerId != -1) {
+      context.owner().cancelTimer(timerId);
+    }
+    long delayNanos = deadline - System.nanoTime();
+    // round up, a task must not run before its deadline
+    long delayMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(delayNanos + 999_999));
+    timerDeadline = deadline;
+    timerId = context.setTimer(delayMillis, ignored -> fire());
+  }
+
+  private void fire() {
+    timerId = -1;
+    long now = System.nanoTime();
+    Task task;
+    // tasks scheduled by the running tasks are only queued, the timer is armed once for the new head
+    firing = true;
+    try {
+      while ((task = tasks.peek()) != null && task.deadline - now <= 0) {
+        tasks.poll();
+        task.ctx.emit(null, task);
+      }
+    } finally {
+      firing = false;
+    }
+    if (task != null) {
+      arm(task.deadline);
+    }
+  }
+
+  /**
+   * A delayed task, extended by callers so that scheduling does not allocate more than the task itself.
+   */
+  abstract static class Task implements Handler<Void>, Comparable<Task> {
+    private ContextInternal ctx;
+    private long deadline;
+    private long sequence;
+
+    @Override
+    public int compareTo(Task other) {
+      int result = Long.compare(deadline - other.deadline, 0);
+      return result != 0 ? result : Long.compare(sequence, other.sequence);
+    }
+  }
+}
@@ -0,0 +1,235 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.json.JsonObject;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The node side of a rate limiter shared by a cluster, see {@link RateLimiterCoordinatorVerticle}.
+ * <p>
+ * Calls take their permits from a block leased from the coordinator over the event bus, so a call rarely waits
+ * for a round trip. The next block is requested in the background once less than half of the current one is left.
+ * A call that finds the block empty while the next one is requested waits for it, in order, as long as the
+ * requested block can cover the waiting calls; beyond that, or when the coordinator grants no permits, calls are
+ * rejected until the global limit refreshes.
+ * <p>
+ * A block can only be used until the end of the period it was granted in: the permits left from a previous period
+ * are dropped when a block of a new period arrives.
+ * <p>
+ * Until the first block is leased, and whenever the coordinator does not reply, calls go through the
+ * {@code fallback} limiter instead, which should be configured with this node's share of the global limit.
+ * Its name and events are also used for the calls permitted from leased blocks.
+ */
+public class DistributedRateLimiter {
+  private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(1);
+  private static final Future<Long> PERMITTED = Future.succeededFuture(0L);
+  private static final Future<Long> REJECTED = Future.succeededFuture(-1L);
+
+  private final Vertx vertx;
+  private final String address;
+  private final int blockSize;
+  private final RateLimiter fallback;
+  private final DeliveryOptions deliveryOptions;
+  private final long retryDelayNanos;
+
+  // guarded by this
+  private int permits;
+  private long cycle;
+  private long expiration;
+  private boolean coordinatorAvailable;
+  private boolean requesting;
+  private long requestedAt;
+  private long nextRequest;
+  private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+  private int waitingPermits;
+
+  private DistributedRateLimiter(Vertx vertx, String name, int blockSize, RateLimiter fallback, Duration requestTimeout) {
+    this.vertx = vertx;
+    this.address = address(name);
+    this.blockSize = blockSize;
+    this.fallback = fallback;
+    this.deliveryOptions = new DeliveryOptions().setSendTimeout(requestTimeout.toMillis());
+    this.retryDelayNanos = requestTimeout.toNanos();
+    this.nextRequest = System.nanoTime();
+  }
+
+  public static DistributedRateLimiter create(Vertx vertx, String name, int blockSize, RateLimiter fallback) {
+    return create(vertx, name, blockSize, fallback, DEFAULT_REQUEST_TIMEOUT);
+  }
+
+  /**
+   * @param blockSize      the number of permits leased at once, also the maximum number of permits per call
+   * @param requestTimeout how long to wait for the coordinator before using the fallback limiter
+   */
+  public static DistributedRateLimiter create(Vertx vertx, String name, int blockSize, RateLimiter fallback, Duration requestTimeout) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("blockSize must be at least 1");
+    }
+    DistributedRateLimiter rateLimiter = new DistributedRateLimiter(vertx, name, blockSize, fallback, requestTimeout);
+    rateLimiter.reservePermission(0); // lease the first block
+    return rateLimiter;
+  }
+
+  static String address(String name) {
+    return "resilience4j.ratelimiter." + name;
+  }
+
+  public RateLimiter getFallback() {
+    return fallback;
+  }
+
+  public boolean isCoordinatorAvailable() {
+    synchronized (this) {
+      return coordinatorAvailable;
+    }
+  }
+
+  public int getAvailablePermissions() {
+    synchronized (this) {
+      return System.nanoTime() - expiration < 0 ? permits : 0;
+    }
+  }
+
+  /**
+   * Same contract as {@link RateLimiter#reservePermission(int)}, asynchronously: the future tells the nanoseconds to
+   * wait before using the permits, or a negative value when they are not permitted. It is already completed unless
+   * the call waits for the block being requested.
+   *
+   * @throws IllegalArgumentException when more permits than a block are requested, a block could never permit them
+   */
+  Future<Long> reservePermission(int requested) {
+    if (requested > blockSize) {
+      throw new IllegalArgumentException("cannot request more permits than the block size " + blockSize);
+    }
+    long now = System.nanoTime();
+    boolean useFallback = false;
+    boolean request = false;
+    Future<Long> result = REJECTED;
+    synchronized (this) {
+      if (now - expiration >= 0) {
+        permits = 0;
+      }
+      if (!coordinatorAvailable) {
+        useFallback = true;
+      } else if (waiters.isEmpty() && permits >= requested) {
+        permits -= requested;
+        result = PERMITTED;
+      }
+      if (!requesting && (permits < blockSize / 2 + 1 || !waiters.isEmpty()) && now - nextRequest >= 0) {
+        requesting = true;
+        requestedAt = now;
+        request = true;
+      }
+      if (result == REJECTED && !useFallback && requesting && waitingPermits + requested <= blockSize) {
+        Waiter waiter = new Waiter(requested);
+        waiters.add(waiter);
+        waitingPermits += requested;
+        result = waiter.promise.future();
+      }
+    }
+
+    if (request) {
+      request();
+    }
+    if (useFallback && requested > 0) {
+      return Future.succeededFuture(fallback.reservePermission(requested));
+    }
+    return result;
+  }
+
+  private void request() {
+    vertx.eventBus().<JsonObject>request(address, new JsonObject().put("permits", blockSize), deliveryOptions)
+      .onComplete(this::onLease);
+  }
+
+  private void onLease(AsyncResult<Message<JsonObject>> reply) {
+    long now = System.nanoTime();
+    List<Waiter> permitted = new ArrayList<>();
+    List<Waiter> unserved = new ArrayList<>();
+    boolean request = false;
+    synchronized (this) {
+      requesting = false;
+      if (reply.failed()) {
+        coordinatorAvailable = false;
+        nextRequest = now + retryDelayNanos;
+        unserved.addAll(waiters);
+        clearWaiters();
+      } else {
+        JsonObject body = reply.result().body();
+        int granted = body.getInteger("permits");
+        coordinatorAvailable = true;
+        if (granted > 0) {
+          // the permits are valid until the end of the period, measured from the request to err on the safe side
+          long blockExpiration = requestedAt + TimeUnit.MILLISECONDS.toNanos(body.getLong("ttl"));
+          long blockCycle = body.getLong("cycle");
+          permits = (blockCycle == cycle && now - expiration < 0 ? permits : 0) + granted;
+          cycle = blockCycle;
+          expiration = blockExpiration;
+          nextRequest = now;
+        } else {
+          // the global limit is exhausted for this period
+          nextRequest = now + TimeUnit.MILLISECONDS.toNanos(body.getLong("retryAfter", 0L));
+        }
+
+        if (now - expiration >= 0) {
+          permits = 0;
+        }
+        Waiter waiter;
+        while ((waiter = waiters.peek()) != null && permits >= waiter.permits) {
+          permits -= waiter.permits;
+          waitingPermits -= waiter.permits;
+          permitted.add(waiters.poll());
+        }
+        if (!waiters.isEmpty()) {
+          if (now - nextRequest >= 0) {
+            requesting = true;
+            requestedAt = now;
+            request = true;
+          } else {
+            unserved.addAll(waiters);
+            clearWaiters();
+          }
+        }
+      }
+    }
+
+    if (request) {
+      request();
+    }
+    for (Waiter waiter : permitted) {
+      waiter.promise.complete(0L);
+    }
+    for (Waiter waiter : unserved) {
+      // without a coordinator, the waiting calls go through the fallback limiter
+      waiter.promise.complete(reply.failed() ? fallback.reservePermission(waiter.permits) : -1L);
+    }
+  }
+
+  private void clearWaiters() {
+    waiters.clear();
+    waitingPermits = 0;
+  }
+
+  private static final class Waiter {
+    private final int permits;
+    private final Promise<Long> promise;
+
+    Waiter(int permits) {
+      ContextInternal ctx = ContextInternal.current();
+      this.permits = permits;
+      this.promise = ctx != null ? ctx.promise() : Promise.promise();
+    }
+  }
+}
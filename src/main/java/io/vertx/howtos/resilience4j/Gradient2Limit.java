@@ -0,0 +1,66 @@
+package io.vertx.howtos.resilience4j;
+
+/**
+ * Gradient based limit: compares a long term exponentially averaged RTT with the RTT of the latest call.
+ * The ratio, clamped to {@code [0.5, 1]}, scales the limit down as soon as the latency rises above the
+ * long term average multiplied by {@code rttTolerance}, while a {@code sqrt(limit)} allowance lets it grow
+ * when the latency is stable.
+ */
+public class Gradient2Limit implements LimitAlgorithm {
+  private final int minLimit;
+  private final int maxLimit;
+  private final double rttTolerance;
+  private final double smoothing;
+  private final double longWindowFactor;
+  private double limit;
+  private double longRttNanos;
+
+  public Gradient2Limit(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing, int longWindow) {
+    if (rttTolerance < 1) {
+      throw new IllegalArgumentException("rttTolerance must be at least 1");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.rttTolerance = rttTolerance;
+    this.smoothing = smoothing;
+    this.longWindowFactor = 2.0 / (longWindow + 1);
+    this.limit = initialLimit;
+  }
+
+  @Override
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  @Override
+  public int update(long rttNanos, int inFlight, boolean dropped) {
+    if (rttNanos <= 0) {
+      return getLimit();
+    }
+    if (longRttNanos == 0) {
+      longRttNanos = rttNanos;
+      return getLimit();
+    }
+    longRttNanos = longRttNanos * (1 - longWindowFactor) + rttNanos * longWindowFactor;
+
+    // let the long term average recover quickly after a period of high latency
+    if (longRttNanos / rttNanos > 2) {
+      longRttNanos *= 0.95;
+    }
+
+    if (!dropped && inFlight < limit / 2) {
+      // the limit is not what holds the traffic back
+      return getLimit();
+    }
+
+    double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+    if (dropped) {
+      gradient = 0.5;
+    }
+    double newLimit = limit * gradient + Math.sqrt(limit);
+    newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+
+    limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    return getLimit();
+  }
+}
@@ -0,0 +1,97 @@
+package io.vertx.howtos.resilience4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The state shared by the calls of a hedging policy: the current hedge delay and the hedge budget.
+ * <p>
+ * Every call deposits {@code budgetRatio} of a token and every hedge withdraws a whole one,
+ * so hedges cannot exceed {@code budgetRatio} of the calls beyond a burst of {@code maxBudget}.
+ */
+public class Hedge {
+  private final String name;
+  private final HedgeConfig config;
+  private final TokenBucket budget;
+  private final AtomicLong hedges = new AtomicLong();
+  private final LatencySketch latencies;
+  private final long estimationPeriodNanos;
+  private final AtomicLong nextEstimation;
+  private volatile long delayMillis;
+
+  private Hedge(String name, HedgeConfig config) {
+    this.name = name;
+    this.config = config;
+    this.budget = new TokenBucket(config.getBudgetRatio(), config.getMaxBudget());
+    this.latencies = config.getDelayQuantile() > 0 ? new LatencySketch() : null;
+    this.estimationPeriodNanos = config.getEstimationPeriod().toNanos();
+    this.nextEstimation = new AtomicLong(System.nanoTime() + estimationPeriodNanos);
+    this.delayMillis = Math.max(1, config.getDelay().toMillis());
+  }
+
+  public static Hedge of(String name, HedgeConfig config) {
+    return new Hedge(name, config);
+  }
+
+  public static Hedge ofDefaults(String name) {
+    return of(name, HedgeConfig.ofDefaults());
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public HedgeConfig getHedgeConfig() {
+    return config;
+  }
+
+  /**
+   * The delay after which the next hedge is sent.
+   */
+  public long getDelayMillis() {
+    return delayMillis;
+  }
+
+  public long getNumberOfHedges() {
+    return hedges.get();
+  }
+
+  public double getAvailableBudget() {
+    return budget.getAvailableTokens();
+  }
+
+  void onCall() {
+    budget.deposit();
+  }
+
+  boolean tryAcquireHedge() {
+    if (!budget.tryWithdraw()) {
+      return false;
+    }
+    hedges.incrementAndGet();
+    return true;
+  }
+
+  void onFirstAttemptComplete(long latencyNanos) {
+    if (latencies == null) {
+      return;
+    }
+    latencies.record(latencyNanos);
+
+    long now = System.nanoTime();
+    long next = nextEstimation.get();
+    if (now - next >= 0 && nextEstimation.compareAndSet(next, now + estimationPeriodNanos)) {
+      long[] snapshot = latencies.snapshot();
+      long count = 0;
+      for (long bucket : snapshot) {
+        count += bucket;
+      }
+      // keep accumulating until there are enough samples for a meaningful estimate
+      if (count >= config.getMinSamples()) {
+        latencies.reset();
+        long estimate = TimeUnit.NANOSECONDS.toMillis(latencies.valueAtQuantile(config.getDelayQuantile(), snapshot));
+        delayMillis = Math.max(Math.max(1, config.getMinDelay().toMillis()), estimate);
+      }
+    }
+  }
+}
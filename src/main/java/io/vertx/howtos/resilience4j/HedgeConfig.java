@@ -0,0 +1,154 @@
+package io.vertx.howtos.resilience4j;
+
+import java.time.Duration;
+
+public class HedgeConfig {
+  private final Duration delay;
+  private final double delayQuantile;
+  private final Duration minDelay;
+  private final int minSamples;
+  private final Duration estimationPeriod;
+  private final int maxHedges;
+  private final double budgetRatio;
+  private final int maxBudget;
+
+  private HedgeConfig(Builder builder) {
+    this.delay = builder.delay;
+    this.delayQuantile = builder.delayQuantile;
+    this.minDelay = builder.minDelay;
+    this.minSamples = builder.minSamples;
+    this.estimationPeriod = builder.estimationPeriod;
+    this.maxHedges = builder.maxHedges;
+    this.budgetRatio = builder.budgetRatio;
+    this.maxBudget = builder.maxBudget;
+  }
+
+  public static Builder custom() {
+    return new Builder();
+  }
+
+  public static HedgeConfig ofDefaults() {
+    return custom().build();
+  }
+
+  /**
+   * The fixed hedge delay, or the delay used until enough samples were collected for the quantile estimate.
+   */
+  public Duration getDelay() {
+    return delay;
+  }
+
+  /**
+   * The latency quantile used as the hedge delay, {@code 0} when the delay is fixed.
+   */
+  public double getDelayQuantile() {
+    return delayQuantile;
+  }
+
+  public Duration getMinDelay() {
+    return minDelay;
+  }
+
+  public int getMinSamples() {
+    return minSamples;
+  }
+
+  public Duration getEstimationPeriod() {
+    return estimationPeriod;
+  }
+
+  public int getMaxHedges() {
+    return maxHedges;
+  }
+
+  /**
+   * The maximum number of hedges, as a fraction of the calls.
+   */
+  public double getBudgetRatio() {
+    return budgetRatio;
+  }
+
+  /**
+   * The maximum number of hedges that can be sent in a burst.
+   */
+  public int getMaxBudget() {
+    return maxBudget;
+  }
+
+  public static class Builder {
+    private Duration delay = Duration.ofMillis(100);
+    private double delayQuantile;
+    private Duration minDelay = Duration.ofMillis(1);
+    private int minSamples = 100;
+    private Duration estimationPeriod = Duration.ofSeconds(10);
+    private int maxHedges = 1;
+    private double budgetRatio = 0.1;
+    private int maxBudget = 10;
+
+    private Builder() {
+    }
+
+    public Builder delay(Duration delay) {
+      if (delay.isNegative() || delay.isZero()) {
+        throw new IllegalArgumentException("delay must be positive");
+      }
+      this.delay = delay;
+      return this;
+    }
+
+    /**
+     * Derives the hedge delay from the given latency quantile of the first attempts, e.g. {@code 0.95}.
+     * The estimate is refreshed every {@code estimationPeriod} once {@code minSamples} were recorded.
+     */
+    public Builder delayQuantile(double delayQuantile) {
+      if (delayQuantile <= 0 || delayQuantile >= 1) {
+        throw new IllegalArgumentException("delayQuantile must be between 0 and 1");
+      }
+      this.delayQuantile = delayQuantile;
+      return this;
+    }
+
+    public Builder minDelay(Duration minDelay) {
+      this.minDelay = minDelay;
+      return this;
+    }
+
+    public Builder minSamples(int minSamples) {
+      this.minSamples = minSamples;
+      return this;
+    }
+
+    public Builder estimationPeriod(Duration estimationPeriod) {
+      this.estimationPeriod = estimationPeriod;
+      return this;
+    }
+
+    public Builder maxHedges(int maxHedges) {
+      if (maxHedges < 0) {
+        throw new IllegalArgumentException("maxHedges must not be negative");
+      }
+      this.maxHedges = maxHedges;
+      return this;
+    }
+
+    public Builder budgetRatio(double budgetRatio) {
+      if (budgetRatio < 0 || budgetRatio > 1) {
+        throw new IllegalArgumentException("budgetRatio must be between 0 and 1");
+      }
+      this.budgetRatio = budgetRatio;
+      return this;
+    }
+
+    public Builder maxBudget(int maxBudget) {
+      if (maxBudget < 1) {
+        throw new IllegalArgumentException("maxBudget must be at least 1");
+      }
+      this.maxBudget = maxBudget;
+      return this;
+    }
+
+    public HedgeConfig build() {
+      return new HedgeConfig(this);
+    }
+  }
+}
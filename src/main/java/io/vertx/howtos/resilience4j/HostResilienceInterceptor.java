@@ -0,0 +1,337 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.impl.HttpContext;
+import io.vertx.ext.web.client.impl.WebClientInternal;
+import io.vertx.ext.web.handler.HttpException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link WebClient} interceptor applying a circuit breaker, a bulkhead and a time limiter to every request, with
+ * one instance of each policy per destination host and port, named {@code host:port}. A slow or failing host then
+ * trips its own policies without taking the permits of the others.
+ * <p>
+ * The policies of a destination come from the registries the interceptor is built with. They are looked up once per
+ * event loop and cached there, so the request path only probes a map confined to the calling thread. Responses with
+ * a 5xx status are failures for the circuit breaker. Requests that are not permitted fail with the
+ * {@link CallNotPermittedException} or {@link BulkheadFullException} of the rejecting policy.
+ */
+public class HostResilienceInterceptor implements Handler<HttpContext<?>> {
+  private static final String CALL_KEY = HostResilienceInterceptor.class.getName() + ".call";
+  // the caches of every interceptor, by interceptor, with weak keys so that the interceptors dropped by their owner do
+  // not leave a cache behind on every thread
+  private static final FastThreadLocal<Map<HostResilienceInterceptor, LocalCache>> LOCAL_CACHES = new FastThreadLocal<>() {
+    @Override
+    protected Map<HostResilienceInterceptor, LocalCache> initialValue() {
+      return new WeakHashMap<>();
+    }
+  };
+
+  private final CircuitBreakerRegistry circuitBreakers;
+  private final BulkheadRegistry bulkheads;
+  private final TimeLimiterRegistry timeLimiters;
+  private final TimeoutScheduler scheduler;
+  private final Map<HostKey, HostPolicies> policies = new ConcurrentHashMap<>();
+
+  private HostResilienceInterceptor(Builder builder) {
+    this.circuitBreakers = builder.circuitBreakers;
+    this.bulkheads = builder.bulkheads;
+    this.timeLimiters = builder.timeLimiters;
+    this.scheduler = builder.scheduler;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Adds this interceptor to {@code client} and returns it.
+   */
+  public WebClient attachTo(WebClient client) {
+    ((WebClientInternal) client).addInterceptor(this);
+    return client;
+  }
+
+  /**
+   * Returns the policies of {@code host:port}, creating them in the registries on first use.
+   */
+  public HostPolicies getPolicies(String host, int port) {
+    Map<HostResilienceInterceptor, LocalCache> caches = LOCAL_CACHES.get();
+    LocalCache cache = caches.get(this);
+    if (cache == null) {
+      cache = new LocalCache();
+      caches.put(this, cache);
+    }
+    cache.probe.set(host, port);
+    HostPolicies hostPolicies = cache.policies.get(cache.probe);
+    if (hostPolicies == null) {
+      hostPolicies = policies.computeIfAbsent(new HostKey(host, port), this::createPolicies);
+      cache.policies.put(hostPolicies.key, hostPolicies);
+    }
+    return hostPolicies;
+  }
+
+  private HostPolicies createPolicies(HostKey key) {
+    String name = key.host + ":" + key.port;
+    return new HostPolicies(key,
+      circuitBreakers != null ? circuitBreakers.circuitBreaker(name) : null,
+      bulkheads != null ? bulkheads.bulkhead(name) : null,
+      timeLimiters != null ? timeLimiters.timeLimiter(name) : null);
+  }
+
+  @Override
+  public void handle(HttpContext<?> ctx) {
+    switch (ctx.phase()) {
+      case CREATE_REQUEST:
+        onCreateRequest(ctx);
+        break;
+      case DISPATCH_RESPONSE:
+        Call call = ctx.get(CALL_KEY);
+        if (call != null) {
+          int status = ctx.response().statusCode();
+          call.complete(status >= 500 ? new HttpException(status) : null);
+        }
+        ctx.next();
+        break;
+      case FAILURE:
+        call = ctx.get(CALL_KEY);
+        if (call != null) {
+          call.complete(ctx.failure());
+        }
+        ctx.next();
+        break;
+      default:
+        ctx.next();
+    }
+  }
+
+  private void onCreateRequest(HttpContext<?> ctx) {
+    Call previous = ctx.get(CALL_KEY);
+    if (previous != null) {
+      // a redirect response was received from the previous destination
+      previous.complete(null);
+      ctx.set(CALL_KEY, null);
+    }
+
+    RequestOptions options = ctx.requestOptions();
+    String host = options.getHost() != null ? options.getHost() : RequestOptions.DEFAULT_HOST;
+    int port = options.getPort() != null ? options.getPort() : Boolean.TRUE.equals(options.isSsl()) ? 443 : 80;
+    HostPolicies hostPolicies = getPolicies(host, port);
+
+    CircuitBreaker circuitBreaker = hostPolicies.circuitBreaker;
+    if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+      hostPolicies.circuitBreakerRecorder.recordRejected();
+      ctx.fail(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+      return;
+    }
+    Bulkhead bulkhead = hostPolicies.bulkhead;
+    if (bulkhead != null && !bulkhead.tryAcquirePermission()) {
+      if (circuitBreaker != null) {
+        circuitBreaker.releasePermission();
+      }
+      hostPolicies.bulkheadRecorder.recordRejected();
+      ctx.fail(BulkheadFullException.createBulkheadFullException(bulkhead));
+      return;
+    }
+
+    Call call = new Call(hostPolicies, ctx);
+    ctx.set(CALL_KEY, call);
+    if (hostPolicies.timeLimiter != null) {
+      scheduler.schedule(ContextInternal.current(), call, hostPolicies.timeLimiter.getTimeLimiterConfig().getTimeoutDuration().toMillis());
+    }
+    ctx.next();
+  }
+
+  /**
+   * The policies guarding the requests sent to one destination; a policy is {@code null} when the interceptor was
+   * built without its registry.
+   */
+  public static final class HostPolicies {
+    private final HostKey key;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final TimeLimiter timeLimiter;
+    private final ResilienceMetrics.Recorder circuitBreakerRecorder;
+    private final ResilienceMetrics.Recorder bulkheadRecorder;
+    private final ResilienceMetrics.Recorder timeLimiterRecorder;
+
+    private HostPolicies(HostKey key, CircuitBreaker circuitBreaker, Bulkhead bulkhead, TimeLimiter timeLimiter) {
+      ResilienceMetrics metrics = ResilienceMetrics.getDefault();
+      this.key = key;
+      this.circuitBreaker = circuitBreaker;
+      this.bulkhead = bulkhead;
+      this.timeLimiter = timeLimiter;
+      this.circuitBreakerRecorder = circuitBreaker != null ? metrics.recorder(ResilienceMetrics.Policy.CIRCUIT_BREAKER, circuitBreaker.getName()) : null;
+      this.bulkheadRecorder = bulkhead != null ? metrics.recorder(ResilienceMetrics.Policy.BULKHEAD, bulkhead.getName()) : null;
+      this.timeLimiterRecorder = timeLimiter != null ? metrics.recorder(ResilienceMetrics.Policy.TIME_LIMITER, timeLimiter.getName()) : null;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+      return circuitBreaker;
+    }
+
+    public Bulkhead getBulkhead() {
+      return bulkhead;
+    }
+
+    public TimeLimiter getTimeLimiter() {
+      return timeLimiter;
+    }
+  }
+
+  private static final class Call extends TimeoutScheduler.Timeout {
+    private final HostPolicies policies;
+    private final HttpContext<?> ctx;
+    private final long start = System.nanoTime();
+    private boolean completed;
+
+    Call(HostPolicies policies, HttpContext<?> ctx) {
+      this.policies = policies;
+      this.ctx = ctx;
+    }
+
+    @Override
+    protected void onTimeout() {
+      // only runs when the call did not cancel the timeout first
+      completed = true;
+      long duration = System.nanoTime() - start;
+      TimeoutException exception = TimeLimiter.createdTimeoutExceptionWithName(policies.timeLimiter.getName(), null);
+      policies.timeLimiterRecorder.record(ResilienceMetrics.Outcome.TIMEOUT, duration);
+      policies.timeLimiter.onError(exception);
+      release(duration, exception);
+
+      HttpClientRequest request = ctx.clientRequest();
+      ctx.fail(exception);
+      if (request != null) {
+        request.reset(0, exception);
+      }
+    }
+
+    /**
+     * Records the outcome of the call, {@code failure} being {@code null} for a successful one.
+     */
+    void complete(Throwable failure) {
+      if (completed || policies.timeLimiter != null && !cancel()) {
+        return;
+      }
+      completed = true;
+      long duration = System.nanoTime() - start;
+      if (policies.timeLimiter != null) {
+        policies.timeLimiterRecorder.record(failure != null ? ResilienceMetrics.Outcome.FAILURE : ResilienceMetrics.Outcome.SUCCESS, duration);
+        if (failure != null) {
+          policies.timeLimiter.onError(failure);
+        } else {
+          policies.timeLimiter.onSuccess();
+        }
+      }
+      release(duration, failure);
+    }
+
+    private void release(long duration, Throwable failure) {
+      ResilienceMetrics.Outcome outcome = failure != null ? ResilienceMetrics.Outcome.FAILURE : ResilienceMetrics.Outcome.SUCCESS;
+      if (policies.bulkhead != null) {
+        policies.bulkhead.onComplete();
+        policies.bulkheadRecorder.record(outcome, duration);
+      }
+      if (policies.circuitBreaker != null) {
+        if (failure != null) {
+          policies.circuitBreaker.onError(duration, TimeUnit.NANOSECONDS, failure);
+        } else {
+          policies.circuitBreaker.onSuccess(duration, TimeUnit.NANOSECONDS);
+        }
+        policies.circuitBreakerRecorder.record(outcome, duration);
+      }
+    }
+  }
+
+  private static final class LocalCache {
+    // mutable key used to look up the cache without allocating
+    private final HostKey probe = new HostKey(null, 0);
+    private final Map<HostKey, HostPolicies> policies = new HashMap<>();
+  }
+
+  private static final class HostKey {
+    private String host;
+    private int port;
+
+    HostKey(String host, int port) {
+      this.host = host;
+      this.port = port;
+    }
+
+    void set(String host, int port) {
+      this.host = host;
+      this.port = port;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof HostKey)) {
+        return false;
+      }
+      HostKey that = (HostKey) o;
+      return port == that.port && Objects.equals(host, that.host);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Objects.hashCode(host) + port;
+    }
+  }
+
+  /**
+   * Every registry is optional; the time limiters need a {@link TimeoutScheduler} to schedule their timeouts.
+   */
+  public static final class Builder {
+    private CircuitBreakerRegistry circuitBreakers;
+    private BulkheadRegistry bulkheads;
+    private TimeLimiterRegistry timeLimiters;
+    private TimeoutScheduler scheduler;
+
+    private Builder() {
+    }
+
+    public Builder withCircuitBreakers(CircuitBreakerRegistry circuitBreakers) {
+      this.circuitBreakers = circuitBreakers;
+      return this;
+    }
+
+    public Builder withBulkheads(BulkheadRegistry bulkheads) {
+      this.bulkheads = bulkheads;
+      return this;
+    }
+
+    public Builder withTimeLimiters(TimeLimiterRegistry timeLimiters, TimeoutScheduler scheduler) {
+      this.timeLimiters = Objects.requireNonNull(timeLimiters);
+      this.scheduler = Objects.requireNonNull(scheduler);
+      return this;
+    }
+
+    public HostResilienceInterceptor build() {
+      return new HostResilienceInterceptor(this);
+    }
+  }
+}
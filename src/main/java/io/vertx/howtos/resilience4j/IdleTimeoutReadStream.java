@@ -0,0 +1,205 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.streams.ReadStream;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link ReadStream} of buffers that fails when its source stalls: when the first chunk does not arrive within the
+ * time-to-first-byte timeout after the stream is consumed, or when no chunk arrives within the idle timeout after the
+ * previous one. A time limiter only sees whether a whole future completes in time, while a response whose body stops
+ * halfway would otherwise hang until the connection is closed.
+ * <p>
+ * On timeout, the source is paused and detached, and the exception handler gets a {@link TimeoutException}, which
+ * fails a pipe; resetting the underlying request, if any, is up to the caller. The time spent paused by the consumer,
+ * e.g. by a pipe whose destination is full, is not counted as idle.
+ * <p>
+ * Every chunk only updates a timestamp: the timeout is scheduled on the {@link TimeoutScheduler} of the event loop once
+ * per idle period, and scheduled again for the remaining time when chunks arrived meanwhile. The stream is meant to be
+ * consumed on the event loop of its source.
+ */
+public class IdleTimeoutReadStream implements ReadStream<Buffer> {
+  private final TimeoutScheduler scheduler;
+  private final TimeLimiter timeLimiter;
+  private final ResilienceMetrics.Recorder recorder;
+  private final ReadStream<Buffer> source;
+  private final long firstByteTimeoutNanos;
+  private final long idleTimeoutNanos;
+  private final long start = System.nanoTime();
+
+  private Handler<Buffer> handler;
+  private Handler<Void> endHandler;
+  private Handler<Throwable> exceptionHandler;
+  private Watchdog watchdog;
+  private long lastActivity;
+  private boolean received;
+  private boolean paused;
+  private boolean done;
+
+  private IdleTimeoutReadStream(TimeoutScheduler scheduler, TimeLimiter timeLimiter, ReadStream<Buffer> source,
+                                Duration firstByteTimeout, Duration idleTimeout) {
+    this.scheduler = scheduler;
+    this.timeLimiter = timeLimiter;
+    this.recorder = timeLimiter != null
+      ? ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.TIME_LIMITER, timeLimiter.getName())
+      : null;
+    this.source = source;
+    this.firstByteTimeoutNanos = firstByteTimeout.toNanos();
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+  }
+
+  public static IdleTimeoutReadStream create(TimeoutScheduler scheduler, ReadStream<Buffer> source, Duration firstByteTimeout,
+                                             Duration idleTimeout) {
+    return new IdleTimeoutReadStream(scheduler, null, source, firstByteTimeout, idleTimeout);
+  }
+
+  /**
+   * Same as {@link #create(TimeoutScheduler, ReadStream, Duration, Duration)}, reporting the outcome of the stream to
+   * {@code timeLimiter}, whose timeout duration applies to the first chunk and between chunks.
+   */
+  public static IdleTimeoutReadStream create(TimeoutScheduler scheduler, TimeLimiter timeLimiter, ReadStream<Buffer> source) {
+    Duration timeout = timeLimiter.getTimeLimiterConfig().getTimeoutDuration();
+    return new IdleTimeoutReadStream(scheduler, timeLimiter, source, timeout, timeout);
+  }
+
+  @Override
+  public IdleTimeoutReadStream exceptionHandler(Handler<Throwable> handler) {
+    exceptionHandler = handler;
+    source.exceptionHandler(handler != null ? this::onException : null);
+    return this;
+  }
+
+  @Override
+  public IdleTimeoutReadStream handler(Handler<Buffer> handler) {
+    this.handler = handler;
+    source.handler(handler != null ? this::onChunk : null);
+    if (handler != null && watchdog == null && !done) {
+      // the time to first byte runs from the moment the stream is consumed
+      lastActivity = System.nanoTime();
+      arm(firstByteTimeoutNanos);
+    }
+    return this;
+  }
+
+  @Override
+  public IdleTimeoutReadStream pause() {
+    paused = true;
+    source.pause();
+    return this;
+  }
+
+  @Override
+  public IdleTimeoutReadStream resume() {
+    return fetch(Long.MAX_VALUE);
+  }
+
+  @Override
+  public IdleTimeoutReadStream fetch(long amount) {
+    if (paused) {
+      paused = false;
+      lastActivity = System.nanoTime();
+      if (watchdog == null && handler != null && !done) {
+        arm(received ? idleTimeoutNanos : firstByteTimeoutNanos);
+      }
+    }
+    source.fetch(amount);
+    return this;
+  }
+
+  @Override
+  public IdleTimeoutReadStream endHandler(Handler<Void> endHandler) {
+    this.endHandler = endHandler;
+    source.endHandler(endHandler != null ? this::onEnd : null);
+    return this;
+  }
+
+  private void onChunk(Buffer chunk) {
+    if (done) {
+      return;
+    }
+    received = true;
+    lastActivity = System.nanoTime();
+    handler.handle(chunk);
+  }
+
+  private void onEnd(Void ignored) {
+    if (done) {
+      return;
+    }
+    finish();
+    if (timeLimiter != null) {
+      recorder.record(ResilienceMetrics.Outcome.SUCCESS, System.nanoTime() - start);
+      timeLimiter.onSuccess();
+    }
+    endHandler.handle(null);
+  }
+
+  private void onException(Throwable failure) {
+    if (done) {
+      return;
+    }
+    finish();
+    if (timeLimiter != null) {
+      recorder.record(ResilienceMetrics.Outcome.FAILURE, System.nanoTime() - start);
+      timeLimiter.onError(failure);
+    }
+    exceptionHandler.handle(failure);
+  }
+
+  private void finish() {
+    done = true;
+    if (watchdog != null) {
+      watchdog.cancel();
+      watchdog = null;
+    }
+  }
+
+  private void arm(long delayNanos) {
+    watchdog = new Watchdog();
+    scheduler.schedule(ContextInternal.current(), watchdog, Math.max(1, TimeUnit.NANOSECONDS.toMillis(delayNanos)));
+  }
+
+  private void onWatchdog() {
+    watchdog = null;
+    if (done || paused) {
+      // a paused stream is armed again once resumed
+      return;
+    }
+    long timeoutNanos = received ? idleTimeoutNanos : firstByteTimeoutNanos;
+    long idle = System.nanoTime() - lastActivity;
+    if (idle < timeoutNanos) {
+      arm(timeoutNanos - idle);
+      return;
+    }
+
+    done = true;
+    source.pause();
+    source.handler(null);
+    TimeoutException exception;
+    if (timeLimiter != null) {
+      exception = TimeLimiter.createdTimeoutExceptionWithName(timeLimiter.getName(), null);
+      recorder.record(ResilienceMetrics.Outcome.TIMEOUT, System.nanoTime() - start);
+      timeLimiter.onError(exception);
+    } else {
+      exception = new TimeoutException((received ? "No data received for " : "No first byte received within ")
+        + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+    }
+    Handler<Throwable> exceptionHandler = this.exceptionHandler;
+    if (exceptionHandler != null) {
+      exceptionHandler.handle(exception);
+    }
+  }
+
+  private final class Watchdog extends TimeoutScheduler.Timeout {
+    @Override
+    protected void onTimeout() {
+      onWatchdog();
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package io.vertx.howtos.resilience4j;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency distribution with bounded relative error, in the spirit of DDSketch.
+ * <p>
+ * Values are counted in logarithmically sized buckets, so any quantile is reported within
+ * {@code relativeAccuracy} of the true value. Recording is a single atomic increment and does not allocate.
+ * Values below {@code minValue} are counted in the lowest bucket, values above {@code maxValue} in the highest.
+ */
+public class LatencySketch {
+  private static final long DEFAULT_MIN_VALUE = 1_000; // 1 microsecond
+  private static final long DEFAULT_MAX_VALUE = 3_600_000_000_000L; // 1 hour
+  private static final double DEFAULT_RELATIVE_ACCURACY = 0.02;
+
+  private final double gamma;
+  private final double logGamma;
+  private final long minValue;
+  private final int offset;
+  private final AtomicLongArray counts;
+
+  public LatencySketch() {
+    this(DEFAULT_MIN_VALUE, DEFAULT_MAX_VALUE, DEFAULT_RELATIVE_ACCURACY);
+  }
+
+  public LatencySketch(long minValue, long maxValue, double relativeAccuracy) {
+    if (minValue < 1 || maxValue <= minValue) {
+      throw new IllegalArgumentException("minValue must be positive and lower than maxValue");
+    }
+    if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+      throw new IllegalArgumentException("relativeAccuracy must be between 0 and 1");
+    }
+    this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+    this.logGamma = Math.log(gamma);
+    this.minValue = minValue;
+    this.offset = rawIndex(minValue);
+    this.counts = new AtomicLongArray(rawIndex(maxValue) - offset + 1);
+  }
+
+  private int rawIndex(long value) {
+    return (int) Math.ceil(Math.log(value) / logGamma);
+  }
+
+  private int index(long value) {
+    if (value <= minValue) {
+      return 0;
+    }
+    return Math.min(counts.length() - 1, rawIndex(value) - offset);
+  }
+
+  public void record(long value) {
+    counts.getAndIncrement(index(value));
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the value at the given quantile, {@code 0} when nothing was recorded.
+   */
+  public long getValueAtQuantile(double quantile) {
+    return valueAtQuantile(quantile, snapshot());
+  }
+
+  /**
+   * Copies the current bucket counts into {@code target}, which must come from
+   * {@link #snapshot()} of a sketch with the same parameters, and returns it.
+   */
+  public long[] snapshotInto(long[] target) {
+    for (int i = 0; i < target.length; i++) {
+      target[i] = counts.get(i);
+    }
+    return target;
+  }
+
+  public long[] snapshot() {
+    return snapshotInto(new long[counts.length()]);
+  }
+
+  /**
+   * Returns the value at the given quantile of a snapshot taken from this sketch, or from sketches with the same parameters.
+   */
+  public long valueAtQuantile(double quantile, long[] snapshot) {
+    long count = 0;
+    for (long bucket : snapshot) {
+      count += bucket;
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(quantile * count);
+    long seen = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      seen += snapshot[i];
+      if (seen >= Math.max(1, rank)) {
+        return bucketValue(i);
+      }
+    }
+    return bucketValue(snapshot.length - 1);
+  }
+
+  private long bucketValue(int index) {
+    if (index == 0) {
+      return minValue;
+    }
+    // the midpoint of the bucket in terms of relative error
+    return (long) (2 * Math.pow(gamma, index + offset) / (gamma + 1));
+  }
+
+  /**
+   * Clears the recorded values. Values recorded concurrently may or may not be kept.
+   */
+  public void reset() {
+    for (int i = 0; i < counts.length(); i++) {
+      counts.set(i, 0);
+    }
+  }
+}
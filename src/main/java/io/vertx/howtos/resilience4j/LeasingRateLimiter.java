@@ -0,0 +1,116 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.VertxInternal;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A {@link RateLimiter} whose permits are leased in batches by each event loop.
+ * <p>
+ * A call made on an event loop takes its permits from the lease of that event loop, without any atomic operation.
+ * When the lease is exhausted, the next batch is reserved from the shared limiter. A lease is only valid for the
+ * refresh period it was reserved in, so permits left over at the end of the period are dropped; the shared limiter
+ * refills its own permits on the next period anyway. Calls made outside an event loop, and calls needing at least
+ * a batch of permits, reserve them from the shared limiter directly.
+ * <p>
+ * The batch size is chosen so that the permits held in leases across all event loops stay below
+ * {@code tolerance * limitForPeriod}, which bounds how many permits per period may be left unused
+ * or be used one period late.
+ */
+public class LeasingRateLimiter {
+  private static final double DEFAULT_TOLERANCE = 0.05;
+
+  // weak keys, so the limiters dropped by their owner, e.g. evicted from a BoundedRegistry, do not leave a lease
+  // behind on every event loop
+  private static final FastThreadLocal<Map<LeasingRateLimiter, Lease>> LEASES = new FastThreadLocal<>() {
+    @Override
+    protected Map<LeasingRateLimiter, Lease> initialValue() {
+      return new WeakHashMap<>();
+    }
+  };
+
+  private final RateLimiter rateLimiter;
+  private final int batchSize;
+  private final long refreshPeriodNanos;
+
+  private LeasingRateLimiter(RateLimiter rateLimiter, int batchSize) {
+    this.rateLimiter = rateLimiter;
+    this.batchSize = batchSize;
+    this.refreshPeriodNanos = rateLimiter.getRateLimiterConfig().getLimitRefreshPeriod().toNanos();
+  }
+
+  public static LeasingRateLimiter of(Vertx vertx, RateLimiter rateLimiter) {
+    return of(vertx, rateLimiter, DEFAULT_TOLERANCE);
+  }
+
+  /**
+   * @param tolerance the fraction of {@code limitForPeriod} that all leases may hold together
+   */
+  public static LeasingRateLimiter of(Vertx vertx, RateLimiter rateLimiter, double tolerance) {
+    if (tolerance <= 0 || tolerance > 1) {
+      throw new IllegalArgumentException("tolerance must be greater than 0 and at most 1");
+    }
+    int eventLoops = 0;
+    for (EventExecutor ignored : ((VertxInternal) vertx).nettyEventLoopGroup()) {
+      eventLoops++;
+    }
+    RateLimiterConfig config = rateLimiter.getRateLimiterConfig();
+    long batchSize = (long) (config.getLimitForPeriod() * tolerance / Math.max(1, eventLoops));
+    return new LeasingRateLimiter(rateLimiter, (int) Math.max(1, Math.min(batchSize, config.getLimitForPeriod())));
+  }
+
+  public RateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Same contract as {@link RateLimiter#reservePermission(int)}: returns the nanoseconds to wait before
+   * using the permits, or a negative value when they are not permitted.
+   */
+  long reservePermission(ContextInternal ctx, int permits) {
+    if (ctx == null || !ctx.isEventLoopContext() || !ctx.nettyEventLoop().inEventLoop() || permits >= batchSize) {
+      return rateLimiter.reservePermission(permits);
+    }
+
+    Map<LeasingRateLimiter, Lease> leases = LEASES.get();
+    Lease lease = leases.get(this);
+    if (lease == null) {
+      lease = new Lease();
+      leases.put(this, lease);
+    }
+    long now = System.nanoTime();
+    if (lease.permits >= permits && now - lease.expiration < 0) {
+      lease.permits -= permits;
+      return Math.max(0, lease.start - now);
+    }
+
+    long delay = rateLimiter.reservePermission(batchSize);
+    if (delay < 0) {
+      // not enough permits left for a batch, there may still be enough for this call
+      lease.permits = 0;
+      return rateLimiter.reservePermission(permits);
+    }
+    lease.start = now + delay;
+    lease.expiration = lease.start + refreshPeriodNanos;
+    lease.permits = batchSize - permits;
+    return delay;
+  }
+
+  // only accessed by the owning event loop
+  private static final class Lease {
+    private int permits;
+    private long start;
+    private long expiration;
+  }
+}
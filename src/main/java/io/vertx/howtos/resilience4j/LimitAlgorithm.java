@@ -0,0 +1,31 @@
+package io.vertx.howtos.resilience4j;
+
+import java.time.Duration;
+
+/**
+ * Computes a concurrency limit from the round trip time of completed calls.
+ * Implementations are not thread-safe, {@link AdaptiveBulkhead} lets a single completion update them at a time.
+ */
+public interface LimitAlgorithm {
+  int getLimit();
+
+  /**
+   * @param rttNanos the round trip time of the completed call
+   * @param inFlight the number of calls in flight when the call started
+   * @param dropped  whether the call timed out or was otherwise dropped by the downstream
+   * @return the new limit
+   */
+  int update(long rttNanos, int inFlight, boolean dropped);
+
+  static LimitAlgorithm aimd(int initialLimit, int minLimit, int maxLimit) {
+    return new AimdLimit(initialLimit, minLimit, maxLimit, 0.9, Duration.ofSeconds(5));
+  }
+
+  static LimitAlgorithm vegas(int initialLimit, int minLimit, int maxLimit) {
+    return new VegasLimit(initialLimit, minLimit, maxLimit);
+  }
+
+  static LimitAlgorithm gradient2(int initialLimit, int minLimit, int maxLimit) {
+    return new Gradient2Limit(initialLimit, minLimit, maxLimit, 1.5, 0.2, 600);
+  }
+}
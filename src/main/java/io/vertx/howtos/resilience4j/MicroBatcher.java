@@ -0,0 +1,330 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.ContextInternal;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces individual calls into bulk calls: items submitted for the same key are collected until the batch holds
+ * {@code maxBatchSize} items or its first item has waited {@code maxLinger}, then sent in a single bulk call, and the
+ * result at each position of the bulk response completes the future of the matching item.
+ * <p>
+ * The bulk call goes through the configured policies, nested like the {@code Vertx*} adapters:
+ * {@code CircuitBreaker(RateLimiter(Bulkhead(bulk call)))}, so a batch takes a single permit of each. A failed or
+ * rejected bulk call fails every item of the batch. The circuit breaker records the outcome of a batch once, or once
+ * per item when {@linkplain Builder#recordPerItem(boolean) configured}, so that its failure rate and
+ * {@code minimumNumberOfCalls} keep the same meaning as for unbatched calls. A batch dispatched while the breaker is
+ * HALF_OPEN is always recorded once, for the single permit it took, so that a batch cannot use up the whole
+ * {@code permittedNumberOfCallsInHalfOpenState} alone.
+ * <p>
+ * Batches are collected per event loop, in maps only touched by their event loop, so items submitted from different
+ * event loops are never batched together. Items submitted outside an event loop share a synchronized map.
+ */
+public class MicroBatcher<K, I, R> {
+  // the batches of every batcher, by batcher, with weak keys so that the batchers dropped by their owner do not leave a
+  // map behind on every event loop
+  private static final FastThreadLocal<Map<MicroBatcher<?, ?, ?>, Map<?, ?>>> LOCAL_BATCHES = new FastThreadLocal<>() {
+    @Override
+    protected Map<MicroBatcher<?, ?, ?>, Map<?, ?>> initialValue() {
+      return new WeakHashMap<>();
+    }
+  };
+
+  private final Vertx vertx;
+  private final BiFunction<K, List<I>, Future<List<R>>> bulk;
+  private final int maxBatchSize;
+  private final long maxLingerNanos;
+  private final CircuitBreaker circuitBreaker;
+  private final RateLimiter rateLimiter;
+  private final int permits;
+  private final Bulkhead bulkhead;
+  private final boolean recordPerItem;
+
+  // guarded by itself
+  private final Map<K, Batch> sharedBatches = new HashMap<>();
+  private final LongAdder batchCount = new LongAdder();
+  private final LongAdder itemCount = new LongAdder();
+
+  private MicroBatcher(Builder<K, I, R> builder) {
+    this.vertx = Objects.requireNonNull(builder.vertx);
+    this.bulk = Objects.requireNonNull(builder.bulk);
+    this.maxBatchSize = builder.maxBatchSize;
+    this.maxLingerNanos = builder.maxLinger.toNanos();
+    this.circuitBreaker = builder.circuitBreaker;
+    this.rateLimiter = builder.rateLimiter;
+    this.permits = builder.permits;
+    this.bulkhead = builder.bulkhead;
+    this.recordPerItem = builder.recordPerItem;
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize must be at least 1");
+    }
+  }
+
+  /**
+   * {@code bulk} is called with a key and the items of a batch, and must return one result per item, in order.
+   */
+  public static <K, I, R> Builder<K, I, R> builder(Vertx vertx, BiFunction<K, List<I>, Future<List<R>>> bulk) {
+    return new Builder<>(vertx, bulk);
+  }
+
+  /**
+   * Adds {@code item} to the current batch of {@code key} and returns its result.
+   */
+  public Future<R> execute(K key, I item) {
+    ContextInternal ctx = ContextInternal.current();
+    if (ctx != null && ctx.isEventLoopContext() && ctx.nettyEventLoop().inEventLoop()) {
+      Promise<R> promise = ctx.promise();
+      Batch full = add(localBatches(), null, ctx, key, item, promise);
+      if (full != null) {
+        dispatch(full);
+      }
+      return promise.future();
+    }
+
+    Promise<R> promise = ctx != null ? ctx.promise() : Promise.promise();
+    Batch full;
+    synchronized (sharedBatches) {
+      full = add(sharedBatches, sharedBatches, ctx, key, item, promise);
+    }
+    if (full != null) {
+      dispatch(full);
+    }
+    return promise.future();
+  }
+
+  public Supplier<Future<R>> decorateFuture(K key, I item) {
+    return () -> execute(key, item);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<K, Batch> localBatches() {
+    return (Map<K, Batch>) LOCAL_BATCHES.get().computeIfAbsent(this, ignored -> new HashMap<K, Batch>());
+  }
+
+  /**
+   * Returns the batch to dispatch when it is full.
+   */
+  private Batch add(Map<K, Batch> pending, Object lock, ContextInternal ctx, K key, I item, Promise<R> promise) {
+    Batch batch = pending.get(key);
+    if (batch == null) {
+      batch = new Batch(pending, lock, key);
+      pending.put(key, batch);
+      if (maxBatchSize > 1) {
+        CoalescedTimer.schedule(vertx, ctx, maxLingerNanos, batch);
+      }
+    }
+    batch.items.add(item);
+    batch.promises.add(promise);
+    if (batch.items.size() < maxBatchSize) {
+      return null;
+    }
+    pending.remove(key);
+    return batch;
+  }
+
+  private void dispatch(Batch batch) {
+    int size = batch.items.size();
+    batchCount.increment();
+    itemCount.add(size);
+
+    ResilienceMetrics.Recorder recorder = circuitBreaker != null
+      ? ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.CIRCUIT_BREAKER, circuitBreaker.getName())
+      : null;
+    if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+      recorder.recordRejected();
+      batch.fail(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+      return;
+    }
+    long start = circuitBreaker != null ? circuitBreaker.getCurrentTimestamp() : 0;
+    // a half-open breaker counts its trial calls by permit: a batch holds a single one
+    int outcomes = recordPerItem && circuitBreaker != null && circuitBreaker.getState() != CircuitBreaker.State.HALF_OPEN
+      ? size
+      : 1;
+
+    Supplier<Future<List<R>>> call = () -> bulk.apply(batch.key, batch.items);
+    if (bulkhead != null) {
+      call = VertxBulkhead.decorateFuture(bulkhead, call);
+    }
+    if (rateLimiter != null) {
+      call = VertxRateLimiter.decorateFuture(rateLimiter, permits, call, vertx);
+    }
+
+    Future<List<R>> future;
+    try {
+      future = call.get();
+    } catch (Exception e) {
+      future = Future.failedFuture(e);
+    }
+    future.onComplete(result -> {
+      Throwable failure = result.failed() ? result.cause() : null;
+      if (failure == null && (result.result() == null || result.result().size() != size)) {
+        failure = new IllegalStateException("The bulk call returned " + (result.result() == null ? "no" : result.result().size())
+          + " results for " + size + " items");
+      }
+      if (circuitBreaker != null) {
+        record(recorder, start, outcomes, result, failure);
+      }
+      if (failure != null) {
+        batch.fail(failure);
+      } else {
+        batch.complete(result.result());
+      }
+    });
+  }
+
+  private void record(ResilienceMetrics.Recorder recorder, long start, int outcomes, AsyncResult<List<R>> result, Throwable failure) {
+    long duration = circuitBreaker.getCurrentTimestamp() - start;
+    recorder.record(failure != null ? ResilienceMetrics.Outcome.FAILURE : ResilienceMetrics.Outcome.SUCCESS,
+      circuitBreaker.getTimestampUnit().toNanos(duration));
+    for (int i = 0; i < outcomes; i++) {
+      if (failure != null) {
+        circuitBreaker.onError(duration, circuitBreaker.getTimestampUnit(), failure);
+      } else {
+        circuitBreaker.onResult(duration, circuitBreaker.getTimestampUnit(), result.result());
+      }
+    }
+  }
+
+  /**
+   * The number of bulk calls, including the rejected ones.
+   */
+  public long getBatches() {
+    return batchCount.sum();
+  }
+
+  /**
+   * The number of items sent in bulk calls.
+   */
+  public long getItems() {
+    return itemCount.sum();
+  }
+
+  private final class Batch extends CoalescedTimer.Task {
+    private final Map<K, Batch> owner;
+    private final Object lock;
+    private final K key;
+    private final List<I> items = new ArrayList<>();
+    private final List<Promise<R>> promises = new ArrayList<>();
+
+    Batch(Map<K, Batch> owner, Object lock, K key) {
+      this.owner = owner;
+      this.lock = lock;
+      this.key = key;
+    }
+
+    // the linger timer, a no-op once the batch was dispatched for being full
+    @Override
+    public void handle(Void ignored) {
+      boolean removed;
+      if (lock != null) {
+        synchronized (lock) {
+          removed = owner.remove(key, this);
+        }
+      } else {
+        removed = owner.remove(key, this);
+      }
+      if (removed) {
+        dispatch(this);
+      }
+    }
+
+    void complete(List<R> results) {
+      for (int i = 0; i < promises.size(); i++) {
+        promises.get(i).complete(results.get(i));
+      }
+    }
+
+    void fail(Throwable failure) {
+      for (Promise<R> promise : promises) {
+        promise.fail(failure);
+      }
+    }
+  }
+
+  /**
+   * The max batch size defaults to 100 items and the max linger to 10 milliseconds.
+   */
+  public static final class Builder<K, I, R> {
+    private final Vertx vertx;
+    private final BiFunction<K, List<I>, Future<List<R>>> bulk;
+    private int maxBatchSize = 100;
+    private Duration maxLinger = Duration.ofMillis(10);
+    private CircuitBreaker circuitBreaker;
+    private RateLimiter rateLimiter;
+    private int permits;
+    private Bulkhead bulkhead;
+    private boolean recordPerItem;
+
+    private Builder(Vertx vertx, BiFunction<K, List<I>, Future<List<R>>> bulk) {
+      this.vertx = vertx;
+      this.bulk = bulk;
+    }
+
+    public Builder<K, I, R> maxBatchSize(int maxBatchSize) {
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * How long the first item of a batch waits for more items before the batch is sent anyway.
+     */
+    public Builder<K, I, R> maxLinger(Duration maxLinger) {
+      this.maxLinger = maxLinger;
+      return this;
+    }
+
+    public Builder<K, I, R> withCircuitBreaker(CircuitBreaker circuitBreaker) {
+      this.circuitBreaker = circuitBreaker;
+      return this;
+    }
+
+    public Builder<K, I, R> withRateLimiter(RateLimiter rateLimiter) {
+      return withRateLimiter(rateLimiter, 1);
+    }
+
+    /**
+     * Takes {@code permits} for every bulk call, whatever its number of items.
+     */
+    public Builder<K, I, R> withRateLimiter(RateLimiter rateLimiter, int permits) {
+      this.rateLimiter = rateLimiter;
+      this.permits = permits;
+      return this;
+    }
+
+    public Builder<K, I, R> withBulkhead(Bulkhead bulkhead) {
+      this.bulkhead = bulkhead;
+      return this;
+    }
+
+    /**
+     * Records the outcome of a batch in the circuit breaker once per item instead of once per batch, except for the
+     * batches dispatched while the breaker is HALF_OPEN.
+     */
+    public Builder<K, I, R> recordPerItem(boolean recordPerItem) {
+      this.recordPerItem = recordPerItem;
+      return this;
+    }
+
+    public MicroBatcher<K, I, R> build() {
+      return new MicroBatcher<>(this);
+    }
+  }
+}
@@ -0,0 +1,230 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.vertx.core.Vertx;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A {@link CircuitBreaker} that also opens when a tail quantile of the call latencies, the p99 by default, exceeds a
+ * threshold or drifts too far from its usual value.
+ * <p>
+ * resilience4j only judges slowness against a fixed {@code slowCallDurationThreshold}, so a brownout hitting a few
+ * percent of the calls goes unnoticed while the average stays fine. Here the duration of every call is recorded in a
+ * {@link LatencySketch}, a single atomic increment that does not allocate. A periodic task turns the sketch into a
+ * time-based sliding window, computes the quantile over the window once it holds at least
+ * {@code minimumNumberOfCalls} of the breaker, and opens the underlying breaker when either:
+ * <ul>
+ *   <li>the quantile exceeds the {@linkplain Builder#threshold(Duration) threshold}, or</li>
+ *   <li>the quantile exceeds the {@linkplain Builder#maxDrift(double) max drift} times the baseline, an exponentially
+ *   weighted moving average of the quantile learned while the breaker is CLOSED and not tripping.</li>
+ * </ul>
+ * The window is cleared whenever the breaker changes state. In HALF_OPEN, the underlying breaker decides alone from
+ * its permitted calls whether to close again.
+ */
+public class QuantileCircuitBreaker implements AutoCloseable {
+  private final Vertx vertx;
+  private final CircuitBreaker circuitBreaker;
+  private final double quantile;
+  private final long thresholdNanos;
+  private final double maxDrift;
+  private final double baselineWeight;
+  private final LatencySketch latencies = new LatencySketch();
+  private final long timerId;
+
+  // only accessed by the aggregation task
+  private final long[][] window;
+  private final long[] totals;
+  private long[] previous;
+  private long[] current;
+  private int windowIndex;
+  private CircuitBreaker.State lastState = CircuitBreaker.State.CLOSED;
+
+  private volatile long observedNanos = -1;
+  private volatile long baselineNanos = -1;
+
+  private QuantileCircuitBreaker(Builder builder) {
+    this.vertx = Objects.requireNonNull(builder.vertx);
+    this.circuitBreaker = Objects.requireNonNull(builder.circuitBreaker);
+    this.quantile = builder.quantile;
+    this.thresholdNanos = builder.threshold != null ? builder.threshold.toNanos() : 0;
+    this.maxDrift = builder.maxDrift;
+    this.baselineWeight = builder.baselineWeight;
+    if (quantile <= 0 || quantile > 1) {
+      throw new IllegalArgumentException("quantile must be between 0 and 1");
+    }
+    if (thresholdNanos <= 0 && maxDrift <= 0) {
+      throw new IllegalArgumentException("a threshold or a max drift is required");
+    }
+    if (maxDrift > 0 && maxDrift <= 1) {
+      throw new IllegalArgumentException("maxDrift must be greater than 1");
+    }
+    if (baselineWeight <= 0 || baselineWeight > 1) {
+      throw new IllegalArgumentException("baselineWeight must be between 0 and 1");
+    }
+    if (builder.windowBuckets < 1) {
+      throw new IllegalArgumentException("windowBuckets must be at least 1");
+    }
+    this.previous = latencies.snapshot();
+    this.current = latencies.snapshot();
+    this.totals = latencies.snapshot();
+    this.window = new long[builder.windowBuckets][];
+    for (int i = 0; i < window.length; i++) {
+      window[i] = latencies.snapshot();
+    }
+    this.timerId = vertx.setPeriodic(builder.aggregationPeriod.toMillis(), ignored -> aggregate());
+  }
+
+  public static Builder builder(Vertx vertx, CircuitBreaker circuitBreaker) {
+    return new Builder(vertx, circuitBreaker);
+  }
+
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * The quantile of the latencies over the current window, in nanoseconds, or {@code -1} when the window holds fewer
+   * than {@code minimumNumberOfCalls}.
+   */
+  public long getObservedNanos() {
+    return observedNanos;
+  }
+
+  /**
+   * The learned usual value of the quantile, in nanoseconds, or {@code -1} until the window first held
+   * {@code minimumNumberOfCalls}.
+   */
+  public long getBaselineNanos() {
+    return baselineNanos;
+  }
+
+  @Override
+  public void close() {
+    vertx.cancelTimer(timerId);
+  }
+
+  void record(long durationNanos) {
+    latencies.record(durationNanos);
+  }
+
+  private void aggregate() {
+    // the sketch is never reset, so no call recorded concurrently is lost: each bucket holds the difference
+    // between two snapshots
+    latencies.snapshotInto(current);
+    windowIndex = (windowIndex + 1) % window.length;
+    long[] bucket = window[windowIndex];
+    for (int i = 0; i < bucket.length; i++) {
+      bucket[i] = current[i] - previous[i];
+    }
+    long[] swap = previous;
+    previous = current;
+    current = swap;
+
+    CircuitBreaker.State state = circuitBreaker.getState();
+    if (state != lastState) {
+      lastState = state;
+      clearWindow();
+    }
+
+    long count = 0;
+    for (int i = 0; i < totals.length; i++) {
+      long total = 0;
+      for (long[] other : window) {
+        total += other[i];
+      }
+      totals[i] = total;
+      count += total;
+    }
+    if (count < circuitBreaker.getCircuitBreakerConfig().getMinimumNumberOfCalls()) {
+      observedNanos = -1;
+      return;
+    }
+    long observed = latencies.valueAtQuantile(quantile, totals);
+    observedNanos = observed;
+    if (state != CircuitBreaker.State.CLOSED) {
+      return;
+    }
+
+    long baseline = baselineNanos;
+    if ((thresholdNanos > 0 && observed > thresholdNanos) || (maxDrift > 0 && baseline > 0 && observed > baseline * maxDrift)) {
+      circuitBreaker.transitionToOpenState();
+      lastState = CircuitBreaker.State.OPEN;
+      clearWindow();
+      observedNanos = -1;
+    } else {
+      baselineNanos = baseline < 0 ? observed : Math.round(baseline + baselineWeight * (observed - baseline));
+    }
+  }
+
+  private void clearWindow() {
+    for (long[] bucket : window) {
+      Arrays.fill(bucket, 0);
+    }
+  }
+
+  /**
+   * The quantile defaults to 0.99, the baseline weight to 0.02 and the window to 10 buckets of 100 milliseconds. A
+   * threshold, a max drift or both must be set.
+   */
+  public static final class Builder {
+    private final Vertx vertx;
+    private final CircuitBreaker circuitBreaker;
+    private double quantile = 0.99;
+    private Duration threshold;
+    private double maxDrift;
+    private double baselineWeight = 0.02;
+    private Duration aggregationPeriod = Duration.ofMillis(100);
+    private int windowBuckets = 10;
+
+    private Builder(Vertx vertx, CircuitBreaker circuitBreaker) {
+      this.vertx = vertx;
+      this.circuitBreaker = circuitBreaker;
+    }
+
+    public Builder quantile(double quantile) {
+      this.quantile = quantile;
+      return this;
+    }
+
+    /**
+     * Opens the breaker when the quantile exceeds {@code threshold}.
+     */
+    public Builder threshold(Duration threshold) {
+      this.threshold = threshold;
+      return this;
+    }
+
+    /**
+     * Opens the breaker when the quantile exceeds {@code maxDrift} times its baseline.
+     */
+    public Builder maxDrift(double maxDrift) {
+      this.maxDrift = maxDrift;
+      return this;
+    }
+
+    /**
+     * The weight of each new window in the baseline, updated every aggregation period: a lower weight learns slower,
+     * and absorbs a slowly growing latency slower too.
+     */
+    public Builder baselineWeight(double baselineWeight) {
+      this.baselineWeight = baselineWeight;
+      return this;
+    }
+
+    /**
+     * The sliding window covers {@code aggregationPeriod * windowBuckets}.
+     */
+    public Builder window(Duration aggregationPeriod, int windowBuckets) {
+      this.aggregationPeriod = aggregationPeriod;
+      this.windowBuckets = windowBuckets;
+      return this;
+    }
+
+    public QuantileCircuitBreaker build() {
+      return new QuantileCircuitBreaker(this);
+    }
+  }
+}
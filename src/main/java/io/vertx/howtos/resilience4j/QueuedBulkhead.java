@@ -0,0 +1,195 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.ContextInternal;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Bulkhead} that parks calls over the limit in a bounded FIFO queue instead of rejecting them.
+ * <p>
+ * A parked call is resumed on its own context when a running call completes, or fails with
+ * {@link BulkheadFullException} once it has waited for {@code maxWaitDuration}. All waiters share
+ * a single timer armed for the oldest one.
+ * <p>
+ * The semaphore bulkhead would block the calling thread for its {@code maxWaitDuration}, so the bulkhead must be
+ * configured to never wait, and the wait is given to the queue instead. A call only takes a free permit right away
+ * when no call is queued, so that queued calls keep their order even when a permit is released by another user of
+ * the bulkhead.
+ * <p>
+ * The number of queued calls is mirrored in a volatile field, so that while nothing is queued a call takes its permit,
+ * and a completing call releases it, without taking the queue lock. A call racing with the first enqueue may then take
+ * a permit ahead of the queued call, which is resumed by the next release.
+ */
+public class QueuedBulkhead {
+  private final Vertx vertx;
+  private final Bulkhead bulkhead;
+  private final int maxQueueSize;
+  private final long maxWaitNanos;
+  private final ResilienceMetrics.Recorder recorder;
+  private final ArrayDeque<Waiter<?>> queue = new ArrayDeque<>();
+  // the size of the queue, only written while holding the queue lock
+  private volatile int waiters;
+  private long timerId = -1;
+
+  private QueuedBulkhead(Vertx vertx, Bulkhead bulkhead, int maxQueueSize, Duration maxWaitDuration) {
+    this.vertx = vertx;
+    this.bulkhead = bulkhead;
+    this.maxQueueSize = maxQueueSize;
+    this.maxWaitNanos = maxWaitDuration.toNanos();
+    this.recorder = ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.BULKHEAD, bulkhead.getName());
+  }
+
+  /**
+   * {@code bulkhead} must have a zero {@code maxWaitDuration}, queued calls wait up to {@code maxWaitDuration} instead.
+   */
+  public static QueuedBulkhead of(Vertx vertx, Bulkhead bulkhead, int maxQueueSize, Duration maxWaitDuration) {
+    if (maxQueueSize < 0) {
+      throw new IllegalArgumentException("maxQueueSize must not be negative");
+    }
+    if (maxWaitDuration.isNegative()) {
+      throw new IllegalArgumentException("maxWaitDuration must not be negative");
+    }
+    if (!bulkhead.getBulkheadConfig().getMaxWaitDuration().isZero()) {
+      throw new IllegalArgumentException("the bulkhead would block the event loop, its maxWaitDuration must be zero");
+    }
+    return new QueuedBulkhead(vertx, bulkhead, maxQueueSize, maxWaitDuration);
+  }
+
+  public Bulkhead getBulkhead() {
+    return bulkhead;
+  }
+
+  public int getQueueSize() {
+    return waiters;
+  }
+
+  <T> void execute(ContextInternal ctx, Promise<T> promise, Supplier<Future<T>> supplier) {
+    if (waiters == 0 && bulkhead.tryAcquirePermission()) {
+      invokePermitted(promise, supplier, 0);
+      return;
+    }
+
+    if (maxQueueSize == 0 || maxWaitNanos <= 0) {
+      recorder.recordRejected();
+      promise.fail(BulkheadFullException.createBulkheadFullException(bulkhead));
+      return;
+    }
+    synchronized (queue) {
+      if (queue.size() >= maxQueueSize) {
+        recorder.recordRejected();
+        promise.fail(BulkheadFullException.createBulkheadFullException(bulkhead));
+        return;
+      }
+      queue.add(new Waiter<>(this, ctx, promise, supplier, System.nanoTime() + maxWaitNanos));
+      waiters = queue.size();
+      if (timerId == -1) {
+        scheduleExpiration(maxWaitNanos);
+      }
+    }
+    // a permit may be free, released by another user of the bulkhead or between the failed acquisition and the enqueue
+    drain();
+  }
+
+  private <T> void invokePermitted(Promise<T> promise, Supplier<Future<T>> supplier, long waitNanos) {
+    recorder.recordWait(waitNanos);
+    long start = System.nanoTime();
+    try {
+      supplier.get().onComplete(result -> {
+        release();
+        recorder.record(result.failed() ? ResilienceMetrics.Outcome.FAILURE : ResilienceMetrics.Outcome.SUCCESS, System.nanoTime() - start);
+        if (result.failed()) {
+          promise.fail(result.cause());
+        } else {
+          promise.complete(result.result());
+        }
+      });
+    } catch (Exception throwable) {
+      release();
+      recorder.record(ResilienceMetrics.Outcome.FAILURE, System.nanoTime() - start);
+      promise.fail(throwable);
+    }
+  }
+
+  private void release() {
+    bulkhead.onComplete();
+    drain();
+  }
+
+  // an enqueue publishes the count before draining, so either it sees the released permit or the releaser sees the count
+  private void drain() {
+    while (waiters > 0) {
+      Waiter<?> waiter;
+      synchronized (queue) {
+        if (queue.isEmpty() || !bulkhead.tryAcquirePermission()) {
+          return;
+        }
+        waiter = queue.poll();
+        waiters = queue.size();
+      }
+      if (waiter.ctx != null) {
+        waiter.ctx.runOnContext(waiter);
+      } else {
+        waiter.handle(null);
+      }
+    }
+  }
+
+  // must be called while holding the queue lock
+  private void scheduleExpiration(long delayNanos) {
+    long delayMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(delayNanos));
+    timerId = vertx.setTimer(delayMillis, ignored -> expire());
+  }
+
+  private void expire() {
+    List<Waiter<?>> expired = new ArrayList<>();
+    synchronized (queue) {
+      long now = System.nanoTime();
+      Waiter<?> head;
+      while ((head = queue.peek()) != null && head.deadline - now <= 0) {
+        expired.add(queue.poll());
+      }
+      waiters = queue.size();
+      if (head != null) {
+        scheduleExpiration(head.deadline - now);
+      } else {
+        timerId = -1;
+      }
+    }
+    for (Waiter<?> waiter : expired) {
+      recorder.recordRejected();
+      waiter.promise.fail(BulkheadFullException.createBulkheadFullException(bulkhead));
+    }
+  }
+
+  private static class Waiter<T> implements Handler<Void> {
+    private final QueuedBulkhead parent;
+    private final ContextInternal ctx;
+    private final Promise<T> promise;
+    private final Supplier<Future<T>> supplier;
+    private final long deadline;
+
+    Waiter(QueuedBulkhead parent, ContextInternal ctx, Promise<T> promise, Supplier<Future<T>> supplier, long deadline) {
+      this.parent = parent;
+      this.ctx = ctx;
+      this.promise = promise;
+      this.supplier = supplier;
+      this.deadline = deadline;
+    }
+
+    @Override
+    public void handle(Void ignored) {
+      parent.invokePermitted(promise, supplier, System.nanoTime() - (deadline - parent.maxWaitNanos));
+    }
+  }
+}
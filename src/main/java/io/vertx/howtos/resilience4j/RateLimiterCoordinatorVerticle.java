@@ -0,0 +1,71 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.vertx.core.Future;
+import io.vertx.core.VerticleBase;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the global permits of a {@link DistributedRateLimiter} and leases them in blocks to the nodes of the cluster.
+ * <p>
+ * Deploy a single instance per cluster and per limiter name. A lease request asks for a number of permits,
+ * the reply grants as many as are available in the current refresh period, possibly none, and tells for
+ * how long they may be used: until the end of the period, so that the permits used cluster-wide in a period
+ * never exceed the global limit. Periods are aligned on {@link System#nanoTime()}.
+ */
+public class RateLimiterCoordinatorVerticle extends VerticleBase {
+  private final String name;
+  private final RateLimiterConfig config;
+  private MessageConsumer<JsonObject> consumer;
+
+  // only accessed by the event loop of this verticle
+  private long periodNanos;
+  private long cycle = Long.MIN_VALUE;
+  private int available;
+
+  /**
+   * @param config the global limit, only {@code limitForPeriod} and {@code limitRefreshPeriod} are used
+   */
+  public RateLimiterCoordinatorVerticle(String name, RateLimiterConfig config) {
+    this.name = name;
+    this.config = config;
+  }
+
+  @Override
+  public Future<?> start() {
+    periodNanos = config.getLimitRefreshPeriod().toNanos();
+    consumer = vertx.eventBus().consumer(DistributedRateLimiter.address(name), this::lease);
+    return consumer.completion();
+  }
+
+  @Override
+  public Future<?> stop() {
+    return consumer.unregister();
+  }
+
+  private void lease(Message<JsonObject> message) {
+    long now = System.nanoTime();
+    long current = Math.floorDiv(now, periodNanos);
+    if (current != cycle) {
+      cycle = current;
+      available = config.getLimitForPeriod();
+    }
+    int requested = message.body().getInteger("permits", 0);
+    int granted = Math.min(requested, available);
+    available -= granted;
+
+    long remaining = (current + 1) * periodNanos - now;
+    JsonObject reply = new JsonObject()
+      .put("permits", granted)
+      .put("cycle", current)
+      .put("ttl", TimeUnit.NANOSECONDS.toMillis(remaining));
+    if (granted == 0) {
+      reply.put("retryAfter", TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+    }
+    message.reply(reply);
+  }
+}
@@ -0,0 +1,94 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.vertx.core.Future;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The fast-reject mode of the wrappers, for the policies configured without writable stack traces.
+ * <p>
+ * Rejecting a call normally allocates a promise bound to the caller context and a new exception. For a policy
+ * configured with {@code writableStackTraceEnabled(false)}, the wrappers return instead a failed future cached per
+ * thread and policy, holding a single stackless exception: a completed future without context calls its handlers
+ * right away on the caller thread, like a failed promise of the caller context does.
+ * <p>
+ * The policy is still asked for a permission on every call, so its own count of not permitted calls and its events
+ * see every rejection, and an open circuit breaker moves to half-open as soon as its wait is over. The allocations
+ * the policy makes itself when it refuses a permission, e.g. its events, are left as they are.
+ */
+final class Rejections {
+  // weak keys, so the policies dropped by their owner, e.g. evicted from a BoundedRegistry, are not retained
+  private static final FastThreadLocal<Map<Object, Rejection>> REJECTIONS = new FastThreadLocal<>() {
+    @Override
+    protected Map<Object, Rejection> initialValue() {
+      return new WeakHashMap<>();
+    }
+  };
+
+  private Rejections() {
+  }
+
+  static boolean isEnabled(CircuitBreaker circuitBreaker) {
+    return !circuitBreaker.getCircuitBreakerConfig().isWritableStackTraceEnabled();
+  }
+
+  static boolean isEnabled(Bulkhead bulkhead) {
+    return !bulkhead.getBulkheadConfig().isWritableStackTraceEnabled();
+  }
+
+  static boolean isEnabled(RateLimiter rateLimiter) {
+    return !rateLimiter.getRateLimiterConfig().isWritableStackTraceEnabled();
+  }
+
+  static <T> Future<T> reject(CircuitBreaker circuitBreaker) {
+    CircuitBreaker.State state = circuitBreaker.getState();
+    Rejection rejection = REJECTIONS.get().get(circuitBreaker);
+    if (rejection == null || rejection.state != state) {
+      // the message of the exception names the state
+      rejection = new Rejection(CallNotPermittedException.createCallNotPermittedException(circuitBreaker), state);
+      REJECTIONS.get().put(circuitBreaker, rejection);
+    }
+    return rejection.future();
+  }
+
+  static <T> Future<T> reject(Bulkhead bulkhead) {
+    Rejection rejection = REJECTIONS.get().get(bulkhead);
+    if (rejection == null) {
+      rejection = new Rejection(BulkheadFullException.createBulkheadFullException(bulkhead), null);
+      REJECTIONS.get().put(bulkhead, rejection);
+    }
+    return rejection.future();
+  }
+
+  static <T> Future<T> reject(RateLimiter rateLimiter) {
+    Rejection rejection = REJECTIONS.get().get(rateLimiter);
+    if (rejection == null) {
+      rejection = new Rejection(RequestNotPermitted.createRequestNotPermitted(rateLimiter), null);
+      REJECTIONS.get().put(rateLimiter, rejection);
+    }
+    return rejection.future();
+  }
+
+  private static final class Rejection {
+    private final Future<?> future;
+    private final CircuitBreaker.State state;
+
+    Rejection(Throwable failure, CircuitBreaker.State state) {
+      this.future = Future.failedFuture(failure);
+      this.state = state;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> Future<T> future() {
+      return (Future<T>) future;
+    }
+  }
+}
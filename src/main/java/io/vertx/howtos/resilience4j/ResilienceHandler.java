@@ -0,0 +1,185 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.HttpException;
+import io.vertx.ext.web.handler.PlatformHandler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A vertx-web handler guarding the routes it is added to with a rate limiter, a circuit breaker and a bulkhead,
+ * in that order.
+ * <p>
+ * Requests that are not permitted are answered right away, without calling the next handlers: {@code 429} when the
+ * rate limiter rejects them, {@code 503} when the circuit breaker is open or the bulkhead is full. As a
+ * {@link PlatformHandler}, it can be added before the body handler, so rejected requests do not pay for reading their
+ * body. A request delayed by the rate limiter is paused until its permit is available.
+ * <p>
+ * Permitted requests are recorded when the response ends: responses with a 5xx status are failures for the
+ * circuit breaker, as are responses that could not be sent.
+ */
+public class ResilienceHandler implements PlatformHandler {
+  private final RateLimiter rateLimiter;
+  private final CircuitBreaker circuitBreaker;
+  private final Bulkhead bulkhead;
+  private final ResilienceMetrics.Recorder rateLimiterRecorder;
+  private final ResilienceMetrics.Recorder circuitBreakerRecorder;
+  private final ResilienceMetrics.Recorder bulkheadRecorder;
+  private final String retryAfter;
+
+  private ResilienceHandler(Builder builder) {
+    ResilienceMetrics metrics = ResilienceMetrics.getDefault();
+    this.rateLimiter = builder.rateLimiter;
+    this.circuitBreaker = builder.circuitBreaker;
+    this.bulkhead = builder.bulkhead;
+    this.rateLimiterRecorder = rateLimiter != null ? metrics.recorder(ResilienceMetrics.Policy.RATE_LIMITER, rateLimiter.getName()) : null;
+    this.circuitBreakerRecorder = circuitBreaker != null ? metrics.recorder(ResilienceMetrics.Policy.CIRCUIT_BREAKER, circuitBreaker.getName()) : null;
+    this.bulkheadRecorder = bulkhead != null ? metrics.recorder(ResilienceMetrics.Policy.BULKHEAD, bulkhead.getName()) : null;
+    this.retryAfter = rateLimiter != null
+      ? String.valueOf(Math.max(1, (rateLimiter.getRateLimiterConfig().getLimitRefreshPeriod().toMillis() + 999) / 1000))
+      : null;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public void handle(RoutingContext ctx) {
+    if (rateLimiter == null) {
+      admit(ctx);
+      return;
+    }
+
+    long delay = rateLimiter.reservePermission(1);
+    if (delay < 0) {
+      rateLimiterRecorder.recordRejected();
+      ctx.response().setStatusCode(429).putHeader(HttpHeaders.RETRY_AFTER, retryAfter).end();
+    } else if (delay == 0) {
+      rateLimiterRecorder.recordWait(0);
+      admit(ctx);
+    } else {
+      rateLimiterRecorder.recordWait(delay);
+      ctx.request().pause();
+      CoalescedTimer.schedule(ctx.vertx(), ContextInternal.current(), delay, new DelayedRequest(this, ctx));
+    }
+  }
+
+  private void admit(RoutingContext ctx) {
+    if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+      circuitBreakerRecorder.recordRejected();
+      ctx.response().setStatusCode(503).end();
+      return;
+    }
+    if (bulkhead != null && !bulkhead.tryAcquirePermission()) {
+      if (circuitBreaker != null) {
+        circuitBreaker.releasePermission();
+      }
+      bulkheadRecorder.recordRejected();
+      ctx.response().setStatusCode(503).end();
+      return;
+    }
+
+    if (circuitBreaker != null || bulkhead != null) {
+      ctx.addEndHandler(new Completion(this, ctx, System.nanoTime()));
+    }
+    ctx.next();
+  }
+
+  private void onEnd(RoutingContext ctx, long start, AsyncResult<Void> result) {
+    long duration = System.nanoTime() - start;
+    int status = ctx.response().getStatusCode();
+    boolean failed = result.failed() || status >= 500;
+    ResilienceMetrics.Outcome outcome = failed ? ResilienceMetrics.Outcome.FAILURE : ResilienceMetrics.Outcome.SUCCESS;
+
+    if (bulkhead != null) {
+      bulkhead.onComplete();
+      bulkheadRecorder.record(outcome, duration);
+    }
+    if (circuitBreaker != null) {
+      if (result.failed()) {
+        circuitBreaker.onError(duration, TimeUnit.NANOSECONDS, result.cause());
+      } else if (status >= 500) {
+        circuitBreaker.onError(duration, TimeUnit.NANOSECONDS, new HttpException(status));
+      } else {
+        circuitBreaker.onSuccess(duration, TimeUnit.NANOSECONDS);
+      }
+      circuitBreakerRecorder.record(outcome, duration);
+    }
+  }
+
+  private static final class Completion implements Handler<AsyncResult<Void>> {
+    private final ResilienceHandler parent;
+    private final RoutingContext ctx;
+    private final long start;
+
+    Completion(ResilienceHandler parent, RoutingContext ctx, long start) {
+      this.parent = parent;
+      this.ctx = ctx;
+      this.start = start;
+    }
+
+    @Override
+    public void handle(AsyncResult<Void> result) {
+      parent.onEnd(ctx, start, result);
+    }
+  }
+
+  private static final class DelayedRequest extends CoalescedTimer.Task {
+    private final ResilienceHandler parent;
+    private final RoutingContext ctx;
+
+    DelayedRequest(ResilienceHandler parent, RoutingContext ctx) {
+      this.parent = parent;
+      this.ctx = ctx;
+    }
+
+    @Override
+    public void handle(Void ignored) {
+      if (ctx.response().closed()) {
+        return;
+      }
+      // the next handlers resume the request when they are ready for its body
+      parent.admit(ctx);
+    }
+  }
+
+  /**
+   * Every policy is optional. The handler keeps the policies it is built with, so routes built from
+   * the same builder share them.
+   */
+  public static final class Builder {
+    private RateLimiter rateLimiter;
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+
+    private Builder() {
+    }
+
+    public Builder withRateLimiter(RateLimiter rateLimiter) {
+      this.rateLimiter = rateLimiter;
+      return this;
+    }
+
+    public Builder withCircuitBreaker(CircuitBreaker circuitBreaker) {
+      this.circuitBreaker = circuitBreaker;
+      return this;
+    }
+
+    public Builder withBulkhead(Bulkhead bulkhead) {
+      this.bulkhead = bulkhead;
+      return this;
+    }
+
+    public ResilienceHandler build() {
+      return new ResilienceHandler(this);
+    }
+  }
+}
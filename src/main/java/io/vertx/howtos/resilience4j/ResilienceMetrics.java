@@ -0,0 +1,386 @@
+package io.vertx.howtos.resilience4j;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and outcome recorders for the calls going through the Vert.x wrappers of this package.
+ * <p>
+ * Recording is opt-in: the wrappers record to the instance {@linkplain #setDefault(ResilienceMetrics) installed} as
+ * the default one, and recording is disabled until then. Install it before decorating the policies, the wrappers
+ * that are created once, like {@link QueuedBulkhead} or {@link ResilienceHandler}, look their recorders up on
+ * creation.
+ * <p>
+ * Each policy instance, identified by its type and name, gets a {@link Recorder} on first use, of about 22 KB, kept
+ * until it is {@linkplain #remove(Policy, String) removed}: remove the recorder of a policy that is dropped. Recording
+ * is lock-free and does not allocate: finding the recorder of a policy is a map lookup, durations go to
+ * {@link LatencySketch}es and counters to atomic arrays. {@link #scrape()} renders every recorder in the Prometheus
+ * text format, along with the gauges of the policies the wrappers went through: the current limit of an
+ * {@link AdaptiveBulkhead} and the tokens left in a {@link RetryBudget}.
+ */
+public class ResilienceMetrics {
+  private static final ResilienceMetrics DISABLED = new ResilienceMetrics(false);
+  private static volatile ResilienceMetrics installed = DISABLED;
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+  private static final int MAX_ATTEMPTS = 10;
+  // the heap taken by a recorder, mostly its latency sketches
+  static final long RECORDER_BYTES = 22 * 1024;
+
+  public enum Policy {
+    CIRCUIT_BREAKER("circuitbreaker"),
+    BULKHEAD("bulkhead"),
+    RATE_LIMITER("ratelimiter"),
+    RETRY("retry"),
+    TIME_LIMITER("timelimiter");
+
+    private final String label;
+
+    Policy(String label) {
+      this.label = label;
+    }
+  }
+
+  public enum Outcome {
+    SUCCESS("success"),
+    FAILURE("failure"),
+    REJECTED("rejected"),
+    TIMEOUT("timeout");
+
+    private static final Outcome[] VALUES = values();
+
+    private final String label;
+
+    Outcome(String label) {
+      this.label = label;
+    }
+  }
+
+  private final boolean enabled;
+  private final Map<Policy, Map<String, Recorder>> recorders = new EnumMap<>(Policy.class);
+
+  public ResilienceMetrics() {
+    this(true);
+  }
+
+  private ResilienceMetrics(boolean enabled) {
+    this.enabled = enabled;
+    for (Policy policy : Policy.values()) {
+      recorders.put(policy, new ConcurrentHashMap<>());
+    }
+  }
+
+  /**
+   * The instance the Vert.x wrappers record to, which records nothing unless one was installed.
+   */
+  public static ResilienceMetrics getDefault() {
+    return installed;
+  }
+
+  /**
+   * Installs {@code metrics} as the instance the Vert.x wrappers record to, {@code null} disables recording.
+   */
+  public static void setDefault(ResilienceMetrics metrics) {
+    installed = metrics != null ? metrics : DISABLED;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the recorder of a policy instance, a recorder that records nothing when this instance is disabled.
+   */
+  public Recorder recorder(Policy policy, String name) {
+    if (!enabled) {
+      return Recorder.NOOP;
+    }
+    if (name == null) {
+      name = "";
+    }
+    Map<String, Recorder> byName = recorders.get(policy);
+    Recorder recorder = byName.get(name);
+    if (recorder == null) {
+      recorder = byName.computeIfAbsent(name, Recorder::new);
+    }
+    return recorder;
+  }
+
+  /**
+   * Drops the recorder of a policy instance, e.g. once the policy is removed from its registry. A wrapper still holding
+   * the recorder keeps recording to it, but it is no longer scraped.
+   */
+  public void remove(Policy policy, String name) {
+    recorders.get(policy).remove(name != null ? name : "");
+  }
+
+  /**
+   * The number of recorders kept for {@code policy}.
+   */
+  public int size(Policy policy) {
+    return recorders.get(policy).size();
+  }
+
+  /**
+   * Returns all recorders in the Prometheus text exposition format.
+   */
+  public String scrape() {
+    StringBuilder out = new StringBuilder();
+
+    out.append("# HELP resilience4j_call_duration_seconds Duration of the calls permitted by a policy, by outcome\n");
+    out.append("# TYPE resilience4j_call_duration_seconds summary\n");
+    for (Policy policy : Policy.values()) {
+      for (Recorder recorder : recorders.get(policy).values()) {
+        for (Outcome outcome : Outcome.VALUES) {
+          if (outcome != Outcome.REJECTED) {
+            String labels = "policy=\"" + policy.label + "\",name=\"" + escape(recorder.name) + "\",outcome=\"" + outcome.label + "\"";
+            writeSummary(out, "resilience4j_call_duration_seconds", labels, recorder.durations[outcome.ordinal()],
+              recorder.durationSums[outcome.ordinal()].sum());
+          }
+        }
+      }
+    }
+
+    out.append("# HELP resilience4j_calls_total Calls handled by a policy, by outcome\n");
+    out.append("# TYPE resilience4j_calls_total counter\n");
+    for (Policy policy : Policy.values()) {
+      for (Recorder recorder : recorders.get(policy).values()) {
+        for (Outcome outcome : Outcome.VALUES) {
+          out.append("resilience4j_calls_total{policy=\"").append(policy.label)
+            .append("\",name=\"").append(escape(recorder.name))
+            .append("\",outcome=\"").append(outcome.label).append("\"} ")
+            .append(recorder.counts.get(outcome.ordinal())).append('\n');
+        }
+      }
+    }
+
+    out.append("# HELP resilience4j_permit_wait_seconds Time waited for a bulkhead or rate limiter permit\n");
+    out.append("# TYPE resilience4j_permit_wait_seconds summary\n");
+    for (Policy policy : new Policy[]{Policy.BULKHEAD, Policy.RATE_LIMITER}) {
+      for (Recorder recorder : recorders.get(policy).values()) {
+        String labels = "policy=\"" + policy.label + "\",name=\"" + escape(recorder.name) + "\"";
+        writeSummary(out, "resilience4j_permit_wait_seconds", labels, recorder.waits, recorder.waitSum.sum());
+      }
+    }
+
+    out.append("# HELP resilience4j_bulkhead_limit Current concurrency limit of an adaptive bulkhead\n");
+    out.append("# TYPE resilience4j_bulkhead_limit gauge\n");
+    for (Recorder recorder : recorders.get(Policy.BULKHEAD).values()) {
+      AdaptiveBulkhead bulkhead = recorder.adaptiveBulkhead;
+      if (bulkhead != null) {
+        out.append("resilience4j_bulkhead_limit{name=\"").append(escape(recorder.name)).append("\"} ")
+          .append(bulkhead.getLimit()).append('\n');
+      }
+    }
+
+    out.append("# HELP resilience4j_retry_budget_available_tokens Retries a retry budget allows right now\n");
+    out.append("# TYPE resilience4j_retry_budget_available_tokens gauge\n");
+    for (Recorder recorder : recorders.get(Policy.RETRY).values()) {
+      RetryBudget budget = recorder.retryBudget;
+      if (budget != null) {
+        out.append("resilience4j_retry_budget_available_tokens{name=\"").append(escape(recorder.name)).append("\"} ")
+          .append(budget.getAvailableTokens()).append('\n');
+      }
+    }
+
+    out.append("# HELP resilience4j_retry_budget_exhausted_total Calls of a retry that gave up because its budget was empty\n");
+    out.append("# TYPE resilience4j_retry_budget_exhausted_total counter\n");
+    for (Recorder recorder : recorders.get(Policy.RETRY).values()) {
+      if (recorder.retryBudget != null) {
+        out.append("resilience4j_retry_budget_exhausted_total{name=\"").append(escape(recorder.name)).append("\"} ")
+          .append(recorder.deniedRetries.sum()).append('\n');
+      }
+    }
+
+    out.append("# HELP resilience4j_retry_attempts Attempts made per call by a retry\n");
+    out.append("# TYPE resilience4j_retry_attempts histogram\n");
+    for (Recorder recorder : recorders.get(Policy.RETRY).values()) {
+      String labels = "name=\"" + escape(recorder.name) + "\"";
+      long cumulative = 0;
+      long sum = 0;
+      for (int i = 1; i <= MAX_ATTEMPTS; i++) {
+        long count = recorder.attempts.get(i);
+        cumulative += count;
+        sum += count * i;
+        out.append("resilience4j_retry_attempts_bucket{").append(labels).append(",le=\"").append(i).append("\"} ")
+          .append(cumulative).append('\n');
+      }
+      cumulative += recorder.attempts.get(0);
+      sum += recorder.attemptsOverflowSum.sum();
+      out.append("resilience4j_retry_attempts_bucket{").append(labels).append(",le=\"+Inf\"} ").append(cumulative).append('\n');
+      out.append("resilience4j_retry_attempts_sum{").append(labels).append("} ").append(sum).append('\n');
+      out.append("resilience4j_retry_attempts_count{").append(labels).append("} ").append(cumulative).append('\n');
+    }
+
+    return out.toString();
+  }
+
+  private static void writeSummary(StringBuilder out, String metric, String labels, LatencySketch sketch, long sumNanos) {
+    long[] snapshot = sketch.snapshot();
+    long count = 0;
+    for (long bucket : snapshot) {
+      count += bucket;
+    }
+    if (count == 0) {
+      return;
+    }
+    for (double quantile : QUANTILES) {
+      out.append(metric).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+        .append(seconds(sketch.valueAtQuantile(quantile, snapshot))).append('\n');
+    }
+    out.append(metric).append("_sum{").append(labels).append("} ").append(seconds(sumNanos)).append('\n');
+    out.append(metric).append("_count{").append(labels).append("} ").append(count).append('\n');
+  }
+
+  private static double seconds(long nanos) {
+    return nanos / 1e9;
+  }
+
+  private static String escape(String label) {
+    return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  /**
+   * The recorder of a single policy instance.
+   */
+  public static final class Recorder {
+    // returned by a disabled instance, holds no state
+    private static final Recorder NOOP = new Recorder(null, false);
+
+    private final String name;
+    private final boolean enabled;
+    private final LatencySketch[] durations;
+    private final LongAdder[] durationSums;
+    private final AtomicLongArray counts;
+    private final LatencySketch waits;
+    private final LongAdder waitSum;
+    // index 0 counts the calls with more than MAX_ATTEMPTS attempts
+    private final AtomicLongArray attempts;
+    private final LongAdder attemptsOverflowSum;
+    private final LongAdder deniedRetries;
+    // the policies exported as gauges, set by the wrappers on use
+    private volatile AdaptiveBulkhead adaptiveBulkhead;
+    private volatile RetryBudget retryBudget;
+
+    private Recorder(String name) {
+      this(name, true);
+    }
+
+    private Recorder(String name, boolean enabled) {
+      this.name = name;
+      this.enabled = enabled;
+      int outcomes = enabled ? Outcome.VALUES.length : 0;
+      this.durations = new LatencySketch[outcomes];
+      this.durationSums = new LongAdder[outcomes];
+      for (int i = 0; i < outcomes; i++) {
+        durations[i] = new LatencySketch();
+        durationSums[i] = new LongAdder();
+      }
+      this.counts = new AtomicLongArray(outcomes);
+      this.waits = enabled ? new LatencySketch() : null;
+      this.waitSum = enabled ? new LongAdder() : null;
+      this.attempts = new AtomicLongArray(enabled ? MAX_ATTEMPTS + 1 : 0);
+      this.attemptsOverflowSum = enabled ? new LongAdder() : null;
+      this.deniedRetries = enabled ? new LongAdder() : null;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getCount(Outcome outcome) {
+      return enabled ? counts.get(outcome.ordinal()) : 0;
+    }
+
+    /**
+     * Records a permitted call that ended with {@code outcome} after {@code durationNanos}.
+     */
+    public void record(Outcome outcome, long durationNanos) {
+      if (!enabled) {
+        return;
+      }
+      int index = outcome.ordinal();
+      counts.getAndIncrement(index);
+      durations[index].record(durationNanos);
+      durationSums[index].add(durationNanos);
+    }
+
+    public void recordRejected() {
+      if (!enabled) {
+        return;
+      }
+      counts.getAndIncrement(Outcome.REJECTED.ordinal());
+    }
+
+    /**
+     * Records the time a call waited for a permit before it was started.
+     */
+    public void recordWait(long waitNanos) {
+      if (!enabled) {
+        return;
+      }
+      waits.record(waitNanos);
+      waitSum.add(waitNanos);
+    }
+
+    public long getWaitAtQuantile(double quantile) {
+      if (!enabled) {
+        return 0;
+      }
+      return waits.getValueAtQuantile(quantile);
+    }
+
+    public void recordAttempts(int attempts) {
+      if (!enabled) {
+        return;
+      }
+      if (attempts > MAX_ATTEMPTS) {
+        this.attempts.getAndIncrement(0);
+        attemptsOverflowSum.add(attempts);
+      } else {
+        this.attempts.getAndIncrement(attempts);
+      }
+    }
+
+    /**
+     * Records a call that gave up because the retry budget denied its retry, a call the retry itself does not count.
+     */
+    public void recordRetryDenied() {
+      if (!enabled) {
+        return;
+      }
+      deniedRetries.increment();
+    }
+
+    public long getNumberOfDeniedRetries() {
+      return enabled ? deniedRetries.sum() : 0;
+    }
+
+    /**
+     * Exports the limit of {@code bulkhead}, the bulkhead of this recorder, as a gauge.
+     */
+    void bind(AdaptiveBulkhead bulkhead) {
+      if (enabled && adaptiveBulkhead != bulkhead) {
+        adaptiveBulkhead = bulkhead;
+      }
+    }
+
+    /**
+     * Exports the tokens left in {@code budget}, the budget of the retry of this recorder, as a gauge.
+     */
+    void bind(RetryBudget budget) {
+      if (enabled && budget != null && retryBudget != budget) {
+        retryBudget = budget;
+      }
+    }
+
+    public long getNumberOfCallsWithAttempts(int attempts) {
+      if (!enabled) {
+        return 0;
+      }
+      return attempts > MAX_ATTEMPTS ? this.attempts.get(0) : this.attempts.get(attempts);
+    }
+  }
+}
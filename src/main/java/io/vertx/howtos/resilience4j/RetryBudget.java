@@ -0,0 +1,68 @@
+package io.vertx.howtos.resilience4j;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A retry budget shared by all the calls of a {@link io.github.resilience4j.retry.Retry}.
+ * <p>
+ * Every call that succeeds on its first attempt deposits {@code retryRatio} of a token, every retry withdraws
+ * a whole one. When the budget is empty, calls give up instead of retrying, so retries cannot exceed
+ * {@code retryRatio} of the successful traffic beyond a burst of {@code maxTokens}.
+ * <p>
+ * A retry denied by the budget never reaches the retry: a call that gives up on a result completes as a successful
+ * call, without retry when it was not retried before, and a call that gives up on a failure is not counted in the
+ * metrics of the retry, which have no way to end a call that may still retry. Such a call is counted as a failure by
+ * the {@link ResilienceMetrics} recorder of the retry, and as exhausted in {@link #getNumberOfExhaustedRetries()} and
+ * in the {@code resilience4j_retry_budget_exhausted_total} counter of the retry.
+ */
+public class RetryBudget {
+  private final TokenBucket tokens;
+  private final LongAdder exhausted = new LongAdder();
+
+  private RetryBudget(double retryRatio, int maxTokens) {
+    this.tokens = new TokenBucket(retryRatio, maxTokens);
+  }
+
+  public static RetryBudget of(double retryRatio, int maxTokens) {
+    if (retryRatio < 0 || retryRatio > 1) {
+      throw new IllegalArgumentException("retryRatio must be between 0 and 1");
+    }
+    if (maxTokens < 1) {
+      throw new IllegalArgumentException("maxTokens must be at least 1");
+    }
+    return new RetryBudget(retryRatio, maxTokens);
+  }
+
+  /**
+   * The number of retries that can be made right now.
+   */
+  public double getAvailableTokens() {
+    return tokens.getAvailableTokens();
+  }
+
+  /**
+   * The number of calls that gave up because the budget was empty.
+   */
+  public long getNumberOfExhaustedRetries() {
+    return exhausted.sum();
+  }
+
+  void onFirstAttemptSuccess() {
+    tokens.deposit();
+  }
+
+  boolean tryAcquireRetry() {
+    if (tokens.tryWithdraw()) {
+      return true;
+    }
+    exhausted.increment();
+    return false;
+  }
+
+  /**
+   * Gives back a retry acquired for a call that did not retry after all.
+   */
+  void releaseRetry() {
+    tokens.refund();
+  }
+}
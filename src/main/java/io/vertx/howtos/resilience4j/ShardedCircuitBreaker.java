@@ -0,0 +1,240 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.ContextInternal;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Predicate;
+
+/**
+ * A {@link CircuitBreaker} whose CLOSED state is evaluated from per-event-loop shards.
+ * <p>
+ * While the breaker is CLOSED, calls made on an event loop are counted in a shard owned by that event loop,
+ * without touching any state shared with other event loops. A periodic task sums the shards into a time-based
+ * sliding window and opens the underlying breaker once the failure rate or the slow call rate exceeds the
+ * configured thresholds. In every other state, and for calls made outside an event loop, the underlying
+ * breaker is used directly.
+ * <p>
+ * Calls counted by the shards are not reflected in the metrics and events of the underlying breaker,
+ * use {@link #getNumberOfBufferedCalls()}, {@link #getFailureRate()} and {@link #getSlowCallRate()} instead.
+ */
+public class ShardedCircuitBreaker implements AutoCloseable {
+  private static final Duration DEFAULT_AGGREGATION_PERIOD = Duration.ofMillis(100);
+  private static final int DEFAULT_WINDOW_BUCKETS = 10;
+
+  private final Vertx vertx;
+  private final CircuitBreaker circuitBreaker;
+  private final Predicate<Throwable> ignoreExceptionPredicate;
+  private final Predicate<Throwable> recordExceptionPredicate;
+  private final Predicate<Object> recordResultPredicate;
+  private final long slowCallDurationThreshold;
+  private final List<Shard> shards = new CopyOnWriteArrayList<>();
+  private final Shard sharedShard = new Shard(this, null);
+  // owned by the breaker rather than by the event loop threads, so a dropped breaker leaves nothing behind on them
+  private final ConcurrentMap<Thread, Shard> localShards = new ConcurrentHashMap<>();
+
+  // only accessed by the aggregation task
+  private final long[] windowCalls;
+  private final long[] windowFailedCalls;
+  private final long[] windowSlowCalls;
+  private int windowIndex;
+  private CircuitBreaker.State lastState = CircuitBreaker.State.CLOSED;
+  private final long timerId;
+
+  private volatile int numberOfBufferedCalls;
+  private volatile float failureRate = -1;
+  private volatile float slowCallRate = -1;
+
+  private ShardedCircuitBreaker(Vertx vertx, CircuitBreaker circuitBreaker, Duration aggregationPeriod, int windowBuckets) {
+    CircuitBreakerConfig config = circuitBreaker.getCircuitBreakerConfig();
+    this.vertx = vertx;
+    this.circuitBreaker = circuitBreaker;
+    this.ignoreExceptionPredicate = config.getIgnoreExceptionPredicate();
+    this.recordExceptionPredicate = config.getRecordExceptionPredicate();
+    this.recordResultPredicate = config.getRecordResultPredicate();
+    this.slowCallDurationThreshold = config.getSlowCallDurationThreshold().toNanos();
+    this.windowCalls = new long[windowBuckets];
+    this.windowFailedCalls = new long[windowBuckets];
+    this.windowSlowCalls = new long[windowBuckets];
+    this.shards.add(sharedShard);
+    this.timerId = vertx.setPeriodic(aggregationPeriod.toMillis(), ignored -> aggregate());
+  }
+
+  public static ShardedCircuitBreaker create(Vertx vertx, CircuitBreaker circuitBreaker) {
+    return create(vertx, circuitBreaker, DEFAULT_AGGREGATION_PERIOD, DEFAULT_WINDOW_BUCKETS);
+  }
+
+  /**
+   * The sliding window covers {@code aggregationPeriod * windowBuckets}.
+   */
+  public static ShardedCircuitBreaker create(Vertx vertx, CircuitBreaker circuitBreaker, Duration aggregationPeriod, int windowBuckets) {
+    if (windowBuckets < 1) {
+      throw new IllegalArgumentException("windowBuckets must be at least 1");
+    }
+    return new ShardedCircuitBreaker(vertx, circuitBreaker, aggregationPeriod, windowBuckets);
+  }
+
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  public int getNumberOfBufferedCalls() {
+    return numberOfBufferedCalls;
+  }
+
+  public float getFailureRate() {
+    return failureRate;
+  }
+
+  public float getSlowCallRate() {
+    return slowCallRate;
+  }
+
+  @Override
+  public void close() {
+    vertx.cancelTimer(timerId);
+    shards.removeAll(localShards.values());
+    localShards.clear();
+  }
+
+  /**
+   * Returns the shard of the current event loop, or {@code null} when the call must go through the underlying breaker.
+   */
+  Shard localShard(ContextInternal ctx) {
+    if (ctx == null || !ctx.isEventLoopContext() || circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+      return null;
+    }
+    Thread thread = Thread.currentThread();
+    Shard shard = localShards.get(thread);
+    if (shard == null) {
+      shard = localShards.computeIfAbsent(thread, owner -> {
+        Shard created = new Shard(this, owner);
+        shards.add(created);
+        return created;
+      });
+    }
+    return shard;
+  }
+
+  private void aggregate() {
+    long calls = 0;
+    long failedCalls = 0;
+    long slowCalls = 0;
+    for (Shard shard : shards) {
+      long shardCalls = shard.calls;
+      long shardFailedCalls = shard.failedCalls;
+      long shardSlowCalls = shard.slowCalls;
+      calls += shardCalls - shard.aggregatedCalls;
+      failedCalls += shardFailedCalls - shard.aggregatedFailedCalls;
+      slowCalls += shardSlowCalls - shard.aggregatedSlowCalls;
+      shard.aggregatedCalls = shardCalls;
+      shard.aggregatedFailedCalls = shardFailedCalls;
+      shard.aggregatedSlowCalls = shardSlowCalls;
+    }
+
+    CircuitBreaker.State state = circuitBreaker.getState();
+    if (state != lastState) {
+      lastState = state;
+      Arrays.fill(windowCalls, 0);
+      Arrays.fill(windowFailedCalls, 0);
+      Arrays.fill(windowSlowCalls, 0);
+    }
+    windowIndex = (windowIndex + 1) % windowCalls.length;
+    windowCalls[windowIndex] = calls;
+    windowFailedCalls[windowIndex] = failedCalls;
+    windowSlowCalls[windowIndex] = slowCalls;
+
+    long totalCalls = 0;
+    long totalFailedCalls = 0;
+    long totalSlowCalls = 0;
+    for (int i = 0; i < windowCalls.length; i++) {
+      totalCalls += windowCalls[i];
+      totalFailedCalls += windowFailedCalls[i];
+      totalSlowCalls += windowSlowCalls[i];
+    }
+
+    CircuitBreakerConfig config = circuitBreaker.getCircuitBreakerConfig();
+    numberOfBufferedCalls = (int) Math.min(Integer.MAX_VALUE, totalCalls);
+    if (totalCalls < config.getMinimumNumberOfCalls()) {
+      failureRate = -1;
+      slowCallRate = -1;
+      return;
+    }
+    failureRate = totalFailedCalls * 100.0f / totalCalls;
+    slowCallRate = totalSlowCalls * 100.0f / totalCalls;
+
+    if (state == CircuitBreaker.State.CLOSED
+      && (failureRate >= config.getFailureRateThreshold() || slowCallRate >= config.getSlowCallRateThreshold())) {
+      circuitBreaker.transitionToOpenState();
+    }
+  }
+
+  /**
+   * Outcomes recorded by a single event loop. Counters are only written by the owning thread
+   * and published with ordered stores, so the aggregation task can read them without locking.
+   * Outcomes delivered on another thread go to the shared shard, which uses atomic increments.
+   */
+  static final class Shard {
+    private static final AtomicLongFieldUpdater<Shard> CALLS = AtomicLongFieldUpdater.newUpdater(Shard.class, "calls");
+    private static final AtomicLongFieldUpdater<Shard> FAILED_CALLS = AtomicLongFieldUpdater.newUpdater(Shard.class, "failedCalls");
+    private static final AtomicLongFieldUpdater<Shard> SLOW_CALLS = AtomicLongFieldUpdater.newUpdater(Shard.class, "slowCalls");
+
+    private final ShardedCircuitBreaker parent;
+    private final Thread owner;
+    private volatile long calls;
+    private volatile long failedCalls;
+    private volatile long slowCalls;
+
+    // only accessed by the aggregation task
+    private long aggregatedCalls;
+    private long aggregatedFailedCalls;
+    private long aggregatedSlowCalls;
+
+    private Shard(ShardedCircuitBreaker parent, Thread owner) {
+      this.parent = parent;
+      this.owner = owner;
+    }
+
+    void onResult(long durationNanos, Object result) {
+      record(durationNanos, parent.recordResultPredicate.test(result));
+    }
+
+    void onError(long durationNanos, Throwable throwable) {
+      if (parent.ignoreExceptionPredicate.test(throwable)) {
+        return;
+      }
+      record(durationNanos, parent.recordExceptionPredicate.test(throwable));
+    }
+
+    private void record(long durationNanos, boolean failed) {
+      boolean slow = durationNanos > parent.slowCallDurationThreshold;
+      if (owner != Thread.currentThread()) {
+        Shard shared = parent.sharedShard;
+        CALLS.incrementAndGet(shared);
+        if (failed) {
+          FAILED_CALLS.incrementAndGet(shared);
+        }
+        if (slow) {
+          SLOW_CALLS.incrementAndGet(shared);
+        }
+        return;
+      }
+
+      CALLS.lazySet(this, calls + 1);
+      if (failed) {
+        FAILED_CALLS.lazySet(this, failedCalls + 1);
+      }
+      if (slow) {
+        SLOW_CALLS.lazySet(this, slowCalls + 1);
+      }
+    }
+  }
+}
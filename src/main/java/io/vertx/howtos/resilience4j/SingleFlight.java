@@ -0,0 +1,104 @@
+package io.vertx.howtos.resilience4j;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.internal.ContextInternal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls: while a call for a key is in flight, the next calls for the same key get its
+ * {@link Future} instead of calling their supplier. Decorating a supplier already guarded by a bulkhead or a circuit
+ * breaker makes a burst of identical calls take a single permit and record a single outcome.
+ * <p>
+ * The in-flight calls are tracked per event loop, in maps only touched by their event loop, so calls made from
+ * different event loops are not coalesced with each other: a key has at most one call in flight per event loop.
+ * Calls made outside of an event loop share a concurrent map. A key is forgotten as soon as its call completes, so the
+ * next call for it calls the supplier again.
+ */
+public class SingleFlight<K> {
+  // the calls in flight of every instance, by instance, with weak keys so that the instances dropped by their owner
+  // do not leave a map behind on every event loop
+  private static final FastThreadLocal<Map<SingleFlight<?>, Map<Object, Future<?>>>> LOCAL_CALLS = new FastThreadLocal<>() {
+    @Override
+    protected Map<SingleFlight<?>, Map<Object, Future<?>>> initialValue() {
+      return new WeakHashMap<>();
+    }
+  };
+
+  private final ConcurrentMap<K, Future<?>> sharedCalls = new ConcurrentHashMap<>();
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  public static <K> SingleFlight<K> create() {
+    return new SingleFlight<>();
+  }
+
+  /**
+   * Returns the future of the call in flight for {@code key}, or calls {@code supplier} when there is none.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Future<T> execute(K key, Supplier<Future<T>> supplier) {
+    ContextInternal ctx = ContextInternal.current();
+    if (ctx != null && ctx.isEventLoopContext() && ctx.nettyEventLoop().inEventLoop()) {
+      Map<Object, Future<?>> inFlight = LOCAL_CALLS.get().computeIfAbsent(this, ignored -> new HashMap<>());
+      Future<T> existing = (Future<T>) inFlight.get(key);
+      if (existing != null) {
+        coalesced.increment();
+        return existing;
+      }
+      Promise<T> promise = ctx.promise();
+      Future<T> future = promise.future();
+      inFlight.put(key, future);
+      // the listener runs on this event loop, whichever thread completes the call
+      future.onComplete(ignored -> inFlight.remove(key, future));
+      call(supplier, promise);
+      return future;
+    }
+
+    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+    Future<T> future = promise.future();
+    Future<T> existing = (Future<T>) sharedCalls.putIfAbsent(key, future);
+    if (existing != null) {
+      coalesced.increment();
+      return existing;
+    }
+    future.onComplete(ignored -> sharedCalls.remove(key, future));
+    call(supplier, promise);
+    return future;
+  }
+
+  public <T> Supplier<Future<T>> decorateFuture(K key, Supplier<Future<T>> supplier) {
+    return () -> execute(key, supplier);
+  }
+
+  private <T> void call(Supplier<Future<T>> supplier, Promise<T> promise) {
+    calls.increment();
+    try {
+      supplier.get().onComplete(promise);
+    } catch (Exception e) {
+      promise.fail(e);
+    }
+  }
+
+  /**
+   * The number of calls that went to their supplier.
+   */
+  public long getCalls() {
+    return calls.sum();
+  }
+
+  /**
+   * The number of calls that got the future of a call already in flight.
+   */
+  public long getCoalesced() {
+    return coalesced.sum();
+  }
+}
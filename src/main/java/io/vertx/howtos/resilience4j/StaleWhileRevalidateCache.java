@@ -0,0 +1,277 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.vertx.core.Future;
+import io.vertx.core.internal.ContextInternal;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A cache of the last good value of calls guarded by a circuit breaker, used to answer with a stale value rather than
+ * an error while the breaker is open or the downstream fails.
+ * <p>
+ * A value younger than the TTL is returned without calling the supplier. An older value is still returned right away
+ * as long as it is younger than the max staleness, and a single refresh per key runs in the background through the
+ * circuit breaker when the breaker allows it: while it is open, stale values are served without trying to refresh
+ * them, so an open breaker or a failing downstream only makes the values older. A value past the max staleness is
+ * dropped. Without a usable value, the call goes through the circuit breaker and its failure, including a
+ * {@code CallNotPermittedException}, is returned to the caller.
+ * <p>
+ * The values are kept in a concurrent map, so looking up a value does not lock. Once the sum of their weights, an
+ * estimate of their size in bytes given by the weigher, exceeds the maximum weight, a single thread at a time evicts
+ * the least recently used values down to 90% of the maximum weight, so that the next insertions do not have to
+ * evict. Recency is approximate: a value only publishes its access time once per millisecond.
+ */
+public class StaleWhileRevalidateCache<K, V> {
+  // hot values only publish their access time once per millisecond, instead of writing to a shared line per lookup
+  private static final long ACCESS_GRANULARITY_NANOS = 1_000_000;
+
+  private final CircuitBreaker circuitBreaker;
+  private final long ttlNanos;
+  private final long maxStalenessNanos;
+  private final long maxWeight;
+  private final ToLongFunction<V> weigher;
+  private final LongSupplier clock;
+  private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+  private final AtomicLong weight = new AtomicLong();
+  private final AtomicBoolean evicting = new AtomicBoolean();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder staleHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private StaleWhileRevalidateCache(Builder<K, V> builder) {
+    this.circuitBreaker = Objects.requireNonNull(builder.circuitBreaker);
+    this.ttlNanos = builder.ttl.toNanos();
+    this.maxStalenessNanos = builder.maxStaleness.toNanos();
+    this.maxWeight = builder.maxWeight;
+    this.weigher = Objects.requireNonNull(builder.weigher);
+    this.clock = builder.clock;
+    if (maxStalenessNanos < ttlNanos) {
+      throw new IllegalArgumentException("maxStaleness must not be shorter than ttl");
+    }
+  }
+
+  public static <K, V> Builder<K, V> builder(CircuitBreaker circuitBreaker) {
+    return new Builder<>(circuitBreaker);
+  }
+
+  /**
+   * Returns the cached value of {@code key}, or the result of {@code supplier} called through the circuit breaker.
+   */
+  public Future<V> get(K key, Supplier<Future<V>> supplier) {
+    ContextInternal ctx = ContextInternal.current();
+    long now = clock.getAsLong();
+    Entry<V> entry = entries.get(key);
+    if (entry != null && now - entry.loadedAt > maxStalenessNanos) {
+      remove(key, entry);
+      entry = null;
+    }
+
+    if (entry == null) {
+      misses.increment();
+      return VertxCircuitBreaker.executeFuture(circuitBreaker, supplier).onSuccess(value -> put(key, value));
+    }
+    if (now - entry.lastAccess > ACCESS_GRANULARITY_NANOS) {
+      entry.lastAccess = now;
+    }
+    if (now - entry.loadedAt > ttlNanos) {
+      staleHits.increment();
+      if (isRefreshAllowed() && Entry.REFRESHING.compareAndSet(entry, 0, 1)) {
+        Entry<V> stale = entry;
+        VertxCircuitBreaker.executeFuture(circuitBreaker, supplier).onComplete(result -> {
+          if (result.succeeded()) {
+            put(key, result.result());
+          } else {
+            stale.refreshing = 0;
+          }
+        });
+      }
+    } else {
+      hits.increment();
+    }
+    return ctx != null ? ctx.succeededFuture(entry.value) : Future.succeededFuture(entry.value);
+  }
+
+  // an open breaker would reject the refresh right away, and count it as not permitted
+  private boolean isRefreshAllowed() {
+    CircuitBreaker.State state = circuitBreaker.getState();
+    return state != CircuitBreaker.State.OPEN && state != CircuitBreaker.State.FORCED_OPEN;
+  }
+
+  public Supplier<Future<V>> decorateFuture(K key, Supplier<Future<V>> supplier) {
+    return () -> get(key, supplier);
+  }
+
+  private void put(K key, V value) {
+    Entry<V> entry = new Entry<>(value, weigher.applyAsLong(value), clock.getAsLong());
+    Entry<V> previous = entries.put(key, entry);
+    weight.addAndGet(previous != null ? entry.weight - previous.weight : entry.weight);
+    // the weight added while another thread evicts is seen by that thread once it is done
+    while (weight.get() > maxWeight && evicting.compareAndSet(false, true)) {
+      try {
+        evictLeastRecentlyUsed();
+      } finally {
+        evicting.set(false);
+      }
+    }
+  }
+
+  private void evictLeastRecentlyUsed() {
+    List<Candidate<K, V>> candidates = new ArrayList<>(entries.size());
+    for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+      // the access time is read once, the sort must not see it change
+      candidates.add(new Candidate<>(entry.getKey(), entry.getValue(), entry.getValue().lastAccess));
+    }
+    candidates.sort(Comparator.comparingLong(candidate -> candidate.lastAccess));
+    long target = maxWeight - maxWeight / 10;
+    for (int i = 0; i < candidates.size() && weight.get() > target; i++) {
+      Candidate<K, V> candidate = candidates.get(i);
+      if (remove(candidate.key, candidate.entry)) {
+        evictions.increment();
+      }
+    }
+  }
+
+  private boolean remove(K key, Entry<V> entry) {
+    if (entries.remove(key, entry)) {
+      weight.addAndGet(-entry.weight);
+      return true;
+    }
+    return false;
+  }
+
+  public void invalidate(K key) {
+    Entry<V> removed = entries.remove(key);
+    if (removed != null) {
+      weight.addAndGet(-removed.weight);
+    }
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * The sum of the weights of the cached values.
+   */
+  public long getWeight() {
+    return weight.get();
+  }
+
+  /**
+   * The number of calls answered with a value younger than the TTL.
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * The number of calls answered with a value older than the TTL, but younger than the max staleness.
+   */
+  public long getStaleHits() {
+    return staleHits.sum();
+  }
+
+  /**
+   * The number of calls that had no usable value and went through the circuit breaker.
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  private static final class Entry<V> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Entry> REFRESHING = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "refreshing");
+
+    private final V value;
+    private final long weight;
+    private final long loadedAt;
+    private volatile long lastAccess;
+    // 1 while a refresh of the value runs
+    private volatile int refreshing;
+
+    Entry(V value, long weight, long loadedAt) {
+      this.value = value;
+      this.weight = weight;
+      this.loadedAt = loadedAt;
+      this.lastAccess = loadedAt;
+    }
+  }
+
+  private static final class Candidate<K, V> {
+    private final K key;
+    private final Entry<V> entry;
+    private final long lastAccess;
+
+    Candidate(K key, Entry<V> entry, long lastAccess) {
+      this.key = key;
+      this.entry = entry;
+      this.lastAccess = lastAccess;
+    }
+  }
+
+  /**
+   * The TTL and the max staleness default to 1 and 60 seconds, the maximum weight to 64 MiB, and every value is
+   * weighed 1 KiB unless a weigher is given, which bounds the cache to 65536 values.
+   */
+  public static final class Builder<K, V> {
+    private static final long DEFAULT_VALUE_WEIGHT = 1024;
+
+    private final CircuitBreaker circuitBreaker;
+    private Duration ttl = Duration.ofSeconds(1);
+    private Duration maxStaleness = Duration.ofMinutes(1);
+    private long maxWeight = 64 * 1024 * 1024;
+    private ToLongFunction<V> weigher = value -> DEFAULT_VALUE_WEIGHT;
+    private LongSupplier clock = System::nanoTime;
+
+    private Builder(CircuitBreaker circuitBreaker) {
+      this.circuitBreaker = circuitBreaker;
+    }
+
+    public Builder<K, V> ttl(Duration ttl) {
+      this.ttl = ttl;
+      return this;
+    }
+
+    public Builder<K, V> maxStaleness(Duration maxStaleness) {
+      this.maxStaleness = maxStaleness;
+      return this;
+    }
+
+    /**
+     * Bounds the cache to {@code maxWeight} bytes, as estimated by {@code weigher} for each value.
+     */
+    public Builder<K, V> maximumWeight(long maxWeight, ToLongFunction<V> weigher) {
+      this.maxWeight = maxWeight;
+      this.weigher = weigher;
+      return this;
+    }
+
+    Builder<K, V> clock(LongSupplier clock) {
+      this.clock = clock;
+      return this;
+    }
+
+    public StaleWhileRevalidateCache<K, V> build() {
+      return new StaleWhileRevalidateCache<>(this);
+    }
+  }
+}
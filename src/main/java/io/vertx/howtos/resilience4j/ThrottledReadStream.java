@@ -0,0 +1,210 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayDeque;
+
+/**
+ * A {@link ReadStream} of buffers passed on at the rate allowed by a {@link RateLimiter}, where a permit stands for
+ * {@code bytesPerPermit} bytes.
+ * <p>
+ * Every chunk reserves the permits for its size. When the rate limiter asks to wait, the source is paused and the
+ * chunk is passed on once the delay has elapsed, from the {@link CoalescedTimer} of the event loop, before the source
+ * is resumed: the data waits in the source, applying backpressure to the sender, rather than in memory. The chunks a
+ * source still sends once paused are kept and passed on in order, but only as long as the consumer asks for them:
+ * once the stream is paused by its consumer, e.g. by a pipe whose destination is full, they wait for the next
+ * {@link #fetch(long)} or {@link #resume()}, and the source is then asked for no more than the demand left.
+ * <p>
+ * The rate limiter must let a chunk wait long enough: when it cannot grant the permits within its
+ * {@code timeoutDuration}, the source is paused and the exception handler gets a {@link RequestNotPermitted}, which
+ * fails a pipe.
+ */
+public class ThrottledReadStream implements ReadStream<Buffer> {
+  private final Vertx vertx;
+  private final RateLimiter rateLimiter;
+  private final int bytesPerPermit;
+  private final ReadStream<Buffer> source;
+  private final ResilienceMetrics.Recorder recorder;
+  private final Release release = new Release();
+  // the chunks a source sent after being paused, passed on in order once the delayed chunk is released and the
+  // consumer asks for them
+  private final ArrayDeque<Buffer> pending = new ArrayDeque<>();
+
+  private Handler<Buffer> handler;
+  private Handler<Void> endHandler;
+  private Handler<Throwable> exceptionHandler;
+  // the number of chunks the consumer asked for and did not get yet, Long.MAX_VALUE when flowing
+  private long demand = Long.MAX_VALUE;
+  private boolean waiting;
+  private boolean draining;
+  private boolean ended;
+
+  private ThrottledReadStream(Vertx vertx, RateLimiter rateLimiter, int bytesPerPermit, ReadStream<Buffer> source) {
+    if (bytesPerPermit < 1) {
+      throw new IllegalArgumentException("bytesPerPermit must be at least 1");
+    }
+    this.vertx = vertx;
+    this.rateLimiter = rateLimiter;
+    this.bytesPerPermit = bytesPerPermit;
+    this.source = source;
+    this.recorder = ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.RATE_LIMITER, rateLimiter.getName());
+  }
+
+  public static ThrottledReadStream create(Vertx vertx, RateLimiter rateLimiter, int bytesPerPermit, ReadStream<Buffer> source) {
+    return new ThrottledReadStream(vertx, rateLimiter, bytesPerPermit, source);
+  }
+
+  @Override
+  public ThrottledReadStream exceptionHandler(Handler<Throwable> handler) {
+    exceptionHandler = handler;
+    source.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public ThrottledReadStream handler(Handler<Buffer> handler) {
+    this.handler = handler;
+    source.handler(handler != null ? this::onChunk : null);
+    return this;
+  }
+
+  @Override
+  public ThrottledReadStream pause() {
+    demand = 0;
+    source.pause();
+    return this;
+  }
+
+  @Override
+  public ThrottledReadStream resume() {
+    return fetch(Long.MAX_VALUE);
+  }
+
+  @Override
+  public ThrottledReadStream fetch(long amount) {
+    if (amount <= 0) {
+      throw new IllegalArgumentException("amount must be positive");
+    }
+    demand = demand > Long.MAX_VALUE - amount ? Long.MAX_VALUE : demand + amount;
+    // a waiting chunk, or the chunk being passed on, fetches from the source once released
+    if (waiting || draining) {
+      return this;
+    }
+    if (pending.isEmpty()) {
+      source.fetch(amount);
+    } else {
+      drain(null);
+    }
+    return this;
+  }
+
+  @Override
+  public ThrottledReadStream endHandler(Handler<Void> endHandler) {
+    this.endHandler = endHandler;
+    source.endHandler(endHandler != null ? this::onEnd : null);
+    return this;
+  }
+
+  private void onChunk(Buffer chunk) {
+    if (waiting || demand == 0 || !pending.isEmpty()) {
+      pending.add(chunk);
+    } else {
+      charge(chunk);
+    }
+  }
+
+  private void onEnd(Void ignored) {
+    if (waiting || !pending.isEmpty()) {
+      ended = true;
+    } else {
+      endHandler.handle(null);
+    }
+  }
+
+  private void charge(Buffer chunk) {
+    int permits = (chunk.length() + bytesPerPermit - 1) / bytesPerPermit;
+    if (permits == 0) {
+      deliver(chunk);
+      return;
+    }
+
+    long delay = rateLimiter.reservePermission(permits); // result is in nanoseconds
+    if (delay < 0) {
+      recorder.recordRejected();
+      waiting = true;
+      source.pause();
+      Handler<Throwable> exceptionHandler = this.exceptionHandler;
+      if (exceptionHandler != null) {
+        exceptionHandler.handle(RequestNotPermitted.createRequestNotPermitted(rateLimiter));
+      }
+      return;
+    }
+    recorder.recordWait(delay);
+    if (delay == 0) {
+      deliver(chunk);
+    } else {
+      waiting = true;
+      source.pause();
+      release.chunk = chunk;
+      CoalescedTimer.schedule(vertx, ContextInternal.current(), delay, release);
+    }
+  }
+
+  /**
+   * Passes on {@code released}, if any, then the pending chunks the consumer asks for, and fetches the demand left
+   * from the source, which is paused meanwhile, once none is pending.
+   */
+  private void drain(Buffer released) {
+    draining = true;
+    try {
+      if (released != null) {
+        deliver(released);
+      }
+      Buffer next;
+      while (!waiting && demand > 0 && (next = pending.poll()) != null) {
+        charge(next);
+      }
+    } finally {
+      draining = false;
+    }
+    if (waiting || !pending.isEmpty()) {
+      return;
+    }
+    if (ended) {
+      ended = false;
+      if (endHandler != null) {
+        endHandler.handle(null);
+      }
+    } else if (demand > 0) {
+      source.fetch(demand);
+    }
+  }
+
+  private void deliver(Buffer chunk) {
+    if (demand != Long.MAX_VALUE) {
+      demand--;
+    }
+    Handler<Buffer> handler = this.handler;
+    if (handler != null) {
+      handler.handle(chunk);
+    }
+  }
+
+  private final class Release extends CoalescedTimer.Task {
+    private Buffer chunk;
+
+    @Override
+    public void handle(Void ignored) {
+      Buffer released = chunk;
+      chunk = null;
+      waiting = false;
+      drain(released);
+    }
+  }
+}
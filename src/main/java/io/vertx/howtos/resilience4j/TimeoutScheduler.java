@@ -0,0 +1,223 @@
+package io.vertx.howtos.resilience4j;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.vertx.core.ThreadingModel;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.VertxInternal;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Schedules timeouts on a hashed timing wheel local to the calling event loop.
+ * <p>
+ * Scheduling a timeout links it into a wheel slot and cancelling it on the event loop unlinks it, both in constant
+ * time and without touching any state shared with other event loops. A single periodic timer per event loop advances
+ * the wheel while it holds timeouts, so timeouts fire up to one tick late. Timeouts cancelled from another thread are
+ * dropped when the wheel reaches their slot. Callers that are not on an event loop fall back to a Vert.x timer.
+ */
+public class TimeoutScheduler {
+  private static final Duration DEFAULT_TICK = Duration.ofMillis(10);
+  private static final int DEFAULT_WHEEL_SIZE = 512;
+  // the wheels of every scheduler, by scheduler, with weak keys so that the schedulers dropped by their owner do not
+  // leave a wheel behind on every event loop: a wheel does not reference its scheduler, only its pending timeouts do
+  private static final FastThreadLocal<Map<TimeoutScheduler, Wheel>> WHEELS = new FastThreadLocal<>() {
+    @Override
+    protected Map<TimeoutScheduler, Wheel> initialValue() {
+      return new WeakHashMap<>();
+    }
+  };
+
+  private final VertxInternal vertx;
+  private final long tickNanos;
+  private final int wheelSize;
+
+  private TimeoutScheduler(Vertx vertx, Duration tick, int wheelSize) {
+    this.vertx = (VertxInternal) vertx;
+    this.tickNanos = tick.toNanos();
+    this.wheelSize = wheelSize;
+  }
+
+  public static TimeoutScheduler create(Vertx vertx) {
+    return create(vertx, DEFAULT_TICK, DEFAULT_WHEEL_SIZE);
+  }
+
+  /**
+   * Timeouts longer than {@code tick * wheelSize} stay in their slot for several revolutions.
+   * The wheel size is rounded up to a power of two.
+   */
+  public static TimeoutScheduler create(Vertx vertx, Duration tick, int wheelSize) {
+    if (tick.toMillis() < 1) {
+      throw new IllegalArgumentException("tick must be at least 1 millisecond");
+    }
+    if (wheelSize < 1 || wheelSize > 1 << 20) {
+      throw new IllegalArgumentException("wheelSize must be between 1 and 2^20");
+    }
+    int size = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+    return new TimeoutScheduler(vertx, tick, size);
+  }
+
+  /**
+   * Schedules {@code timeout} to fire after {@code delayMillis}, on the event loop of {@code ctx} when it has one.
+   * A timeout can only be scheduled once.
+   */
+  public void schedule(ContextInternal ctx, Timeout timeout, long delayMillis) {
+    timeout.scheduler = this;
+    if (ctx != null && ctx.isEventLoopContext() && ctx.nettyEventLoop().inEventLoop()) {
+      Map<TimeoutScheduler, Wheel> wheels = WHEELS.get();
+      Wheel wheel = wheels.get(this);
+      if (wheel == null) {
+        wheel = new Wheel(this, ctx.nettyEventLoop());
+        wheels.put(this, wheel);
+      }
+      wheel.add(timeout, TimeUnit.MILLISECONDS.toNanos(delayMillis));
+    } else {
+      timeout.timerId = vertx.setTimer(Math.max(1, delayMillis), ignored -> timeout.expire());
+    }
+  }
+
+  /**
+   * A timeout to extend with the action to run on expiration.
+   */
+  public abstract static class Timeout {
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private volatile int state;
+    private TimeoutScheduler scheduler;
+    private long timerId = -1;
+
+    // only accessed by the event loop of the wheel
+    private Wheel wheel;
+    private long deadlineTick;
+    private Timeout previous;
+    private Timeout next;
+
+    /**
+     * Called at most once, unless the timeout was cancelled first.
+     */
+    protected abstract void onTimeout();
+
+    /**
+     * Returns {@code true} when the timeout was cancelled before it expired.
+     */
+    public boolean cancel() {
+      if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+        return false;
+      }
+      if (timerId != -1) {
+        scheduler.vertx.cancelTimer(timerId);
+      } else if (wheel != null && wheel.eventLoop.inEventLoop()) {
+        wheel.remove(this);
+      }
+      return true;
+    }
+
+    private void expire() {
+      if (STATE.compareAndSet(this, PENDING, EXPIRED)) {
+        onTimeout();
+      }
+    }
+  }
+
+  private static final class Wheel {
+    private final long tickNanos;
+    private final EventLoop eventLoop;
+    private final ContextInternal context;
+    private final Timeout[] slots;
+    private final int mask;
+    private final long start = System.nanoTime();
+    private final List<Timeout> expired = new ArrayList<>();
+    private long processedTick;
+    private int size;
+    private long timerId = -1;
+
+    Wheel(TimeoutScheduler scheduler, EventLoop eventLoop) {
+      this.tickNanos = scheduler.tickNanos;
+      this.eventLoop = eventLoop;
+      this.context = scheduler.vertx.contextBuilder()
+        .withThreadingModel(ThreadingModel.EVENT_LOOP)
+        .withEventLoop(eventLoop)
+        .build();
+      this.slots = new Timeout[scheduler.wheelSize];
+      this.mask = scheduler.wheelSize - 1;
+    }
+
+    private long currentTick() {
+      return (System.nanoTime() - start) / tickNanos;
+    }
+
+    void add(Timeout timeout, long delayNanos) {
+      if (timerId == -1) {
+        processedTick = currentTick();
+        timerId = context.setPeriodic(TimeUnit.NANOSECONDS.toMillis(tickNanos), ignored -> advance());
+      }
+
+      long deadlineTick = (System.nanoTime() - start + delayNanos + tickNanos - 1) / tickNanos;
+      timeout.wheel = this;
+      timeout.deadlineTick = Math.max(deadlineTick, processedTick + 1);
+      int index = (int) (timeout.deadlineTick & mask);
+      Timeout head = slots[index];
+      timeout.next = head;
+      if (head != null) {
+        head.previous = timeout;
+      }
+      slots[index] = timeout;
+      size++;
+    }
+
+    void remove(Timeout timeout) {
+      if (timeout.previous != null) {
+        timeout.previous.next = timeout.next;
+      } else {
+        slots[(int) (timeout.deadlineTick & mask)] = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.previous = timeout.previous;
+      }
+      timeout.previous = null;
+      timeout.next = null;
+      timeout.wheel = null;
+      size--;
+    }
+
+    private void advance() {
+      long tick = currentTick();
+      // when the timer runs late, catch up on the missed slots, at most one revolution
+      for (long t = Math.max(processedTick + 1, tick - mask); t <= tick; t++) {
+        Timeout timeout = slots[(int) (t & mask)];
+        while (timeout != null) {
+          Timeout next = timeout.next;
+          if (timeout.state != Timeout.PENDING) {
+            remove(timeout);
+          } else if (timeout.deadlineTick <= tick) {
+            remove(timeout);
+            expired.add(timeout);
+          }
+          timeout = next;
+        }
+      }
+      processedTick = tick;
+
+      if (size == 0) {
+        context.owner().cancelTimer(timerId);
+        timerId = -1;
+      }
+
+      // expiration handlers may schedule or cancel timeouts, so they run once the slots are consistent
+      for (int i = 0; i < expired.size(); i++) {
+        expired.get(i).expire();
+      }
+      expired.clear();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package io.vertx.howtos.resilience4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free bucket of fractional tokens, used to cap extra traffic (hedges, retries) at a ratio of the regular traffic.
+ */
+class TokenBucket {
+  private static final long TOKEN = 1000;
+
+  private final long deposit;
+  private final long maxBalance;
+  private final AtomicLong balance;
+
+  TokenBucket(double ratio, int maxTokens) {
+    this.deposit = (long) (ratio * TOKEN);
+    this.maxBalance = maxTokens * TOKEN;
+    this.balance = new AtomicLong(maxBalance);
+  }
+
+  void deposit() {
+    if (deposit == 0) {
+      return;
+    }
+    long current;
+    do {
+      current = balance.get();
+      if (current >= maxBalance) {
+        return;
+      }
+    } while (!balance.compareAndSet(current, Math.min(maxBalance, current + deposit)));
+  }
+
+  boolean tryWithdraw() {
+    long current;
+    do {
+      current = balance.get();
+      if (current < TOKEN) {
+        return false;
+      }
+    } while (!balance.compareAndSet(current, current - TOKEN));
+    return true;
+  }
+
+  void refund() {
+    balance.accumulateAndGet(TOKEN, (current, token) -> Math.min(maxBalance, current + token));
+  }
+
+  double getAvailableTokens() {
+    return (double) balance.get() / TOKEN;
+  }
+}
@@ -0,0 +1,66 @@
+package io.vertx.howtos.resilience4j;
+
+/**
+ * TCP Vegas style limit: estimates the queue at the downstream as {@code limit * (1 - minRtt / rtt)}
+ * and grows the limit while the queue is short, shrinking it once the queue builds up.
+ * The minimum RTT is re-probed every 1000 samples so that it can follow a slower baseline.
+ */
+public class VegasLimit implements LimitAlgorithm {
+  private static final int PROBE_INTERVAL = 1000;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private double limit;
+  private long minRttNanos;
+  private int samplesSinceProbe;
+
+  public VegasLimit(int initialLimit, int minLimit, int maxLimit) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = initialLimit;
+  }
+
+  @Override
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  @Override
+  public int update(long rttNanos, int inFlight, boolean dropped) {
+    if (++samplesSinceProbe >= PROBE_INTERVAL) {
+      samplesSinceProbe = 0;
+      minRttNanos = 0;
+    }
+    if (rttNanos <= 0) {
+      return getLimit();
+    }
+    if (minRttNanos == 0 || rttNanos < minRttNanos) {
+      minRttNanos = rttNanos;
+      return getLimit();
+    }
+
+    double log = Math.max(1, Math.log10(limit));
+    double alpha = 3 * log;
+    double beta = 6 * log;
+    double queueSize = Math.ceil(limit * (1 - (double) minRttNanos / rttNanos));
+
+    double newLimit;
+    if (dropped) {
+      newLimit = limit - log;
+    } else if (inFlight * 2 < limit) {
+      // the limit is not what holds the traffic back
+      return getLimit();
+    } else if (queueSize <= log) {
+      newLimit = limit + beta;
+    } else if (queueSize < alpha) {
+      newLimit = limit + log;
+    } else if (queueSize > beta) {
+      newLimit = limit - log;
+    } else {
+      return getLimit();
+    }
+
+    limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    return getLimit();
+  }
+}
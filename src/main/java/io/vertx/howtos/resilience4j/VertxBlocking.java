@@ -0,0 +1,43 @@
+package io.vertx.howtos.resilience4j;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.VertxInternal;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking work off the event loop, so the {@code executeCallable} variants of the wrappers can guard it like
+ * any asynchronous call.
+ * <p>
+ * Each call runs on a virtual thread of its own when the JVM supports them, so blocking calls do not need a large
+ * pool of platform threads; otherwise it runs on the worker pool of the calling context, without ordering. The
+ * result is delivered on the calling context.
+ */
+public class VertxBlocking {
+  public static <T> Future<T> execute(Vertx vertx, Callable<T> callable) {
+    VertxInternal vertxInternal = (VertxInternal) vertx;
+    if (!vertxInternal.isVirtualThreadAvailable()) {
+      return vertx.executeBlocking(callable, false);
+    }
+
+    ContextInternal ctx = ContextInternal.current();
+    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+    // a context per call: the tasks of a virtual thread context run one after the other
+    vertxInternal.createVirtualThreadContext().runOnContext(ignored -> {
+      try {
+        promise.complete(callable.call());
+      } catch (Throwable t) {
+        promise.fail(t);
+      }
+    });
+    return promise.future();
+  }
+
+  public static <T> Supplier<Future<T>> supplier(Vertx vertx, Callable<T> callable) {
+    return () -> execute(vertx, callable);
+  }
+}
@@ -2,33 +2,43 @@ package io.vertx.howtos.resilience4j;
 
 import io.github.resilience4j.bulkhead.Bulkhead;
 import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.core.internal.ContextInternal;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Supplier;
 
 public class VertxBulkhead {
   public static <T> Future<T> executeFuture(Bulkhead bulkhead, Supplier<Future<T>> supplier) {
-    ContextInternal ctx = ContextInternal.current();
-    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+    ResilienceMetrics.Recorder recorder = ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.BULKHEAD, bulkhead.getName());
 
     if (!bulkhead.tryAcquirePermission()) {
-      promise.fail(BulkheadFullException.createBulkheadFullException(bulkhead));
-    } else {
-      try {
-        supplier.get().onComplete(result -> {
-          bulkhead.onComplete();
-          if (result.failed()) {
-            promise.fail(result.cause());
-          } else {
-            promise.complete(result.result());
-          }
-        });
-      } catch (Exception throwable) {
+      recorder.recordRejected();
+      return reject(bulkhead);
+    }
+
+    ContextInternal ctx = ContextInternal.current();
+    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+    long start = System.nanoTime();
+    try {
+      supplier.get().onComplete(result -> {
         bulkhead.onComplete();
-        promise.fail(throwable);
-      }
+        recorder.record(result.failed() ? ResilienceMetrics.Outcome.FAILURE : ResilienceMetrics.Outcome.SUCCESS, System.nanoTime() - start);
+        if (result.failed()) {
+          promise.fail(result.cause());
+        } else {
+          promise.complete(result.result());
+        }
+      });
+    } catch (Exception throwable) {
+      bulkhead.onComplete();
+      recorder.record(ResilienceMetrics.Outcome.FAILURE, System.nanoTime() - start);
+      promise.fail(throwable);
     }
 
     return promise.future();
@@ -37,4 +47,111 @@ public class VertxBulkhead {
   public static <T> Supplier<Future<T>> decorateFuture(Bulkhead bulkhead, Supplier<Future<T>> supplier) {
     return () -> executeFuture(bulkhead, supplier);
   }
+
+  /**
+   * Same as {@link #executeFuture(Bulkhead, Supplier)} for blocking work, run off the event loop by
+   * {@link VertxBlocking}.
+   */
+  public static <T> Future<T> executeCallable(Bulkhead bulkhead, Vertx vertx, Callable<T> callable) {
+    return executeFuture(bulkhead, VertxBlocking.supplier(vertx, callable));
+  }
+
+  public static <T> Supplier<Future<T>> decorateCallable(Bulkhead bulkhead, Vertx vertx, Callable<T> callable) {
+    return () -> executeCallable(bulkhead, vertx, callable);
+  }
+
+  /**
+   * Runs blocking work on the threads of {@code bulkhead}, which bounds both the threads and the queued calls.
+   */
+  public static <T> Future<T> executeCallable(ThreadPoolBulkhead bulkhead, Callable<T> callable) {
+    ContextInternal ctx = ContextInternal.current();
+    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+    ResilienceMetrics.Recorder recorder = ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.BULKHEAD, bulkhead.getName());
+
+    long start = System.nanoTime();
+    CompletionStage<T> stage;
+    try {
+      stage = bulkhead.submit(callable);
+    } catch (BulkheadFullException e) {
+      recorder.recordRejected();
+      promise.fail(e);
+      return promise.future();
+    }
+    stage.whenComplete((result, failure) -> {
+      if (failure != null) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        recorder.record(ResilienceMetrics.Outcome.FAILURE, System.nanoTime() - start);
+        promise.fail(cause);
+      } else {
+        recorder.record(ResilienceMetrics.Outcome.SUCCESS, System.nanoTime() - start);
+        promise.complete(result);
+      }
+    });
+
+    return promise.future();
+  }
+
+  public static <T> Supplier<Future<T>> decorateCallable(ThreadPoolBulkhead bulkhead, Callable<T> callable) {
+    return () -> executeCallable(bulkhead, callable);
+  }
+
+  public static <T> Future<T> executeFuture(AdaptiveBulkhead bulkhead, Supplier<Future<T>> supplier) {
+    ResilienceMetrics.Recorder recorder = ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.BULKHEAD, bulkhead.getBulkhead().getName());
+    recorder.bind(bulkhead);
+
+    int inFlight = bulkhead.tryAcquirePermission();
+    if (inFlight < 0) {
+      recorder.recordRejected();
+      return reject(bulkhead.getBulkhead());
+    }
+
+    ContextInternal ctx = ContextInternal.current();
+    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+    long start = System.nanoTime();
+    try {
+      supplier.get().onComplete(result -> {
+        long duration = System.nanoTime() - start;
+        bulkhead.onComplete(duration, inFlight, result.cause());
+        recorder.record(result.failed() ? ResilienceMetrics.Outcome.FAILURE : ResilienceMetrics.Outcome.SUCCESS, duration);
+        if (result.failed()) {
+          promise.fail(result.cause());
+        } else {
+          promise.complete(result.result());
+        }
+      });
+    } catch (Exception throwable) {
+      long duration = System.nanoTime() - start;
+      bulkhead.onComplete(duration, inFlight, throwable);
+      recorder.record(ResilienceMetrics.Outcome.FAILURE, duration);
+      promise.fail(throwable);
+    }
+
+    return promise.future();
+  }
+
+  public static <T> Supplier<Future<T>> decorateFuture(AdaptiveBulkhead bulkhead, Supplier<Future<T>> supplier) {
+    return () -> executeFuture(bulkhead, supplier);
+  }
+
+  public static <T> Future<T> executeFuture(QueuedBulkhead bulkhead, Supplier<Future<T>> supplier) {
+    ContextInternal ctx = ContextInternal.current();
+    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+
+    bulkhead.execute(ctx, promise, supplier);
+
+    return promise.future();
+  }
+
+  public static <T> Supplier<Future<T>> decorateFuture(QueuedBulkhead bulkhead, Supplier<Future<T>> supplier) {
+    return () -> executeFuture(bulkhead, supplier);
+  }
+
+  private static <T> Future<T> reject(Bulkhead bulkhead) {
+    if (Rejections.isEnabled(bulkhead)) {
+      return Rejections.reject(bulkhead);
+    }
+    ContextInternal ctx = ContextInternal.current();
+    BulkheadFullException exception = BulkheadFullException.createBulkheadFullException(bulkhead);
+    return ctx != null ? ctx.failedFuture(exception) : Future.failedFuture(exception);
+  }
 }
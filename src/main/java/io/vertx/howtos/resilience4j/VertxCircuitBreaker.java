@@ -4,35 +4,46 @@ import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.core.internal.ContextInternal;
 
+import java.util.concurrent.Callable;
 import java.util.function.Supplier;
 
 public class VertxCircuitBreaker {
   public static <T> Future<T> executeFuture(CircuitBreaker circuitBreaker, Supplier<Future<T>> supplier) {
+    ResilienceMetrics.Recorder recorder = ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.CIRCUIT_BREAKER, circuitBreaker.getName());
     ContextInternal ctx = ContextInternal.current();
-    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
-
     if (!circuitBreaker.tryAcquirePermission()) {
-      promise.fail(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
-    } else {
-      long start = circuitBreaker.getCurrentTimestamp();
-      try {
-        supplier.get().onComplete(result -> {
-          long duration = circuitBreaker.getCurrentTimestamp() - start;
-          if (result.failed()) {
-            circuitBreaker.onError(duration, circuitBreaker.getTimestampUnit(), result.cause());
-            promise.fail(result.cause());
-          } else {
-            circuitBreaker.onResult(duration, circuitBreaker.getTimestampUnit(), result.result());
-            promise.complete(result.result());
-          }
-        });
-      } catch (Exception exception) {
-        long duration = circuitBreaker.getCurrentTimestamp() - start;
-        circuitBreaker.onError(duration, circuitBreaker.getTimestampUnit(), exception);
-        promise.fail(exception);
+      recorder.recordRejected();
+      if (Rejections.isEnabled(circuitBreaker)) {
+        return Rejections.reject(circuitBreaker);
       }
+      CallNotPermittedException exception = CallNotPermittedException.createCallNotPermittedException(circuitBreaker);
+      return ctx != null ? ctx.failedFuture(exception) : Future.failedFuture(exception);
+    }
+
+    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+    long start = circuitBreaker.getCurrentTimestamp();
+    try {
+      supplier.get().onComplete(result -> {
+        long duration = circuitBreaker.getCurrentTimestamp() - start;
+        long durationNanos = circuitBreaker.getTimestampUnit().toNanos(duration);
+        if (result.failed()) {
+          recorder.record(ResilienceMetrics.Outcome.FAILURE, durationNanos);
+          circuitBreaker.onError(duration, circuitBreaker.getTimestampUnit(), result.cause());
+          promise.fail(result.cause());
+        } else {
+          recorder.record(ResilienceMetrics.Outcome.SUCCESS, durationNanos);
+          circuitBreaker.onResult(duration, circuitBreaker.getTimestampUnit(), result.result());
+          promise.complete(result.result());
+        }
+      });
+    } catch (Exception exception) {
+      long duration = circuitBreaker.getCurrentTimestamp() - start;
+      recorder.record(ResilienceMetrics.Outcome.FAILURE, circuitBreaker.getTimestampUnit().toNanos(duration));
+      circuitBreaker.onError(duration, circuitBreaker.getTimestampUnit(), exception);
+      promise.fail(exception);
     }
 
     return promise.future();
@@ -41,4 +52,66 @@ public class VertxCircuitBreaker {
   public static <T> Supplier<Future<T>> decorateFuture(CircuitBreaker circuitBreaker, Supplier<Future<T>> supplier) {
     return () -> executeFuture(circuitBreaker, supplier);
   }
+
+  /**
+   * Same as {@link #executeFuture(CircuitBreaker, Supplier)} for blocking work, run off the event loop by
+   * {@link VertxBlocking}.
+   */
+  public static <T> Future<T> executeCallable(CircuitBreaker circuitBreaker, Vertx vertx, Callable<T> callable) {
+    return executeFuture(circuitBreaker, VertxBlocking.supplier(vertx, callable));
+  }
+
+  public static <T> Supplier<Future<T>> decorateCallable(CircuitBreaker circuitBreaker, Vertx vertx, Callable<T> callable) {
+    return () -> executeCallable(circuitBreaker, vertx, callable);
+  }
+
+  public static <T> Future<T> executeFuture(ShardedCircuitBreaker circuitBreaker, Supplier<Future<T>> supplier) {
+    ContextInternal ctx = ContextInternal.current();
+    ShardedCircuitBreaker.Shard shard = circuitBreaker.localShard(ctx);
+    if (shard == null) {
+      return executeFuture(circuitBreaker.getCircuitBreaker(), supplier);
+    }
+
+    // calls permitted by a shard are not recorded to the ResilienceMetrics, whose shared counters would be contended
+    // by all the event loops again
+    Promise<T> promise = ctx.promise();
+    long start = System.nanoTime();
+    try {
+      supplier.get().onComplete(result -> {
+        long duration = System.nanoTime() - start;
+        if (result.failed()) {
+          shard.onError(duration, result.cause());
+          promise.fail(result.cause());
+        } else {
+          shard.onResult(duration, result.result());
+          promise.complete(result.result());
+        }
+      });
+    } catch (Exception exception) {
+      long duration = System.nanoTime() - start;
+      shard.onError(duration, exception);
+      promise.fail(exception);
+    }
+
+    return promise.future();
+  }
+
+  public static <T> Supplier<Future<T>> decorateFuture(ShardedCircuitBreaker circuitBreaker, Supplier<Future<T>> supplier) {
+    return () -> executeFuture(circuitBreaker, supplier);
+  }
+
+  /**
+   * Same as {@link #executeFuture(CircuitBreaker, Supplier)}, also recording the latency of the call in the
+   * tail quantile of {@code circuitBreaker}.
+   */
+  public static <T> Future<T> executeFuture(QuantileCircuitBreaker circuitBreaker, Supplier<Future<T>> supplier) {
+    return executeFuture(circuitBreaker.getCircuitBreaker(), () -> {
+      long start = System.nanoTime();
+      return supplier.get().andThen(ignored -> circuitBreaker.record(System.nanoTime() - start));
+    });
+  }
+
+  public static <T> Supplier<Future<T>> decorateFuture(QuantileCircuitBreaker circuitBreaker, Supplier<Future<T>> supplier) {
+    return () -> executeFuture(circuitBreaker, supplier);
+  }
 }
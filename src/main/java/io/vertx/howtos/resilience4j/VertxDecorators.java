@@ -0,0 +1,289 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.ContextInternal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Supplier;
+
+/**
+ * Combines any subset of the resilience policies into a single execution, equivalent to nesting
+ * {@code Retry(CircuitBreaker(RateLimiter(TimeLimiter(Bulkhead(supplier)))))} with the
+ * {@code Vertx*} adapters, but with one context lookup and one result promise per call.
+ */
+public class VertxDecorators {
+  public static <T> DecorateFuture<T> ofSupplier(Vertx vertx, Supplier<Future<T>> supplier) {
+    return new DecorateFuture<>(vertx, supplier);
+  }
+
+  public static class DecorateFuture<T> {
+    private final Vertx vertx;
+    private final Supplier<Future<T>> supplier;
+    private Retry retry;
+    private CircuitBreaker circuitBreaker;
+    private RateLimiter rateLimiter;
+    private int permits;
+    private TimeLimiter timeLimiter;
+    private Bulkhead bulkhead;
+
+    private DecorateFuture(Vertx vertx, Supplier<Future<T>> supplier) {
+      this.vertx = vertx;
+      this.supplier = supplier;
+    }
+
+    public DecorateFuture<T> withRetry(Retry retry) {
+      this.retry = retry;
+      return this;
+    }
+
+    public DecorateFuture<T> withCircuitBreaker(CircuitBreaker circuitBreaker) {
+      this.circuitBreaker = circuitBreaker;
+      return this;
+    }
+
+    public DecorateFuture<T> withRateLimiter(RateLimiter rateLimiter) {
+      return withRateLimiter(rateLimiter, 1);
+    }
+
+    public DecorateFuture<T> withRateLimiter(RateLimiter rateLimiter, int permits) {
+      this.rateLimiter = rateLimiter;
+      this.permits = permits;
+      return this;
+    }
+
+    public DecorateFuture<T> withTimeLimiter(TimeLimiter timeLimiter) {
+      this.timeLimiter = timeLimiter;
+      return this;
+    }
+
+    public DecorateFuture<T> withBulkhead(Bulkhead bulkhead) {
+      this.bulkhead = bulkhead;
+      return this;
+    }
+
+    public Supplier<Future<T>> decorate() {
+      return new Pipeline<>(this)::execute;
+    }
+
+    public Future<T> get() {
+      return decorate().get();
+    }
+  }
+
+  private static final class Pipeline<T> {
+    private final Vertx vertx;
+    private final Supplier<Future<T>> supplier;
+    private final Retry retry;
+    private final CircuitBreaker circuitBreaker;
+    private final RateLimiter rateLimiter;
+    private final int permits;
+    private final TimeLimiter timeLimiter;
+    private final long timeoutMillis;
+    private final Bulkhead bulkhead;
+
+    Pipeline(DecorateFuture<T> builder) {
+      this.vertx = builder.vertx;
+      this.supplier = builder.supplier;
+      this.retry = builder.retry;
+      this.circuitBreaker = builder.circuitBreaker;
+      this.rateLimiter = builder.rateLimiter;
+      this.permits = builder.permits;
+      this.timeLimiter = builder.timeLimiter;
+      this.timeoutMillis = timeLimiter != null ? timeLimiter.getTimeLimiterConfig().getTimeoutDuration().toMillis() : 0;
+      this.bulkhead = builder.bulkhead;
+    }
+
+    Future<T> execute() {
+      ContextInternal ctx = ContextInternal.current();
+      Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+
+      new Execution<>(this, promise).attempt();
+
+      return promise.future();
+    }
+  }
+
+  private static final class Execution<T> implements Handler<Long> {
+    private final Pipeline<T> pipeline;
+    private final Promise<T> promise;
+    private final Retry.AsyncContext<T> retryContext;
+
+    Execution(Pipeline<T> pipeline, Promise<T> promise) {
+      this.pipeline = pipeline;
+      this.promise = promise;
+      this.retryContext = pipeline.retry != null ? pipeline.retry.asyncContext() : null;
+    }
+
+    @Override
+    public void handle(Long ignored) {
+      attempt();
+    }
+
+    void attempt() {
+      CircuitBreaker circuitBreaker = pipeline.circuitBreaker;
+      long start = 0;
+      if (circuitBreaker != null) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+          onAttemptComplete(null, CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+          return;
+        }
+        start = circuitBreaker.getCurrentTimestamp();
+      }
+
+      Attempt<T> attempt = new Attempt<>(this, start);
+      RateLimiter rateLimiter = pipeline.rateLimiter;
+      if (rateLimiter != null) {
+        long delay = rateLimiter.reservePermission(pipeline.permits); // result is in nanoseconds
+        if (delay < 0) {
+          attempt.record(null, RequestNotPermitted.createRequestNotPermitted(rateLimiter), false);
+          return;
+        } else if (delay > 0) {
+          pipeline.vertx.setTimer(TimeUnit.NANOSECONDS.toMillis(delay), ignored -> attempt.run());
+          return;
+        }
+      }
+      attempt.run();
+    }
+
+    void onAttemptComplete(T result, Throwable failure) {
+      if (retryContext == null) {
+        if (failure != null) {
+          promise.fail(failure);
+        } else {
+          promise.complete(result);
+        }
+      } else if (failure != null) {
+        if (!(failure instanceof Exception)) {
+          promise.fail(failure);
+          return;
+        }
+        long delay = retryContext.onError((Exception) failure);
+        if (delay < 1) {
+          promise.fail(failure);
+        } else {
+          pipeline.vertx.setTimer(delay, this);
+        }
+      } else {
+        long delay = retryContext.onResult(result);
+        if (delay < 1) {
+          try {
+            retryContext.onComplete();
+            promise.complete(result);
+          } catch (Exception e) {
+            promise.fail(e);
+          }
+        } else {
+          pipeline.vertx.setTimer(delay, this);
+        }
+      }
+    }
+  }
+
+  private static final class Attempt<T> implements Handler<AsyncResult<T>> {
+    // a class literal cannot name Attempt<?>, hence the cast through Class<?>
+    @SuppressWarnings("unchecked")
+    private static final AtomicIntegerFieldUpdater<Attempt<?>> DONE =
+      AtomicIntegerFieldUpdater.newUpdater((Class<Attempt<?>>) (Class<?>) Attempt.class, "done");
+
+    private final Execution<T> execution;
+    private final Pipeline<T> pipeline;
+    private final long start;
+    private long timerId = -1;
+    private volatile int done;
+
+    Attempt(Execution<T> execution, long start) {
+      this.execution = execution;
+      this.pipeline = execution.pipeline;
+      this.start = start;
+    }
+
+    void run() {
+      TimeLimiter timeLimiter = pipeline.timeLimiter;
+      if (timeLimiter != null) {
+        timerId = pipeline.vertx.setTimer(pipeline.timeoutMillis, ignored -> {
+          TimeoutException exception = TimeLimiter.createdTimeoutExceptionWithName(timeLimiter.getName(), null);
+          if (DONE.compareAndSet(this, 0, 1)) {
+            timeLimiter.onError(exception);
+            record(null, exception, true);
+          }
+        });
+      }
+
+      Bulkhead bulkhead = pipeline.bulkhead;
+      if (bulkhead != null && !bulkhead.tryAcquirePermission()) {
+        complete(null, BulkheadFullException.createBulkheadFullException(bulkhead));
+        return;
+      }
+
+      try {
+        pipeline.supplier.get().onComplete(this);
+      } catch (Exception exception) {
+        if (bulkhead != null) {
+          bulkhead.onComplete();
+        }
+        complete(null, exception);
+      }
+    }
+
+    @Override
+    public void handle(AsyncResult<T> result) {
+      if (pipeline.bulkhead != null) {
+        pipeline.bulkhead.onComplete();
+      }
+      complete(result.result(), result.cause());
+    }
+
+    private void complete(T result, Throwable failure) {
+      if (!DONE.compareAndSet(this, 0, 1)) {
+        return;
+      }
+      TimeLimiter timeLimiter = pipeline.timeLimiter;
+      if (timeLimiter != null) {
+        pipeline.vertx.cancelTimer(timerId);
+        if (failure != null) {
+          timeLimiter.onError(failure);
+        } else {
+          timeLimiter.onSuccess();
+        }
+      }
+      record(result, failure, true);
+    }
+
+    void record(T result, Throwable failure, boolean permittedByRateLimiter) {
+      RateLimiter rateLimiter = pipeline.rateLimiter;
+      if (rateLimiter != null && permittedByRateLimiter) {
+        if (failure != null) {
+          rateLimiter.onError(failure);
+        } else {
+          rateLimiter.onResult(result);
+        }
+      }
+
+      CircuitBreaker circuitBreaker = pipeline.circuitBreaker;
+      if (circuitBreaker != null) {
+        long duration = circuitBreaker.getCurrentTimestamp() - start;
+        if (failure != null) {
+          circuitBreaker.onError(duration, circuitBreaker.getTimestampUnit(), failure);
+        } else {
+          circuitBreaker.onResult(duration, circuitBreaker.getTimestampUnit(), result);
+        }
+      }
+
+      execution.onAttemptComplete(result, failure);
+    }
+  }
+}
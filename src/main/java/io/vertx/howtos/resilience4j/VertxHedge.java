@@ -0,0 +1,109 @@
+package io.vertx.howtos.resilience4j;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.ContextInternal;
+
+import java.util.function.Supplier;
+
+public class VertxHedge {
+  public static <T> Future<T> executeFuture(Hedge hedge, Vertx vertx, Supplier<Future<T>> supplier) {
+    ContextInternal ctx = ContextInternal.current();
+    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+
+    new HedgedCall<>(hedge, vertx, supplier, promise).run();
+
+    return promise.future();
+  }
+
+  public static <T> Supplier<Future<T>> decorateFuture(Hedge hedge, Vertx vertx, Supplier<Future<T>> supplier) {
+    return () -> executeFuture(hedge, vertx, supplier);
+  }
+
+  private static class HedgedCall<T> implements Handler<Long> {
+    private final Hedge hedge;
+    private final Vertx vertx;
+    private final Supplier<Future<T>> supplier;
+    private final Promise<T> promise;
+    private final long start = System.nanoTime();
+    private int hedges;
+    private int outstanding;
+    private boolean done;
+    private long timerId = -1;
+
+    HedgedCall(Hedge hedge, Vertx vertx, Supplier<Future<T>> supplier, Promise<T> promise) {
+      this.hedge = hedge;
+      this.vertx = vertx;
+      this.supplier = supplier;
+      this.promise = promise;
+    }
+
+    void run() {
+      hedge.onCall();
+      synchronized (this) {
+        outstanding++;
+        scheduleHedge();
+      }
+      invoke(true);
+    }
+
+    // hedge delay elapsed
+    @Override
+    public void handle(Long ignored) {
+      synchronized (this) {
+        timerId = -1;
+        if (done || hedges >= hedge.getHedgeConfig().getMaxHedges() || !hedge.tryAcquireHedge()) {
+          return;
+        }
+        hedges++;
+        outstanding++;
+        scheduleHedge();
+      }
+      invoke(false);
+    }
+
+    // must be called while holding the lock
+    private void scheduleHedge() {
+      if (hedges < hedge.getHedgeConfig().getMaxHedges()) {
+        timerId = vertx.setTimer(hedge.getDelayMillis(), this);
+      }
+    }
+
+    private void invoke(boolean first) {
+      Handler<AsyncResult<T>> handler = result -> {
+        if (first) {
+          hedge.onFirstAttemptComplete(System.nanoTime() - start);
+        }
+        onAttemptComplete(result);
+      };
+      try {
+        supplier.get().onComplete(handler);
+      } catch (Exception e) {
+        handler.handle(Future.failedFuture(e));
+      }
+    }
+
+    private void onAttemptComplete(AsyncResult<T> result) {
+      synchronized (this) {
+        outstanding--;
+        if (done || (result.failed() && outstanding > 0)) {
+          return;
+        }
+        // the first success wins, a failure only once every attempt failed
+        done = true;
+        if (timerId != -1) {
+          vertx.cancelTimer(timerId);
+          timerId = -1;
+        }
+      }
+      if (result.succeeded()) {
+        promise.tryComplete(result.result());
+      } else {
+        promise.tryFail(result.cause());
+      }
+    }
+  }
+}
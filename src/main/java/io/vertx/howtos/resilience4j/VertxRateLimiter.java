@@ -5,9 +5,12 @@ import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
 
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 import java.util.function.Supplier;
 
 public class VertxRateLimiter {
@@ -16,21 +19,32 @@ public class VertxRateLimiter {
   }
 
   public static <T> Future<T> executeFuture(RateLimiter rateLimiter, int permits, Supplier<Future<T>> supplier, Vertx vertx) {
+    long delay = rateLimiter.reservePermission(permits); // result is in nanoseconds
+    return execute(ContextInternal.current(), delay, rateLimiter, supplier, vertx);
+  }
+
+  public static <T> Future<T> executeFuture(LeasingRateLimiter rateLimiter, Supplier<Future<T>> supplier, Vertx vertx) {
+    return executeFuture(rateLimiter, 1, supplier, vertx);
+  }
+
+  public static <T> Future<T> executeFuture(LeasingRateLimiter rateLimiter, int permits, Supplier<Future<T>> supplier, Vertx vertx) {
     ContextInternal ctx = ContextInternal.current();
-    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+    long delay = rateLimiter.reservePermission(ctx, permits);
+    return execute(ctx, delay, rateLimiter.getRateLimiter(), supplier, vertx);
+  }
 
-    long delay = rateLimiter.reservePermission(permits); // result is in nanoseconds
-    if (delay < 0) {
-      promise.fail(RequestNotPermitted.createRequestNotPermitted(rateLimiter));
-    } else if (delay == 0) {
-      invokePermitted(promise, rateLimiter, supplier);
-    } else {
-      vertx.setTimer(TimeUnit.NANOSECONDS.toMillis(delay), ignored -> {
-        invokePermitted(promise, rateLimiter, supplier);
-      });
-    }
+  public static <T> Future<T> executeFuture(DistributedRateLimiter rateLimiter, Supplier<Future<T>> supplier, Vertx vertx) {
+    return executeFuture(rateLimiter, 1, supplier, vertx);
+  }
 
-    return promise.future();
+  public static <T> Future<T> executeFuture(DistributedRateLimiter rateLimiter, int permits, Supplier<Future<T>> supplier, Vertx vertx) {
+    ContextInternal ctx = ContextInternal.current();
+    Future<Long> delay = rateLimiter.reservePermission(permits);
+    if (delay.isComplete()) {
+      return execute(ctx, delay.result(), rateLimiter.getFallback(), supplier, vertx);
+    }
+    // waits for the block being leased
+    return delay.compose(nanos -> execute(ctx, nanos, rateLimiter.getFallback(), supplier, vertx));
   }
 
   public static <T> Supplier<Future<T>> decorateFuture(RateLimiter rateLimiter, Supplier<Future<T>> supplier, Vertx vertx) {
@@ -41,20 +55,110 @@ public class VertxRateLimiter {
     return () -> executeFuture(rateLimiter, permits, supplier, vertx);
   }
 
-  private static <T> void invokePermitted(Promise<T> promise, RateLimiter rateLimiter, Supplier<Future<T>> supplier) {
+  /**
+   * Same as {@link #executeFuture(RateLimiter, Supplier, Vertx)} for blocking work, run off the event loop by
+   * {@link VertxBlocking}.
+   */
+  public static <T> Future<T> executeCallable(RateLimiter rateLimiter, Callable<T> callable, Vertx vertx) {
+    return executeFuture(rateLimiter, VertxBlocking.supplier(vertx, callable), vertx);
+  }
+
+  public static <T> Supplier<Future<T>> decorateCallable(RateLimiter rateLimiter, Callable<T> callable, Vertx vertx) {
+    return () -> executeCallable(rateLimiter, callable, vertx);
+  }
+
+  /**
+   * Decorates {@code source} so that its chunks take one permit per {@code bytesPerPermit} bytes, pausing the source
+   * while the rate limiter asks to wait, see {@link ThrottledReadStream}.
+   */
+  public static ReadStream<Buffer> throttle(RateLimiter rateLimiter, int bytesPerPermit, ReadStream<Buffer> source, Vertx vertx) {
+    return ThrottledReadStream.create(vertx, rateLimiter, bytesPerPermit, source);
+  }
+
+  /**
+   * Pipes {@code source} to {@code destination} at the rate allowed by {@code rateLimiter}, where a permit stands for
+   * {@code bytesPerPermit} bytes.
+   */
+  public static Future<Void> pipe(RateLimiter rateLimiter, int bytesPerPermit, ReadStream<Buffer> source, WriteStream<Buffer> destination, Vertx vertx) {
+    return throttle(rateLimiter, bytesPerPermit, source, vertx).pipeTo(destination);
+  }
+
+  public static <T> Supplier<Future<T>> decorateFuture(LeasingRateLimiter rateLimiter, Supplier<Future<T>> supplier, Vertx vertx) {
+    return decorateFuture(rateLimiter, 1, supplier, vertx);
+  }
+
+  public static <T> Supplier<Future<T>> decorateFuture(LeasingRateLimiter rateLimiter, int permits, Supplier<Future<T>> supplier, Vertx vertx) {
+    return () -> executeFuture(rateLimiter, permits, supplier, vertx);
+  }
+
+  public static <T> Supplier<Future<T>> decorateFuture(DistributedRateLimiter rateLimiter, Supplier<Future<T>> supplier, Vertx vertx) {
+    return decorateFuture(rateLimiter, 1, supplier, vertx);
+  }
+
+  public static <T> Supplier<Future<T>> decorateFuture(DistributedRateLimiter rateLimiter, int permits, Supplier<Future<T>> supplier, Vertx vertx) {
+    return () -> executeFuture(rateLimiter, permits, supplier, vertx);
+  }
+
+  private static <T> Future<T> execute(ContextInternal ctx, long delay, RateLimiter rateLimiter, Supplier<Future<T>> supplier, Vertx vertx) {
+    ResilienceMetrics.Recorder recorder = ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.RATE_LIMITER, rateLimiter.getName());
+    if (delay < 0) {
+      recorder.recordRejected();
+      if (Rejections.isEnabled(rateLimiter)) {
+        return Rejections.reject(rateLimiter);
+      }
+      RequestNotPermitted exception = RequestNotPermitted.createRequestNotPermitted(rateLimiter);
+      return ctx != null ? ctx.failedFuture(exception) : Future.failedFuture(exception);
+    }
+
+    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+    if (delay == 0) {
+      recorder.recordWait(0);
+      invokePermitted(promise, rateLimiter, recorder, supplier);
+    } else {
+      recorder.recordWait(delay);
+      // delayed calls of an event loop share a single timer and are released in reservation order
+      CoalescedTimer.schedule(vertx, ctx, delay, new DelayedCall<>(promise, rateLimiter, recorder, supplier));
+    }
+    return promise.future();
+  }
+
+  private static <T> void invokePermitted(Promise<T> promise, RateLimiter rateLimiter, ResilienceMetrics.Recorder recorder, Supplier<Future<T>> supplier) {
+    long start = System.nanoTime();
     try {
       supplier.get().onComplete(result -> {
         if (result.failed()) {
+          recorder.record(ResilienceMetrics.Outcome.FAILURE, System.nanoTime() - start);
           rateLimiter.onError(result.cause());
           promise.fail(result.cause());
         } else {
+          recorder.record(ResilienceMetrics.Outcome.SUCCESS, System.nanoTime() - start);
           rateLimiter.onResult(result.result());
           promise.complete(result.result());
         }
       });
     } catch (Exception e) {
+      recorder.record(ResilienceMetrics.Outcome.FAILURE, System.nanoTime() - start);
       rateLimiter.onError(e);
       promise.fail(e);
     }
   }
+
+  private static class DelayedCall<T> extends CoalescedTimer.Task {
+    private final Promise<T> promise;
+    private final RateLimiter rateLimiter;
+    private final ResilienceMetrics.Recorder recorder;
+    private final Supplier<Future<T>> supplier;
+
+    DelayedCall(Promise<T> promise, RateLimiter rateLimiter, ResilienceMetrics.Recorder recorder, Supplier<Future<T>> supplier) {
+      this.promise = promise;
+      this.rateLimiter = rateLimiter;
+      this.recorder = recorder;
+      this.supplier = supplier;
+    }
+
+    @Override
+    public void handle(Void ignored) {
+      invokePermitted(promise, rateLimiter, recorder, supplier);
+    }
+  }
 }
@@ -1,20 +1,33 @@
 package io.vertx.howtos.resilience4j;
 
 import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
 
+import java.util.concurrent.Callable;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public class VertxRetry {
   public static <T> Future<T> executeFuture(Retry retry, Vertx vertx, Supplier<Future<T>> supplier) {
+    return executeFuture(retry, null, vertx, supplier);
+  }
+
+  public static <T> Future<T> executeFuture(Retry retry, RetryBudget budget, Vertx vertx, Supplier<Future<T>> supplier) {
     ContextInternal ctx = ContextInternal.current();
     Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
 
-    new AsyncRetryBlock<>(vertx, retry.asyncContext(), supplier, promise).run();
+    ResilienceMetrics.Recorder recorder = ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.RETRY, retry.getName());
+    recorder.bind(budget);
+    new AsyncRetryBlock<>(vertx, retry.getRetryConfig(), retry.asyncContext(), budget, recorder, supplier, promise).run();
 
     return promise.future();
   }
@@ -23,28 +36,85 @@ public class VertxRetry {
     return () -> executeFuture(retry, vertx, supplier);
   }
 
+  public static <T> Supplier<Future<T>> decorateFuture(Retry retry, RetryBudget budget, Vertx vertx, Supplier<Future<T>> supplier) {
+    return () -> executeFuture(retry, budget, vertx, supplier);
+  }
+
+  /**
+   * Same as {@link #executeFuture(Retry, Vertx, Supplier)} for blocking work, run off the event loop by
+   * {@link VertxBlocking}; every attempt calls {@code callable} again.
+   */
+  public static <T> Future<T> executeCallable(Retry retry, Vertx vertx, Callable<T> callable) {
+    return executeFuture(retry, vertx, VertxBlocking.supplier(vertx, callable));
+  }
+
+  public static <T> Supplier<Future<T>> decorateCallable(Retry retry, Vertx vertx, Callable<T> callable) {
+    return () -> executeCallable(retry, vertx, callable);
+  }
+
+  /**
+   * Writes the stream returned by {@code opener} to {@code destination}, and ends {@code destination} once the stream
+   * ends. When opening or reading the stream fails, {@code opener} is called again after the backoff of
+   * {@code retry}, with the number of bytes already written, so that the next attempt only fetches the rest, e.g. with
+   * a {@code Range: bytes=<offset>-} request header. Returns the number of bytes written.
+   * <p>
+   * A stream that stalls without failing is only retried when it is decorated with an {@link IdleTimeoutReadStream}.
+   * {@code destination} is not ended when all the attempts fail.
+   */
+  public static Future<Long> executeStream(Retry retry, Vertx vertx, LongFunction<Future<? extends ReadStream<Buffer>>> opener,
+                                           WriteStream<Buffer> destination) {
+    return executeStream(retry, null, vertx, opener, destination);
+  }
+
+  /**
+   * Same as {@link #executeStream(Retry, Vertx, LongFunction, WriteStream)}, every retry withdrawing a token from
+   * {@code budget} like {@link #executeFuture(Retry, RetryBudget, Vertx, Supplier)} does.
+   */
+  public static Future<Long> executeStream(Retry retry, RetryBudget budget, Vertx vertx,
+                                           LongFunction<Future<? extends ReadStream<Buffer>>> opener, WriteStream<Buffer> destination) {
+    ContextInternal ctx = ContextInternal.current();
+    Promise<Long> promise = ctx != null ? ctx.promise() : Promise.promise();
+
+    ResilienceMetrics.Recorder recorder = ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.RETRY, retry.getName());
+    recorder.bind(budget);
+    new StreamRetryBlock(vertx, retry.getRetryConfig(), retry.asyncContext(), budget, recorder, opener, destination, promise).run();
+
+    return promise.future();
+  }
+
   private static class AsyncRetryBlock<T> implements Runnable, Handler<Long> {
     private final Vertx vertx;
+    private final RetryConfig config;
     private final Retry.AsyncContext<T> retryContext;
+    private final RetryBudget budget;
+    private final ResilienceMetrics.Recorder recorder;
     private final Supplier<Future<T>> supplier;
     private final Promise<T> promise;
+    private final long start = System.nanoTime();
+    private int attempts;
+    private boolean retried;
 
-    AsyncRetryBlock(Vertx vertx, Retry.AsyncContext<T> retryContext, Supplier<Future<T>> supplier, Promise<T> promise) {
+    AsyncRetryBlock(Vertx vertx, RetryConfig config, Retry.AsyncContext<T> retryContext, RetryBudget budget,
+                    ResilienceMetrics.Recorder recorder, Supplier<Future<T>> supplier, Promise<T> promise) {
       this.vertx = vertx;
+      this.config = config;
       this.retryContext = retryContext;
+      this.budget = budget;
+      this.recorder = recorder;
       this.supplier = supplier;
       this.promise = promise;
     }
 
     @Override
     public void run() {
+      attempts++;
       try {
         supplier.get().onComplete(result -> {
           if (result.failed()) {
             if (result.cause() instanceof Exception) {
               onError((Exception) result.cause());
             } else {
-              promise.fail(result.cause());
+              fail(result.cause());
             }
           } else {
             onResult(result.result());
@@ -60,27 +130,215 @@ public class VertxRetry {
       run();
     }
 
+    // the budget is checked before the retry context is consulted, so that a retry denied by the budget is neither
+    // counted as an attempt nor published as a retry event: the retry context has no way to end a call that may still
+    // retry, the call is counted by the recorder instead
     private void onError(Exception t) {
+      boolean reserved = false;
+      if (budget != null && attempts < config.getMaxAttempts() && config.getExceptionPredicate().test(t)) {
+        if (!budget.tryAcquireRetry()) {
+          recorder.recordRetryDenied();
+          fail(t);
+          return;
+        }
+        reserved = true;
+      }
       long delay = retryContext.onError(t);
       if (delay < 1) {
-        promise.fail(t);
+        if (reserved) {
+          budget.releaseRetry();
+        }
+        fail(t);
       } else {
+        retried = true;
         vertx.setTimer(delay, this);
       }
     }
 
     private void onResult(T result) {
+      Predicate<T> resultPredicate = config.getResultPredicate();
+      boolean reserved = false;
+      if (budget != null && attempts < config.getMaxAttempts() && resultPredicate != null && resultPredicate.test(result)) {
+        if (!budget.tryAcquireRetry()) {
+          recorder.recordRetryDenied();
+          complete(result);
+          return;
+        }
+        reserved = true;
+      }
       long delay = retryContext.onResult(result);
       if (delay < 1) {
+        if (reserved) {
+          budget.releaseRetry();
+        } else if (budget != null && !retried) {
+          budget.onFirstAttemptSuccess();
+        }
+        complete(result);
+      } else {
+        retried = true;
+        vertx.setTimer(delay, this);
+      }
+    }
+
+    private void complete(T result) {
+      try {
+        retryContext.onComplete();
+        recordOutcome(ResilienceMetrics.Outcome.SUCCESS);
+        promise.complete(result);
+      } catch (Exception e) {
+        fail(e);
+      }
+    }
+
+    private void fail(Throwable failure) {
+      recordOutcome(ResilienceMetrics.Outcome.FAILURE);
+      promise.fail(failure);
+    }
+
+    private void recordOutcome(ResilienceMetrics.Outcome outcome) {
+      recorder.record(outcome, System.nanoTime() - start);
+      recorder.recordAttempts(attempts);
+    }
+  }
+
+  private static class StreamRetryBlock implements Runnable, Handler<Long> {
+    private final Vertx vertx;
+    private final RetryConfig config;
+    private final Retry.AsyncContext<Long> retryContext;
+    private final RetryBudget budget;
+    private final ResilienceMetrics.Recorder recorder;
+    private final LongFunction<Future<? extends ReadStream<Buffer>>> opener;
+    private final WriteStream<Buffer> destination;
+    private final Promise<Long> promise;
+    private final long start = System.nanoTime();
+    private long offset;
+    private int attempts;
+    // the attempt whose stream is read, 0 between attempts and once the transfer is over
+    private int current;
+
+    StreamRetryBlock(Vertx vertx, RetryConfig config, Retry.AsyncContext<Long> retryContext, RetryBudget budget,
+                     ResilienceMetrics.Recorder recorder, LongFunction<Future<? extends ReadStream<Buffer>>> opener,
+                     WriteStream<Buffer> destination, Promise<Long> promise) {
+      this.vertx = vertx;
+      this.config = config;
+      this.retryContext = retryContext;
+      this.budget = budget;
+      this.recorder = recorder;
+      this.opener = opener;
+      this.destination = destination;
+      this.promise = promise;
+    }
+
+    @Override
+    public void run() {
+      int attempt = ++attempts;
+      current = attempt;
+      try {
+        opener.apply(offset).onComplete(result -> {
+          if (result.failed()) {
+            onError(result.cause());
+          } else {
+            transfer(attempt, result.result());
+          }
+        });
+      } catch (Exception e) {
+        onError(e);
+      }
+    }
+
+    @Override
+    public void handle(Long ignored) {
+      run();
+    }
+
+    private void transfer(int attempt, ReadStream<Buffer> stream) {
+      // a stream replaced by a retry may still call its handlers, they are ignored
+      stream.exceptionHandler(failure -> {
+        if (attempt == current) {
+          current = 0;
+          stream.handler(null);
+          onError(failure);
+        }
+      });
+      stream.endHandler(ignored -> {
+        if (attempt == current) {
+          onEnd();
+        }
+      });
+      stream.handler(chunk -> {
+        if (attempt != current) {
+          return;
+        }
+        offset += chunk.length();
+        destination.write(chunk);
+        if (destination.writeQueueFull()) {
+          stream.pause();
+          destination.drainHandler(drained -> {
+            if (attempt == current) {
+              stream.resume();
+            }
+          });
+        }
+      });
+      stream.resume();
+    }
+
+    private void onEnd() {
+      // a failure of the destination is not retried
+      current = 0;
+      destination.end().onComplete(result -> {
+        if (result.failed()) {
+          fail(result.cause());
+          return;
+        }
         try {
           retryContext.onComplete();
-          promise.complete(result);
+          if (budget != null && attempts == 1) {
+            budget.onFirstAttemptSuccess();
+          }
+          recordOutcome(ResilienceMetrics.Outcome.SUCCESS);
+          promise.complete(offset);
         } catch (Exception e) {
-          promise.fail(e);
+          fail(e);
+        }
+      });
+    }
+
+    // the budget is checked before the retry context is consulted, like AsyncRetryBlock does
+    private void onError(Throwable failure) {
+      if (!(failure instanceof Exception)) {
+        fail(failure);
+        return;
+      }
+      Exception exception = (Exception) failure;
+      boolean reserved = false;
+      if (budget != null && attempts < config.getMaxAttempts() && config.getExceptionPredicate().test(exception)) {
+        if (!budget.tryAcquireRetry()) {
+          recorder.recordRetryDenied();
+          fail(failure);
+          return;
+        }
+        reserved = true;
+      }
+      long delay = retryContext.onError(exception);
+      if (delay < 1) {
+        if (reserved) {
+          budget.releaseRetry();
         }
+        fail(failure);
       } else {
         vertx.setTimer(delay, this);
       }
     }
+
+    private void fail(Throwable failure) {
+      recordOutcome(ResilienceMetrics.Outcome.FAILURE);
+      promise.fail(failure);
+    }
+
+    private void recordOutcome(ResilienceMetrics.Outcome outcome) {
+      recorder.record(outcome, System.nanoTime() - start);
+      recorder.recordAttempts(attempts);
+    }
   }
 }
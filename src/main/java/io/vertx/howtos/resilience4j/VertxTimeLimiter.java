@@ -1,11 +1,16 @@
 package io.vertx.howtos.resilience4j;
 
 import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.streams.ReadStream;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
@@ -13,10 +18,13 @@ public class VertxTimeLimiter {
   public static <T> Future<T> executeFuture(TimeLimiter timeLimiter, Vertx vertx, Supplier<Future<T>> supplier) {
     ContextInternal ctx = ContextInternal.current();
     Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+    ResilienceMetrics.Recorder recorder = ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.TIME_LIMITER, timeLimiter.getName());
+    long start = System.nanoTime();
 
     long timerId = vertx.setTimer(timeLimiter.getTimeLimiterConfig().getTimeoutDuration().toMillis(), ignored -> {
       TimeoutException exception = TimeLimiter.createdTimeoutExceptionWithName(timeLimiter.getName(), null);
       if (promise.tryFail(exception)) {
+        recorder.record(ResilienceMetrics.Outcome.TIMEOUT, System.nanoTime() - start);
         timeLimiter.onError(exception);
       }
     });
@@ -25,15 +33,18 @@ public class VertxTimeLimiter {
       supplier.get().onComplete(result -> {
         vertx.cancelTimer(timerId);
         if (result.succeeded() && promise.tryComplete(result.result())) {
+          recorder.record(ResilienceMetrics.Outcome.SUCCESS, System.nanoTime() - start);
           timeLimiter.onSuccess();
         }
         if (result.failed() && promise.tryFail(result.cause())) {
+          recorder.record(ResilienceMetrics.Outcome.FAILURE, System.nanoTime() - start);
           timeLimiter.onError(result.cause());
         }
       });
     } catch (Exception e) {
       vertx.cancelTimer(timerId);
       if (promise.tryFail(e)) {
+        recorder.record(ResilienceMetrics.Outcome.FAILURE, System.nanoTime() - start);
         timeLimiter.onError(e);
       }
     }
@@ -44,4 +55,88 @@ public class VertxTimeLimiter {
   public static <T> Supplier<Future<T>> decorateFuture(TimeLimiter timeLimiter, Vertx vertx, Supplier<Future<T>> supplier) {
     return () -> executeFuture(timeLimiter, vertx, supplier);
   }
+
+  /**
+   * Same as {@link #executeFuture(TimeLimiter, Vertx, Supplier)}, with the timeout scheduled on the
+   * {@link TimeoutScheduler} of the calling event loop instead of a timer per call.
+   */
+  public static <T> Future<T> executeFuture(TimeLimiter timeLimiter, TimeoutScheduler scheduler, Supplier<Future<T>> supplier) {
+    ContextInternal ctx = ContextInternal.current();
+    Promise<T> promise = ctx != null ? ctx.promise() : Promise.promise();
+
+    ResilienceMetrics.Recorder recorder = ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.TIME_LIMITER, timeLimiter.getName());
+    TimeLimitedCall<T> call = new TimeLimitedCall<>(timeLimiter, recorder, promise);
+    scheduler.schedule(ctx, call, timeLimiter.getTimeLimiterConfig().getTimeoutDuration().toMillis());
+
+    try {
+      supplier.get().onComplete(call);
+    } catch (Exception e) {
+      call.cancel();
+      if (promise.tryFail(e)) {
+        recorder.record(ResilienceMetrics.Outcome.FAILURE, System.nanoTime() - call.start);
+        timeLimiter.onError(e);
+      }
+    }
+
+    return promise.future();
+  }
+
+  public static <T> Supplier<Future<T>> decorateFuture(TimeLimiter timeLimiter, TimeoutScheduler scheduler, Supplier<Future<T>> supplier) {
+    return () -> executeFuture(timeLimiter, scheduler, supplier);
+  }
+
+  /**
+   * Decorates {@code source} so that it fails when its first chunk, or the next chunk, does not arrive within the
+   * timeout duration of {@code timeLimiter}, see {@link IdleTimeoutReadStream}.
+   */
+  public static ReadStream<Buffer> decorateStream(TimeLimiter timeLimiter, TimeoutScheduler scheduler, ReadStream<Buffer> source) {
+    return IdleTimeoutReadStream.create(scheduler, timeLimiter, source);
+  }
+
+  /**
+   * Same as {@link #executeFuture(TimeLimiter, Vertx, Supplier)} for blocking work, run off the event loop by
+   * {@link VertxBlocking}. The returned future fails on timeout, but the blocking work is not interrupted.
+   */
+  public static <T> Future<T> executeCallable(TimeLimiter timeLimiter, Vertx vertx, Callable<T> callable) {
+    return executeFuture(timeLimiter, vertx, VertxBlocking.supplier(vertx, callable));
+  }
+
+  public static <T> Supplier<Future<T>> decorateCallable(TimeLimiter timeLimiter, Vertx vertx, Callable<T> callable) {
+    return () -> executeCallable(timeLimiter, vertx, callable);
+  }
+
+  private static class TimeLimitedCall<T> extends TimeoutScheduler.Timeout implements Handler<AsyncResult<T>> {
+    private final TimeLimiter timeLimiter;
+    private final ResilienceMetrics.Recorder recorder;
+    private final Promise<T> promise;
+    private final long start = System.nanoTime();
+
+    TimeLimitedCall(TimeLimiter timeLimiter, ResilienceMetrics.Recorder recorder, Promise<T> promise) {
+      this.timeLimiter = timeLimiter;
+      this.recorder = recorder;
+      this.promise = promise;
+    }
+
+    @Override
+    protected void onTimeout() {
+      TimeoutException exception = TimeLimiter.createdTimeoutExceptionWithName(timeLimiter.getName(), null);
+      if (promise.tryFail(exception)) {
+        recorder.record(ResilienceMetrics.Outcome.TIMEOUT, System.nanoTime() - start);
+        timeLimiter.onError(exception);
+      }
+    }
+
+    @Override
+    public void handle(AsyncResult<T> result) {
+      cancel();
+      if (result.succeeded() && promise.tryComplete(result.result())) {
+        recorder.record(ResilienceMetrics.Outcome.SUCCESS, System.nanoTime() - start);
+        timeLimiter.onSuccess();
+      }
+      if (result.failed() && promise.tryFail(result.cause())) {
+        recorder.record(ResilienceMetrics.Outcome.FAILURE, System.nanoTime() - start);
+        timeLimiter.onError(result.cause());
+      }
+    }
+  }
 }
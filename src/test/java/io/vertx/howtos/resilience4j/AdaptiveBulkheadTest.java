@@ -0,0 +1,178 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@ExtendWith(VertxExtension.class)
+public class AdaptiveBulkheadTest {
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  public void shouldApplyInitialLimitWithoutReconfiguringBulkhead() {
+    Bulkhead bulkhead = Bulkhead.ofDefaults("test");
+
+    AdaptiveBulkhead adaptive = AdaptiveBulkhead.of(bulkhead, LimitAlgorithm.aimd(10, 1, 100));
+
+    assertThat(adaptive.getLimit()).isEqualTo(10);
+    assertThat(bulkhead.getMetrics().getMaxAllowedConcurrentCalls()).isEqualTo(BulkheadConfig.DEFAULT_MAX_CONCURRENT_CALLS);
+  }
+
+  @Test
+  public void shouldDecreaseLimitWhenCallsTimeOut(Vertx vertx, VertxTestContext test) {
+    Bulkhead bulkhead = Bulkhead.ofDefaults("test");
+    AdaptiveBulkhead adaptive = AdaptiveBulkhead.of(bulkhead, LimitAlgorithm.aimd(10, 1, 100));
+
+    Future<String> future = VertxBulkhead.executeFuture(adaptive, () -> Future.failedFuture(new TimeoutException()));
+
+    future.onComplete(test.failing(error -> {
+      assertThat(error).isInstanceOf(TimeoutException.class);
+      assertThat(adaptive.getLimit()).isEqualTo(9);
+      assertThat(adaptive.getInFlight()).isZero();
+      assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(BulkheadConfig.DEFAULT_MAX_CONCURRENT_CALLS);
+      test.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldNotChangeLimitWhenCallFailsWithoutBeingDropped(Vertx vertx, VertxTestContext test) {
+    Bulkhead bulkhead = Bulkhead.ofDefaults("test");
+    AdaptiveBulkhead adaptive = AdaptiveBulkhead.of(bulkhead, LimitAlgorithm.aimd(10, 1, 100));
+
+    Future<String> future = VertxBulkhead.executeFuture(adaptive, () -> Future.failedFuture(new HelloWorldException()));
+
+    future.onComplete(test.failing(error -> {
+      assertThat(adaptive.getLimit()).isEqualTo(10);
+      test.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldSkipSampleInsteadOfWaitingForUpdateInProgress() throws Exception {
+    CountDownLatch updating = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger updates = new AtomicInteger();
+    AdaptiveBulkhead adaptive = AdaptiveBulkhead.of(Bulkhead.ofDefaults("test"), new LimitAlgorithm() {
+      @Override
+      public int getLimit() {
+        return 10;
+      }
+
+      @Override
+      public int update(long rttNanos, int inFlight, boolean dropped) {
+        if (updates.incrementAndGet() == 1) {
+          updating.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        return 10;
+      }
+    });
+    Promise<String> slow = Promise.promise();
+    VertxBulkhead.executeFuture(adaptive, slow::future);
+    Thread completing = new Thread(() -> slow.complete("slow"));
+    completing.start();
+    assertThat(updating.await(5, TimeUnit.SECONDS)).isTrue();
+
+    try {
+      // the algorithm is busy with the first completion, the second one returns right away
+      assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+        assertThat(VertxBulkhead.executeFuture(adaptive, () -> Future.succeededFuture("fast")).result()).isEqualTo("fast"));
+      assertThat(updates.get()).isEqualTo(1);
+      assertThat(adaptive.getInFlight()).isZero();
+    } finally {
+      release.countDown();
+      completing.join();
+    }
+
+    VertxBulkhead.executeFuture(adaptive, () -> Future.succeededFuture("next"));
+    assertThat(updates.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldRejectAboveLoweredLimitWhileCallsAreInFlight() {
+    Bulkhead bulkhead = Bulkhead.ofDefaults("test");
+    AdaptiveBulkhead adaptive = AdaptiveBulkhead.of(bulkhead, LimitAlgorithm.aimd(3, 1, 100));
+    List<Promise<String>> calls = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Promise<String> call = Promise.promise();
+      calls.add(call);
+      VertxBulkhead.executeFuture(adaptive, call::future);
+    }
+    assertThat(VertxBulkhead.executeFuture(adaptive, () -> Future.succeededFuture("too many")).failed()).isTrue();
+
+    // lowering the limit below the calls in flight must not wait for them
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> calls.get(0).fail(new TimeoutException()));
+    assertThat(adaptive.getLimit()).isEqualTo(2);
+    assertThat(adaptive.getInFlight()).isEqualTo(2);
+    Future<String> rejected = VertxBulkhead.executeFuture(adaptive, () -> Future.succeededFuture("too many"));
+    assertThat(rejected.cause()).isInstanceOf(BulkheadFullException.class);
+
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> calls.get(1).fail(new TimeoutException()));
+    assertThat(adaptive.getLimit()).isEqualTo(1);
+    assertThat(VertxBulkhead.executeFuture(adaptive, () -> Future.succeededFuture("too many")).failed()).isTrue();
+
+    calls.get(2).complete("done");
+    assertThat(adaptive.getInFlight()).isZero();
+    assertThat(VertxBulkhead.executeFuture(adaptive, () -> Future.succeededFuture("permitted")).result()).isEqualTo("permitted");
+    assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(BulkheadConfig.DEFAULT_MAX_CONCURRENT_CALLS);
+  }
+
+  @Test
+  public void aimdShouldGrowOnlyWhenSaturated() {
+    LimitAlgorithm aimd = LimitAlgorithm.aimd(10, 1, 100);
+
+    assertThat(aimd.update(MILLIS, 2, false)).isEqualTo(10);
+    assertThat(aimd.update(MILLIS, 10, false)).isEqualTo(11);
+    assertThat(aimd.update(MILLIS, 10, true)).isEqualTo(9);
+  }
+
+  @Test
+  public void vegasShouldBackOffWhenQueueBuildsUp() {
+    LimitAlgorithm vegas = LimitAlgorithm.vegas(20, 1, 200);
+    vegas.update(10 * MILLIS, 20, false);
+
+    int grown = vegas.update(10 * MILLIS, 20, false);
+    assertThat(grown).isGreaterThan(20);
+
+    int shrunk = vegas.update(100 * MILLIS, grown, false);
+    assertThat(shrunk).isLessThan(grown);
+  }
+
+  @Test
+  public void gradient2ShouldBackOffWhenLatencyRises() {
+    LimitAlgorithm gradient = LimitAlgorithm.gradient2(20, 1, 200);
+    for (int i = 0; i < 100; i++) {
+      gradient.update(10 * MILLIS, gradient.getLimit(), false);
+    }
+    int stable = gradient.getLimit();
+
+    for (int i = 0; i < 10; i++) {
+      gradient.update(100 * MILLIS, gradient.getLimit(), false);
+    }
+
+    assertThat(stable).isGreaterThan(20);
+    assertThat(gradient.getLimit()).isLessThan(stable);
+  }
+}
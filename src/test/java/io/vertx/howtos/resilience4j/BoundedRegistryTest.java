@@ -0,0 +1,167 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class BoundedRegistryTest {
+  private final AtomicLong clock = new AtomicLong();
+
+  private BoundedRegistry<CircuitBreaker> circuitBreakers(int maxSize, Duration idleTimeout) {
+    return new BoundedRegistry<>(null, name -> CircuitBreaker.of(name, CircuitBreakerConfig.ofDefaults()), maxSize,
+      idleTimeout, 1024, ResilienceMetrics.Policy.CIRCUIT_BREAKER, clock::get);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    ResilienceMetrics.setDefault(null);
+  }
+
+  @Test
+  public void shouldReturnSameInstanceUntilEvicted() {
+    BoundedRegistry<CircuitBreaker> registry = circuitBreakers(10, Duration.ofMinutes(1));
+
+    CircuitBreaker circuitBreaker = registry.get("tenant-1");
+    assertThat(circuitBreaker.getName()).isEqualTo("tenant-1");
+    assertThat(registry.get("tenant-1")).isSameAs(circuitBreaker);
+    assertThat(registry.getCreations()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedWhenFull() {
+    BoundedRegistry<CircuitBreaker> registry = circuitBreakers(10, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 10; i++) {
+      registry.get("tenant-" + i);
+      clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+    CircuitBreaker hot = registry.get("tenant-0");
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+    registry.get("tenant-10");
+
+    assertThat(registry.size()).isEqualTo(10);
+    assertThat(registry.getSizeEvictions()).isEqualTo(1);
+    // the oldest instance that was not used again went first
+    assertThat(registry.get("tenant-0")).isSameAs(hot);
+    long creations = registry.getCreations();
+    registry.get("tenant-1");
+    assertThat(registry.getCreations()).isEqualTo(creations + 1);
+  }
+
+  @Test
+  public void shouldEvictIdleInstances() {
+    BoundedRegistry<CircuitBreaker> registry = circuitBreakers(10, Duration.ofSeconds(10));
+
+    registry.get("idle");
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+    registry.get("active");
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+    registry.expireIdle();
+
+    assertThat(registry.size()).isEqualTo(1);
+    assertThat(registry.getIdleEvictions()).isEqualTo(1);
+    assertThat(registry.getEstimatedMemoryFootprint()).isGreaterThan(1024);
+  }
+
+  @Test
+  public void shouldStayBoundedUnderKeyChurn() {
+    BoundedRegistry<RateLimiter> registry = BoundedRegistry.ofRateLimiters(null, RateLimiterConfig.ofDefaults(), 1000, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 100_000; i++) {
+      registry.get("endpoint-" + i);
+    }
+
+    assertThat(registry.size()).isLessThanOrEqualTo(1000);
+    assertThat(registry.getCreations()).isEqualTo(100_000);
+    assertThat(registry.getSizeEvictions()).isEqualTo(100_000 - registry.size());
+    assertThat(registry.getEstimatedMemoryFootprint()).isLessThan(1000L * 1024);
+  }
+
+  @Test
+  public void shouldNeverExceedMaxSizeUnderConcurrentInsertions() throws Exception {
+    BoundedRegistry<RateLimiter> registry = BoundedRegistry.ofRateLimiters(null, RateLimiterConfig.ofDefaults(), 100, Duration.ofMinutes(1));
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 10_000; i++) {
+            registry.get("endpoint-" + thread + "-" + i);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(registry.size()).isLessThanOrEqualTo(100);
+    assertThat(registry.getSizeEvictions()).isEqualTo(threads * 10_000 - registry.size());
+  }
+
+  @Test
+  public void shouldTrimInBackgroundWhenFull(Vertx vertx, VertxTestContext test) {
+    BoundedRegistry<RateLimiter> registry = BoundedRegistry.ofRateLimiters(vertx, RateLimiterConfig.ofDefaults(), 100, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 100; i++) {
+      registry.get("endpoint-" + i);
+    }
+
+    vertx.setPeriodic(10, id -> {
+      if (registry.size() == 90) {
+        vertx.cancelTimer(id);
+        test.verify(() -> {
+          assertThat(registry.getSizeEvictions()).isEqualTo(10);
+          registry.close();
+          test.completeNow();
+        });
+      }
+    });
+  }
+
+  @Test
+  public void shouldRemoveRecordersOfEvictedInstances() {
+    ResilienceMetrics metrics = new ResilienceMetrics();
+    ResilienceMetrics.setDefault(metrics);
+    BoundedRegistry<CircuitBreaker> registry = circuitBreakers(1, Duration.ofSeconds(10));
+    long footprint = registry.getEstimatedMemoryFootprint();
+
+    CircuitBreaker first = registry.get("tenant-1");
+    metrics.recorder(ResilienceMetrics.Policy.CIRCUIT_BREAKER, first.getName()).recordRejected();
+    assertThat(registry.getEstimatedMemoryFootprint()).isGreaterThan(footprint + 20 * 1024);
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+    registry.get("tenant-2");
+    metrics.recorder(ResilienceMetrics.Policy.CIRCUIT_BREAKER, "tenant-2").recordRejected();
+
+    assertThat(registry.getSizeEvictions()).isEqualTo(1);
+    assertThat(metrics.scrape()).doesNotContain("tenant-1").contains("tenant-2");
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(20));
+    registry.expireIdle();
+
+    assertThat(metrics.size(ResilienceMetrics.Policy.CIRCUIT_BREAKER)).isZero();
+  }
+}
@@ -0,0 +1,98 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.EventBusOptions;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class CircuitBreakerStatePropagationTest {
+  private final List<Vertx> nodes = new ArrayList<>();
+
+  @AfterEach
+  public void tearDown() {
+    Future.join(nodes.stream().map(Vertx::close).toList()).await();
+  }
+
+  private Vertx startNode() {
+    Vertx node = Vertx.builder()
+      .with(new VertxOptions().setEventBusOptions(new EventBusOptions().setHost("localhost")))
+      .withClusterManager(new LocalClusterManager())
+      .buildClustered()
+      .await();
+    nodes.add(node);
+    return node;
+  }
+
+  @Test
+  public void shouldOpenAndHalfOpenPeersOnOtherNodes(VertxTestContext test) {
+    CircuitBreaker local = CircuitBreaker.ofDefaults("backend");
+    CircuitBreaker peer = CircuitBreaker.ofDefaults("backend");
+    CircuitBreakerStatePropagation.enable(startNode(), local).completion().await();
+    CircuitBreakerStatePropagation.enable(startNode(), peer).completion().await();
+    AtomicInteger localTransitions = new AtomicInteger();
+    local.getEventPublisher().onStateTransition(event -> localTransitions.incrementAndGet());
+
+    local.transitionToOpenState();
+
+    nodes.get(0).setPeriodic(10, id -> {
+      if (peer.getState() == CircuitBreaker.State.OPEN) {
+        nodes.get(0).cancelTimer(id);
+        local.transitionToHalfOpenState();
+        nodes.get(0).setPeriodic(10, id2 -> {
+          if (peer.getState() == CircuitBreaker.State.HALF_OPEN) {
+            nodes.get(0).cancelTimer(id2);
+            // give an echo the time to come back
+            nodes.get(0).setTimer(100, ignored -> test.verify(() -> {
+              assertThat(local.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+              // OPEN then HALF_OPEN, nothing echoed back by the peer
+              assertThat(localTransitions).hasValue(2);
+              test.completeNow();
+            }));
+          }
+        });
+      }
+    });
+  }
+
+  @Test
+  public void shouldNotOverrideForcedStates(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker local = CircuitBreaker.ofDefaults("backend");
+    CircuitBreaker peer = CircuitBreaker.ofDefaults("backend");
+    CircuitBreakerStatePropagation.enable(vertx, local);
+    CircuitBreakerStatePropagation.enable(vertx, peer).completion().onComplete(test.succeeding(ignored -> {
+      peer.transitionToDisabledState();
+      local.transitionToOpenState();
+      vertx.setTimer(100, ignored2 -> test.verify(() -> {
+        assertThat(peer.getState()).isEqualTo(CircuitBreaker.State.DISABLED);
+        test.completeNow();
+      }));
+    }));
+  }
+
+  @Test
+  public void shouldEncodeTransitionInNineBytes() {
+    CircuitBreakerStatePropagation.StateTransitionCodec codec = new CircuitBreakerStatePropagation.StateTransitionCodec();
+    Buffer buffer = Buffer.buffer().appendInt(42);
+
+    codec.encodeToWire(buffer, new CircuitBreakerStatePropagation.StateTransition(-7, CircuitBreaker.State.HALF_OPEN));
+    CircuitBreakerStatePropagation.StateTransition decoded = codec.decodeFromWire(4, buffer);
+
+    assertThat(buffer.length()).isEqualTo(4 + 9);
+    assertThat(decoded.origin).isEqualTo(-7);
+    assertThat(decoded.state).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+  }
+}
@@ -0,0 +1,202 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.eventbus.EventBusOptions;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(VertxExtension.class)
+public class DistributedRateLimiterTest {
+  private final List<Vertx> nodes = new ArrayList<>();
+
+  @AfterEach
+  public void tearDown() {
+    Future.join(nodes.stream().map(Vertx::close).toList()).await();
+  }
+
+  private Vertx startNode() {
+    Vertx node = Vertx.builder()
+      .with(new VertxOptions().setEventBusOptions(new EventBusOptions().setHost("localhost")))
+      .withClusterManager(new LocalClusterManager())
+      .buildClustered()
+      .await();
+    nodes.add(node);
+    return node;
+  }
+
+  private static RateLimiter exhaustedFallback() {
+    RateLimiter fallback = RateLimiter.of("test", RateLimiterConfig.custom()
+      .limitForPeriod(1)
+      .limitRefreshPeriod(Duration.ofDays(1))
+      .timeoutDuration(Duration.ZERO)
+      .build());
+    fallback.acquirePermission();
+    return fallback;
+  }
+
+  @Test
+  public void shouldRefuseMorePermitsThanBlockSize(Vertx vertx) {
+    DistributedRateLimiter rateLimiter = DistributedRateLimiter.create(vertx, "partner-api", 10, exhaustedFallback());
+
+    assertThatThrownBy(() -> VertxRateLimiter.executeFuture(rateLimiter, 11, () -> Future.succeededFuture("unused"), vertx))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void shouldShareGlobalLimitAcrossNodes(VertxTestContext test) {
+    Vertx coordinatorNode = startNode();
+    coordinatorNode.deployVerticle(new RateLimiterCoordinatorVerticle("partner-api", RateLimiterConfig.custom()
+      .limitForPeriod(100)
+      .limitRefreshPeriod(Duration.ofDays(1))
+      .build())).await();
+
+    AtomicInteger permitted = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    int callsPerNode = 150;
+    int clients = 2;
+    for (int i = 0; i < clients; i++) {
+      Vertx node = startNode();
+      DistributedRateLimiter rateLimiter = DistributedRateLimiter.create(node, "partner-api", 10, exhaustedFallback());
+      AtomicInteger calls = new AtomicInteger();
+      node.setPeriodic(1, id -> {
+        if (!rateLimiter.isCoordinatorAvailable()) {
+          return; // wait for the first block
+        }
+        VertxRateLimiter.executeFuture(rateLimiter, () -> Future.succeededFuture(0), node).onComplete(ar -> {
+          if (ar.succeeded()) {
+            permitted.incrementAndGet();
+          } else {
+            assertThat(ar.cause()).isInstanceOf(RequestNotPermitted.class);
+            rejected.incrementAndGet();
+          }
+          if (permitted.get() + rejected.get() == callsPerNode * clients) {
+            test.verify(() -> {
+              // blocks still held by a node when it stops calling are lost
+              assertThat(permitted.get()).isBetween(80, 100);
+              test.completeNow();
+            });
+          }
+        });
+        if (calls.incrementAndGet() == callsPerNode) {
+          node.cancelTimer(id);
+        }
+      });
+    }
+  }
+
+  @Test
+  public void shouldNotUseBlockBeyondThePeriodItWasLeasedIn(VertxTestContext test) {
+    long period = TimeUnit.MILLISECONDS.toNanos(500);
+    int limit = 20;
+    int blockSize = 10;
+    Vertx coordinatorNode = startNode();
+    Vertx node = startNode();
+    // periods are aligned on System.nanoTime(), the coordinator is deployed at the start of one
+    long deployAt = (Math.floorDiv(System.nanoTime(), period) + 1) * period;
+    long boundary = deployAt + period;
+    List<Long> permittedAt = new CopyOnWriteArrayList<>();
+    List<Future<Integer>> futures = new CopyOnWriteArrayList<>();
+    AtomicReference<DistributedRateLimiter> rateLimiter = new AtomicReference<>();
+    IntConsumer calls = count -> {
+      for (int i = 0; i < count; i++) {
+        futures.add(VertxRateLimiter.executeFuture(rateLimiter.get(), () -> {
+          permittedAt.add(System.nanoTime());
+          return Future.succeededFuture(0);
+        }, node));
+      }
+    };
+
+    node.setTimer(millisUntil(deployAt), ignored -> coordinatorNode
+      .deployVerticle(new RateLimiterCoordinatorVerticle("partner-api", RateLimiterConfig.custom()
+        .limitForPeriod(limit)
+        .limitRefreshPeriod(Duration.ofNanos(period))
+        .build()))
+      .onComplete(test.succeeding(deployed ->
+        rateLimiter.set(DistributedRateLimiter.create(node, "partner-api", blockSize, exhaustedFallback())))));
+    // the second block of the period is leased shortly before its end, 15 permits are left
+    node.setTimer(millisUntil(boundary - TimeUnit.MILLISECONDS.toNanos(100)), ignored -> calls.accept(5));
+    // they must not add up with the blocks of the next period
+    node.setTimer(millisUntil(boundary + TimeUnit.MILLISECONDS.toNanos(50)), ignored -> calls.accept(2 * blockSize));
+    node.setTimer(millisUntil(boundary + TimeUnit.MILLISECONDS.toNanos(250)), ignored -> calls.accept(blockSize));
+    node.setTimer(millisUntil(boundary + TimeUnit.MILLISECONDS.toNanos(400)), ignored -> Future.join(futures)
+      .onComplete(ar -> test.verify(() -> {
+        assertThat(futures).hasSize(5 + 3 * blockSize);
+        assertThat(permittedAt.stream().filter(at -> at - boundary >= 0)).hasSize(limit);
+        test.completeNow();
+      })));
+  }
+
+  private static long millisUntil(long nanoTime) {
+    return Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanoTime - System.nanoTime()));
+  }
+
+  @Test
+  public void shouldDelayCallsWhileNextBlockIsLeased(VertxTestContext test) {
+    Vertx coordinatorNode = startNode();
+    coordinatorNode.deployVerticle(new RateLimiterCoordinatorVerticle("partner-api", RateLimiterConfig.custom()
+      .limitForPeriod(100)
+      .limitRefreshPeriod(Duration.ofDays(1))
+      .build())).await();
+    Vertx node = startNode();
+    DistributedRateLimiter rateLimiter = DistributedRateLimiter.create(node, "partner-api", 4, exhaustedFallback());
+
+    node.setPeriodic(1, id -> {
+      if (!rateLimiter.isCoordinatorAvailable()) {
+        return; // wait for the first block
+      }
+      node.cancelTimer(id);
+      // the 5th and 6th calls find the block empty while the next one is requested
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+        futures.add(VertxRateLimiter.executeFuture(rateLimiter, () -> Future.succeededFuture(0), node));
+      }
+      assertThat(futures.get(5).isComplete()).isFalse();
+      Future.join(futures).onComplete(test.succeeding(ignored -> test.verify(() -> {
+        assertThat(rateLimiter.getAvailablePermissions()).isEqualTo(2);
+        test.completeNow();
+      })));
+    });
+  }
+
+  @Test
+  public void shouldUseFallbackWhenCoordinatorIsUnreachable(Vertx vertx, VertxTestContext test) {
+    RateLimiter fallback = RateLimiter.of("test", RateLimiterConfig.custom()
+      .limitForPeriod(5)
+      .limitRefreshPeriod(Duration.ofDays(1))
+      .timeoutDuration(Duration.ZERO)
+      .build());
+    DistributedRateLimiter rateLimiter = DistributedRateLimiter.create(vertx, "partner-api", 10, fallback, Duration.ofMillis(100));
+
+    vertx.setTimer(200, ignored -> {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        futures.add(VertxRateLimiter.executeFuture(rateLimiter, () -> Future.succeededFuture(0), vertx));
+      }
+      Future.join(futures).onComplete(ar -> test.verify(() -> {
+        assertThat(rateLimiter.isCoordinatorAvailable()).isFalse();
+        assertThat(futures.stream().filter(Future::succeeded)).hasSize(5);
+        test.completeNow();
+      }));
+    });
+  }
+}
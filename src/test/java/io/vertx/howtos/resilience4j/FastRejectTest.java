@@ -0,0 +1,173 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FastRejectTest {
+  private static final int CALLS = 200_000;
+
+  private final Supplier<Future<String>> supplier = () -> Future.succeededFuture("Hello");
+
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+  }
+
+  private static double bytesPerCall(Supplier<Future<String>> call) {
+    // the first rounds run in the interpreter and let the JIT compile the path
+    for (int i = 0; i < 5 * CALLS; i++) {
+      call.get();
+    }
+    // the best of a few rounds, so a round hit by a deoptimization or a recompilation does not count
+    long best = Long.MAX_VALUE;
+    for (int round = 0; round < 5; round++) {
+      long before = allocatedBytes();
+      for (int i = 0; i < CALLS; i++) {
+        call.get();
+      }
+      best = Math.min(best, allocatedBytes() - before);
+    }
+    return (double) best / CALLS;
+  }
+
+  // the policy is asked on every call and allocates its own event when it refuses a permission, only the allocations
+  // added by the wrapper are measured
+  private static double wrapperBytesPerCall(Supplier<Future<String>> call, Runnable policy) {
+    return bytesPerCall(call) - bytesPerCall(() -> {
+      policy.run();
+      return null;
+    });
+  }
+
+  @Test
+  public void shouldRejectWithoutAllocating() {
+    CircuitBreaker circuitBreaker = CircuitBreaker.of("fast-reject-cb", CircuitBreakerConfig.custom()
+      .writableStackTraceEnabled(false)
+      .build());
+    circuitBreaker.transitionToOpenState();
+    Bulkhead bulkhead = Bulkhead.of("fast-reject-bh", BulkheadConfig.custom()
+      .maxConcurrentCalls(1)
+      .maxWaitDuration(Duration.ZERO)
+      .writableStackTraceEnabled(false)
+      .build());
+    bulkhead.tryAcquirePermission();
+    RateLimiter rateLimiter = RateLimiter.of("fast-reject-rl", RateLimiterConfig.custom()
+      .limitForPeriod(1)
+      .limitRefreshPeriod(Duration.ofHours(1))
+      .timeoutDuration(Duration.ZERO)
+      .writableStackTraceEnabled(false)
+      .build());
+    rateLimiter.acquirePermission();
+    Vertx vertx = Vertx.vertx();
+
+    try {
+      assertThat(wrapperBytesPerCall(() -> VertxCircuitBreaker.executeFuture(circuitBreaker, supplier), circuitBreaker::tryAcquirePermission)).isLessThan(1);
+      assertThat(wrapperBytesPerCall(() -> VertxBulkhead.executeFuture(bulkhead, supplier), bulkhead::tryAcquirePermission)).isLessThan(1);
+      assertThat(wrapperBytesPerCall(() -> VertxRateLimiter.executeFuture(rateLimiter, supplier, vertx), rateLimiter::reservePermission)).isLessThan(1);
+    } finally {
+      vertx.close().await();
+    }
+  }
+
+  @Test
+  public void shouldReuseStacklessRejection() {
+    CircuitBreaker circuitBreaker = CircuitBreaker.of("fast-reject-reuse", CircuitBreakerConfig.custom()
+      .writableStackTraceEnabled(false)
+      .build());
+    circuitBreaker.transitionToOpenState();
+
+    Future<String> first = VertxCircuitBreaker.executeFuture(circuitBreaker, supplier);
+    Future<String> second = VertxCircuitBreaker.executeFuture(circuitBreaker, supplier);
+
+    assertThat(second).isSameAs(first);
+    assertThat(first.cause()).isInstanceOf(CallNotPermittedException.class);
+    assertThat(first.cause().getStackTrace()).isEmpty();
+    assertThat(VertxBulkhead.executeFuture(Bulkhead.of("fast-reject-full", BulkheadConfig.custom()
+      .maxConcurrentCalls(0)
+      .writableStackTraceEnabled(false)
+      .build()), supplier).cause()).isInstanceOf(BulkheadFullException.class);
+  }
+
+  @Test
+  public void shouldCountEveryRejectionInPolicy() {
+    CircuitBreaker circuitBreaker = CircuitBreaker.of("fast-reject-count", CircuitBreakerConfig.custom()
+      .writableStackTraceEnabled(false)
+      .build());
+    circuitBreaker.transitionToOpenState();
+    AtomicInteger events = new AtomicInteger();
+    circuitBreaker.getEventPublisher().onCallNotPermitted(event -> events.incrementAndGet());
+    ResilienceMetrics metrics = new ResilienceMetrics();
+    ResilienceMetrics.setDefault(metrics);
+
+    try {
+      int calls = 100_000;
+      for (int i = 0; i < calls; i++) {
+        VertxCircuitBreaker.executeFuture(circuitBreaker, supplier);
+      }
+
+      assertThat(metrics.recorder(ResilienceMetrics.Policy.CIRCUIT_BREAKER, "fast-reject-count")
+        .getCount(ResilienceMetrics.Outcome.REJECTED)).isEqualTo(calls);
+      assertThat(circuitBreaker.getMetrics().getNumberOfNotPermittedCalls()).isEqualTo(calls);
+      assertThat(events).hasValue(calls);
+    } finally {
+      ResilienceMetrics.setDefault(null);
+    }
+  }
+
+  @Test
+  public void shouldMoveToHalfOpenAsSoonAsWaitIsOver() throws Exception {
+    CircuitBreaker circuitBreaker = CircuitBreaker.of("fast-reject-half-open", CircuitBreakerConfig.custom()
+      .waitDurationInOpenState(Duration.ofMillis(200))
+      .writableStackTraceEnabled(false)
+      .build());
+    circuitBreaker.transitionToOpenState();
+    assertThat(VertxCircuitBreaker.executeFuture(circuitBreaker, supplier).failed()).isTrue();
+
+    Thread.sleep(300);
+
+    assertThat(VertxCircuitBreaker.executeFuture(circuitBreaker, supplier).result()).isEqualTo("Hello");
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+    // a state change is seen right away
+    circuitBreaker.transitionToForcedOpenState();
+    assertThat(VertxCircuitBreaker.executeFuture(circuitBreaker, supplier).cause()).isInstanceOf(CallNotPermittedException.class)
+      .hasMessageContaining("FORCED_OPEN");
+  }
+
+  @Test
+  public void shouldKeepAllocatingRejectionsWithStackTraces() {
+    RateLimiter rateLimiter = RateLimiter.of("fast-reject-disabled", RateLimiterConfig.custom()
+      .limitForPeriod(1)
+      .limitRefreshPeriod(Duration.ofHours(1))
+      .timeoutDuration(Duration.ZERO)
+      .build());
+    rateLimiter.acquirePermission();
+    Vertx vertx = Vertx.vertx();
+
+    try {
+      Future<String> first = VertxRateLimiter.executeFuture(rateLimiter, supplier, vertx);
+      Future<String> second = VertxRateLimiter.executeFuture(rateLimiter, supplier, vertx);
+      assertThat(second).isNotSameAs(first);
+      assertThat(first.cause()).isInstanceOf(RequestNotPermitted.class);
+      assertThat(first.cause().getStackTrace()).isNotEmpty();
+    } finally {
+      vertx.close().await();
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.netty.util.internal.InternalThreadLocalMap;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class HostResilienceInterceptorTest {
+  private static Future<HttpServer> startServer(Vertx vertx, int status, long delay) {
+    return vertx.createHttpServer()
+      .requestHandler(request -> vertx.setTimer(delay, ignored -> request.response().setStatusCode(status).end()))
+      .listen(0);
+  }
+
+  @Test
+  public void shouldOpenCircuitBreakerOfFailingHostOnly(Vertx vertx, VertxTestContext test) {
+    HostResilienceInterceptor interceptor = HostResilienceInterceptor.builder()
+      .withCircuitBreakers(CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+        .minimumNumberOfCalls(2)
+        .slidingWindowSize(2)
+        .build()))
+      .build();
+    WebClient client = interceptor.attachTo(WebClient.create(vertx));
+
+    Future.all(startServer(vertx, 500, 1), startServer(vertx, 200, 1)).onComplete(test.succeeding(servers -> {
+      int failing = servers.<HttpServer>resultAt(0).actualPort();
+      int healthy = servers.<HttpServer>resultAt(1).actualPort();
+
+      client.get(failing, "localhost", "/").send()
+        .compose(ignored -> client.get(failing, "localhost", "/").send())
+        .compose(ignored -> client.get(failing, "localhost", "/").send())
+        .onComplete(test.failing(error -> test.verify(() -> {
+          assertThat(error).isInstanceOf(CallNotPermittedException.class);
+          CircuitBreaker circuitBreaker = interceptor.getPolicies("localhost", failing).getCircuitBreaker();
+          assertThat(circuitBreaker.getName()).isEqualTo("localhost:" + failing);
+          assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+          client.get(healthy, "localhost", "/").send().onComplete(test.succeeding(response -> test.verify(() -> {
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(interceptor.getPolicies("localhost", healthy).getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+            test.completeNow();
+          })));
+        })));
+    }));
+  }
+
+  @Test
+  public void shouldLimitConcurrentRequestsPerHost(Vertx vertx, VertxTestContext test) {
+    HostResilienceInterceptor interceptor = HostResilienceInterceptor.builder()
+      .withBulkheads(BulkheadRegistry.of(BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build()))
+      .build();
+    WebClient client = interceptor.attachTo(WebClient.create(vertx));
+
+    Future.all(startServer(vertx, 200, 200), startServer(vertx, 200, 1)).onComplete(test.succeeding(servers -> {
+      int slow = servers.<HttpServer>resultAt(0).actualPort();
+      int fast = servers.<HttpServer>resultAt(1).actualPort();
+
+      Future<HttpResponse<Buffer>> first = client.get(slow, "localhost", "/").send();
+      Future<HttpResponse<Buffer>> second = client.get(slow, "localhost", "/").send();
+      Future<HttpResponse<Buffer>> other = client.get(fast, "localhost", "/").send();
+
+      Future.join(first, second, other).onComplete(ignored -> test.verify(() -> {
+        assertThat(first.succeeded()).isTrue();
+        assertThat(second.cause()).isInstanceOf(BulkheadFullException.class);
+        assertThat(other.succeeded()).isTrue();
+        // the permit of the slow host was released with its response
+        assertThat(interceptor.getPolicies("localhost", slow).getBulkhead().getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+        test.completeNow();
+      }));
+    }));
+  }
+
+  @Test
+  public void shouldTimeOutSlowHostAndRecordFailure(Vertx vertx, VertxTestContext test) {
+    HostResilienceInterceptor interceptor = HostResilienceInterceptor.builder()
+      .withCircuitBreakers(CircuitBreakerRegistry.ofDefaults())
+      .withTimeLimiters(TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofMillis(100)).build()),
+        TimeoutScheduler.create(vertx))
+      .build();
+    WebClient client = interceptor.attachTo(WebClient.create(vertx));
+
+    startServer(vertx, 200, 1000).onComplete(test.succeeding(server -> vertx.runOnContext(ignored -> {
+      long start = System.nanoTime();
+      client.get(server.actualPort(), "localhost", "/").send().onComplete(test.failing(error -> test.verify(() -> {
+        assertThat(error).isInstanceOf(TimeoutException.class);
+        assertThat(System.nanoTime() - start).isLessThan(Duration.ofMillis(800).toNanos());
+        HostResilienceInterceptor.HostPolicies policies = interceptor.getPolicies("localhost", server.actualPort());
+        assertThat(policies.getCircuitBreaker().getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+        test.completeNow();
+      })));
+    })));
+  }
+
+  @Test
+  public void shouldReturnSamePoliciesFromEveryEventLoop(Vertx vertx) {
+    HostResilienceInterceptor interceptor = HostResilienceInterceptor.builder()
+      .withCircuitBreakers(CircuitBreakerRegistry.ofDefaults())
+      .build();
+
+    HostResilienceInterceptor.HostPolicies policies = interceptor.getPolicies("example.com", 80);
+    assertThat(interceptor.getPolicies("example.com", 80)).isSameAs(policies);
+    assertThat(interceptor.getPolicies("example.com", 443)).isNotSameAs(policies);
+    assertThat(vertx.executeBlocking(() -> interceptor.getPolicies("example.com", 80)).await()).isSameAs(policies);
+  }
+
+  @Test
+  public void shouldNotTakeThreadLocalPerInterceptor(Vertx vertx) {
+    HostResilienceInterceptor first = HostResilienceInterceptor.builder()
+      .withCircuitBreakers(CircuitBreakerRegistry.ofDefaults())
+      .build();
+    first.getPolicies("example.com", 80);
+    int lastIndex = InternalThreadLocalMap.lastVariableIndex();
+
+    for (int i = 0; i < 100; i++) {
+      HostResilienceInterceptor interceptor = HostResilienceInterceptor.builder()
+        .withCircuitBreakers(CircuitBreakerRegistry.ofDefaults())
+        .build();
+      // each interceptor keeps its own policies
+      assertThat(interceptor.getPolicies("example.com", 80)).isNotSameAs(first.getPolicies("example.com", 80));
+    }
+
+    assertThat(InternalThreadLocalMap.lastVariableIndex()).isEqualTo(lastIndex);
+  }
+}
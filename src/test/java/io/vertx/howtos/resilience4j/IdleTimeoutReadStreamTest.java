@@ -0,0 +1,131 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class IdleTimeoutReadStreamTest {
+  private static final int SIZE = 64 * 1024;
+  private static final Duration TIMEOUT = Duration.ofMillis(100);
+
+  @TempDir
+  Path dir;
+
+  private static int listen(Vertx vertx, Consumer<HttpServerRequest> handler) {
+    return vertx.createHttpServer().requestHandler(handler::accept).listen(0).await().actualPort();
+  }
+
+  private static Future<HttpClientResponse> get(HttpClient client, int port, long offset) {
+    return client.request(HttpMethod.GET, port, "localhost", "/")
+      .compose(request -> request.putHeader("Range", "bytes=" + offset + "-").send());
+  }
+
+  private AsyncFile destination(Vertx vertx) {
+    return vertx.fileSystem().open(dir.resolve("destination").toString(), new OpenOptions()).await();
+  }
+
+  @Test
+  public void shouldFailWithoutFirstByte(Vertx vertx, VertxTestContext test) {
+    int port = listen(vertx, request -> request.response().setChunked(true).write(Buffer.buffer()));
+    HttpClient client = vertx.createHttpClient();
+    TimeoutScheduler scheduler = TimeoutScheduler.create(vertx);
+    AsyncFile destination = destination(vertx);
+
+    long start = System.nanoTime();
+    get(client, port, 0)
+      .compose(response -> IdleTimeoutReadStream.create(scheduler, response, TIMEOUT, Duration.ofSeconds(10)).pipeTo(destination))
+      .onComplete(test.failing(error -> test.verify(() -> {
+        assertThat(error).isInstanceOf(TimeoutException.class).hasMessageContaining("first byte");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(TIMEOUT);
+        test.completeNow();
+      })));
+  }
+
+  @Test
+  public void shouldFailWhenStreamStallsHalfway(Vertx vertx, VertxTestContext test) {
+    int port = listen(vertx, request -> request.response().setChunked(true).write(Buffer.buffer(new byte[SIZE / 2])));
+    HttpClient client = vertx.createHttpClient();
+    TimeLimiter timeLimiter = TimeLimiter.of("stream", TimeLimiterConfig.custom().timeoutDuration(TIMEOUT).build());
+    List<Integer> chunks = new CopyOnWriteArrayList<>();
+
+    get(client, port, 0)
+      .compose(response -> {
+        Promise<Void> end = Promise.promise();
+        VertxTimeLimiter.decorateStream(timeLimiter, TimeoutScheduler.create(vertx), response)
+          .exceptionHandler(end::fail)
+          .endHandler(end::complete)
+          .handler(chunk -> chunks.add(chunk.length()));
+        return end.future();
+      })
+      .onComplete(test.failing(error -> test.verify(() -> {
+        assertThat(error).isInstanceOf(TimeoutException.class).hasMessageContaining("stream");
+        assertThat(chunks.stream().mapToInt(Integer::intValue).sum()).isEqualTo(SIZE / 2);
+        test.completeNow();
+      })));
+  }
+
+  @Test
+  public void shouldRetryFromLastReceivedOffset(Vertx vertx, VertxTestContext test) {
+    byte[] bytes = new byte[SIZE];
+    ThreadLocalRandom.current().nextBytes(bytes);
+    Buffer content = Buffer.buffer(bytes);
+    List<String> ranges = new CopyOnWriteArrayList<>();
+    int port = listen(vertx, request -> {
+      String range = request.getHeader("Range");
+      ranges.add(range);
+      int offset = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+      if (ranges.size() == 1) {
+        // the first attempt stalls after half of the content
+        request.response().setChunked(true).write(content.slice(0, SIZE / 2));
+      } else {
+        request.response().setStatusCode(206).end(content.slice(offset, SIZE));
+      }
+    });
+    HttpClient client = vertx.createHttpClient();
+    TimeoutScheduler scheduler = TimeoutScheduler.create(vertx);
+    Retry retry = Retry.of("stream", RetryConfig.custom()
+      .maxAttempts(3)
+      .waitDuration(Duration.ofMillis(10))
+      .build());
+    AsyncFile destination = destination(vertx);
+
+    VertxRetry.executeStream(retry, vertx,
+        // only the stall is meant to time out, not a first byte delayed by a busy machine
+        offset -> get(client, port, offset).map(response -> IdleTimeoutReadStream.create(scheduler, response, Duration.ofSeconds(5), TIMEOUT)),
+        destination)
+      .onComplete(test.succeeding(written -> test.verify(() -> {
+        assertThat(written).isEqualTo(SIZE);
+        assertThat(ranges).containsExactly("bytes=0-", "bytes=" + SIZE / 2 + "-");
+        assertThat(vertx.fileSystem().readFileBlocking(dir.resolve("destination").toString())).isEqualTo(content);
+        assertThat(retry.getMetrics().getNumberOfSuccessfulCallsWithRetryAttempt()).isEqualTo(1);
+        test.completeNow();
+      })));
+  }
+}
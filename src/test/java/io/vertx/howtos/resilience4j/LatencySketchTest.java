@@ -0,0 +1,40 @@
+package io.vertx.howtos.resilience4j;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencySketchTest {
+  @Test
+  public void shouldReportQuantilesWithinRelativeAccuracy() {
+    LatencySketch sketch = new LatencySketch();
+    for (long value = 1; value <= 10_000; value++) {
+      sketch.record(value * 1_000_000);
+    }
+
+    assertThat(sketch.getCount()).isEqualTo(10_000);
+    assertThat((double) sketch.getValueAtQuantile(0.5)).isCloseTo(5_000_000_000.0, within(100_000_000.0));
+    assertThat((double) sketch.getValueAtQuantile(0.99)).isCloseTo(9_900_000_000.0, within(198_000_000.0));
+  }
+
+  @Test
+  public void shouldClampValuesOutsideRange() {
+    LatencySketch sketch = new LatencySketch(1_000, 1_000_000, 0.02);
+    sketch.record(1);
+    sketch.record(Long.MAX_VALUE);
+
+    assertThat(sketch.getValueAtQuantile(0)).isEqualTo(1_000);
+    assertThat((double) sketch.getValueAtQuantile(1)).isCloseTo(1_000_000.0, within(40_000.0));
+  }
+
+  @Test
+  public void shouldBeEmptyAfterReset() {
+    LatencySketch sketch = new LatencySketch();
+    sketch.record(1_000_000);
+    sketch.reset();
+
+    assertThat(sketch.getCount()).isZero();
+    assertThat(sketch.getValueAtQuantile(0.5)).isZero();
+  }
+}
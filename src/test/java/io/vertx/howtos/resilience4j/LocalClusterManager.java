@@ -0,0 +1,170 @@
+package io.vertx.howtos.resilience4j;
+
+import io.vertx.core.Completable;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.AsyncMap;
+import io.vertx.core.shareddata.Counter;
+import io.vertx.core.shareddata.Lock;
+import io.vertx.core.spi.cluster.ClusterManager;
+import io.vertx.core.spi.cluster.NodeInfo;
+import io.vertx.core.spi.cluster.NodeListener;
+import io.vertx.core.spi.cluster.RegistrationInfo;
+import io.vertx.core.spi.cluster.RegistrationListener;
+import io.vertx.core.spi.cluster.RegistrationUpdateEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A cluster manager for several clustered {@link Vertx} instances in the same JVM, enough for the event bus.
+ * Shared data is not supported.
+ */
+public class LocalClusterManager implements ClusterManager {
+  private static final Map<String, LocalClusterManager> NODES = new ConcurrentHashMap<>();
+  private static final Map<String, NodeInfo> NODE_INFOS = new ConcurrentHashMap<>();
+  private static final Map<String, List<RegistrationInfo>> REGISTRATIONS = new ConcurrentHashMap<>();
+  private static final Map<String, Map<?, ?>> SYNC_MAPS = new ConcurrentHashMap<>();
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private volatile NodeListener nodeListener;
+  private volatile RegistrationListener registrationListener;
+  private volatile boolean active;
+
+  @Override
+  public void init(Vertx vertx) {
+  }
+
+  @Override
+  public <K, V> void getAsyncMap(String name, Completable<AsyncMap<K, V>> promise) {
+    promise.fail(new UnsupportedOperationException());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <K, V> Map<K, V> getSyncMap(String name) {
+    return (Map<K, V>) SYNC_MAPS.computeIfAbsent(name, ignored -> new ConcurrentHashMap<>());
+  }
+
+  @Override
+  public void getLockWithTimeout(String name, long timeout, Completable<Lock> promise) {
+    promise.fail(new UnsupportedOperationException());
+  }
+
+  @Override
+  public void getCounter(String name, Completable<Counter> promise) {
+    promise.fail(new UnsupportedOperationException());
+  }
+
+  @Override
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  @Override
+  public List<String> getNodes() {
+    return new ArrayList<>(NODES.keySet());
+  }
+
+  @Override
+  public void nodeListener(NodeListener listener) {
+    this.nodeListener = listener;
+  }
+
+  @Override
+  public void setNodeInfo(NodeInfo nodeInfo, Completable<Void> promise) {
+    NODE_INFOS.put(nodeId, nodeInfo);
+    promise.succeed();
+  }
+
+  @Override
+  public NodeInfo getNodeInfo() {
+    return NODE_INFOS.get(nodeId);
+  }
+
+  @Override
+  public void getNodeInfo(String nodeId, Completable<NodeInfo> promise) {
+    NodeInfo nodeInfo = NODE_INFOS.get(nodeId);
+    if (nodeInfo != null) {
+      promise.succeed(nodeInfo);
+    } else {
+      promise.fail("Unknown node " + nodeId);
+    }
+  }
+
+  @Override
+  public void join(Completable<Void> promise) {
+    active = true;
+    for (LocalClusterManager node : NODES.values()) {
+      NodeListener listener = node.nodeListener;
+      if (listener != null) {
+        listener.nodeAdded(nodeId);
+      }
+    }
+    NODES.put(nodeId, this);
+    promise.succeed();
+  }
+
+  @Override
+  public void leave(Completable<Void> promise) {
+    active = false;
+    NODES.remove(nodeId);
+    NODE_INFOS.remove(nodeId);
+    for (Map.Entry<String, List<RegistrationInfo>> entry : REGISTRATIONS.entrySet()) {
+      if (entry.getValue().removeIf(registration -> registration.nodeId().equals(nodeId))) {
+        fireRegistrationsUpdated(entry.getKey());
+      }
+    }
+    for (LocalClusterManager node : NODES.values()) {
+      NodeListener listener = node.nodeListener;
+      if (listener != null) {
+        listener.nodeLeft(nodeId);
+      }
+    }
+    promise.succeed();
+  }
+
+  @Override
+  public boolean isActive() {
+    return active;
+  }
+
+  @Override
+  public void registrationListener(RegistrationListener listener) {
+    this.registrationListener = listener;
+  }
+
+  @Override
+  public void addRegistration(String address, RegistrationInfo registrationInfo, Completable<Void> promise) {
+    REGISTRATIONS.computeIfAbsent(address, ignored -> new CopyOnWriteArrayList<>()).add(registrationInfo);
+    fireRegistrationsUpdated(address);
+    promise.succeed();
+  }
+
+  @Override
+  public void removeRegistration(String address, RegistrationInfo registrationInfo, Completable<Void> promise) {
+    List<RegistrationInfo> registrations = REGISTRATIONS.get(address);
+    if (registrations != null && registrations.remove(registrationInfo)) {
+      fireRegistrationsUpdated(address);
+    }
+    promise.succeed();
+  }
+
+  @Override
+  public void getRegistrations(String address, Completable<List<RegistrationInfo>> promise) {
+    promise.succeed(new ArrayList<>(REGISTRATIONS.getOrDefault(address, List.of())));
+  }
+
+  private static void fireRegistrationsUpdated(String address) {
+    List<RegistrationInfo> registrations = new ArrayList<>(REGISTRATIONS.getOrDefault(address, List.of()));
+    for (LocalClusterManager node : NODES.values()) {
+      RegistrationListener listener = node.registrationListener;
+      if (listener != null && listener.wantsUpdatesFor(address)) {
+        listener.registrationsUpdated(new RegistrationUpdateEvent(address, registrations));
+      }
+    }
+  }
+}
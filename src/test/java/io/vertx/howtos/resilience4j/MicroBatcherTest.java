@@ -0,0 +1,159 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.netty.util.internal.InternalThreadLocalMap;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class MicroBatcherTest {
+  @Test
+  public void shouldCoalesceItemsIntoBulkCalls(Vertx vertx, VertxTestContext test) {
+    List<List<String>> bulkCalls = new CopyOnWriteArrayList<>();
+    MicroBatcher<String, String, String> batcher = MicroBatcher.<String, String, String>builder(vertx, (key, items) -> {
+        bulkCalls.add(List.copyOf(items));
+        return Future.succeededFuture(items.stream().map(item -> key + ":" + item).toList());
+      })
+      .maxBatchSize(2)
+      .maxLinger(Duration.ofMillis(50))
+      .build();
+
+    vertx.getOrCreateContext().runOnContext(ignored -> {
+      List<Future<String>> results = new ArrayList<>();
+      for (String item : List.of("a", "b", "c", "d", "e")) {
+        results.add(batcher.execute("hello", item));
+      }
+      results.add(batcher.execute("world", "f"));
+
+      Future.all(results).onComplete(test.succeeding(all -> test.verify(() -> {
+        assertThat(all.<String>list()).containsExactly("hello:a", "hello:b", "hello:c", "hello:d", "hello:e", "world:f");
+        // the full batches are sent right away, the others once their first item has lingered
+        assertThat(bulkCalls).containsExactly(List.of("a", "b"), List.of("c", "d"), List.of("e"), List.of("f"));
+        assertThat(batcher.getBatches()).isEqualTo(4);
+        assertThat(batcher.getItems()).isEqualTo(6);
+        test.completeNow();
+      })));
+    });
+  }
+
+  @Test
+  public void shouldRecordFailuresPerBatchOrPerItem(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker perBatch = CircuitBreaker.ofDefaults("per-batch");
+    CircuitBreaker perItem = CircuitBreaker.ofDefaults("per-item");
+    MicroBatcher<String, String, String> batcherPerBatch = MicroBatcher.<String, String, String>builder(vertx,
+        (key, items) -> Future.failedFuture(new HelloWorldException()))
+      .withCircuitBreaker(perBatch)
+      .build();
+    MicroBatcher<String, String, String> batcherPerItem = MicroBatcher.<String, String, String>builder(vertx,
+        (key, items) -> Future.failedFuture(new HelloWorldException()))
+      .withCircuitBreaker(perItem)
+      .recordPerItem(true)
+      .build();
+
+    vertx.getOrCreateContext().runOnContext(ignored -> {
+      List<Future<String>> results = new ArrayList<>();
+      for (String item : List.of("a", "b", "c")) {
+        results.add(batcherPerBatch.execute("hello", item));
+        results.add(batcherPerItem.execute("hello", item));
+      }
+
+      Future.join(results).onComplete(test.failing(error -> test.verify(() -> {
+        assertThat(results).allSatisfy(result -> assertThat(result.cause()).isInstanceOf(HelloWorldException.class));
+        assertThat(perBatch.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+        assertThat(perItem.getMetrics().getNumberOfFailedCalls()).isEqualTo(3);
+        test.completeNow();
+      })));
+    });
+  }
+
+  @Test
+  public void shouldRecordBatchOnceWhenCircuitBreakerIsHalfOpen(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = CircuitBreaker.of("test", CircuitBreakerConfig.custom()
+      .permittedNumberOfCallsInHalfOpenState(2)
+      .build());
+    circuitBreaker.transitionToOpenState();
+    circuitBreaker.transitionToHalfOpenState();
+    MicroBatcher<String, String, String> batcher = MicroBatcher.<String, String, String>builder(vertx,
+        (key, items) -> Future.succeededFuture(items))
+      .maxBatchSize(3)
+      .withCircuitBreaker(circuitBreaker)
+      .recordPerItem(true)
+      .build();
+
+    vertx.getOrCreateContext().runOnContext(ignored -> {
+      List<Future<String>> results = new ArrayList<>();
+      for (String item : List.of("a", "b", "c")) {
+        results.add(batcher.execute("hello", item));
+      }
+
+      Future.all(results).onComplete(test.succeeding(all -> test.verify(() -> {
+        // the batch took a single trial permit, the breaker waits for a second one
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(1);
+        test.completeNow();
+      })));
+    });
+  }
+
+  @Test
+  public void shouldFailWholeBatchWhenCircuitBreakerIsOpen(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("test");
+    circuitBreaker.transitionToOpenState();
+    List<List<String>> bulkCalls = new CopyOnWriteArrayList<>();
+    MicroBatcher<String, String, String> batcher = MicroBatcher.<String, String, String>builder(vertx, (key, items) -> {
+        bulkCalls.add(List.copyOf(items));
+        return Future.succeededFuture(items);
+      })
+      .maxBatchSize(3)
+      .withCircuitBreaker(circuitBreaker)
+      .build();
+
+    // outside an event loop, the batch is collected in the shared map
+    List<Future<String>> results = new ArrayList<>();
+    for (String item : List.of("a", "b", "c")) {
+      results.add(batcher.execute("hello", item));
+    }
+
+    Future.join(results).onComplete(test.failing(error -> test.verify(() -> {
+      assertThat(results).allSatisfy(result -> assertThat(result.cause()).isInstanceOf(CallNotPermittedException.class));
+      assertThat(bulkCalls).isEmpty();
+      assertThat(batcher.getBatches()).isEqualTo(1);
+      test.completeNow();
+    })));
+  }
+
+  @Test
+  public void shouldNotTakeThreadLocalPerBatcher(Vertx vertx, VertxTestContext test) {
+    vertx.getOrCreateContext().runOnContext(ignored -> {
+      MicroBatcher.<String, String, String>builder(vertx, (key, items) -> Future.succeededFuture(items)).build().execute("hello", "a");
+      int lastIndex = InternalThreadLocalMap.lastVariableIndex();
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        MicroBatcher<String, String, String> batcher = MicroBatcher.<String, String, String>builder(vertx,
+            (key, items) -> Future.succeededFuture(items))
+          .build();
+        results.add(batcher.execute("hello", "item-" + i));
+      }
+
+      Future.all(results).onComplete(test.succeeding(all -> test.verify(() -> {
+        // the batchers share a thread local, each one still sends its own batch
+        assertThat(InternalThreadLocalMap.lastVariableIndex()).isEqualTo(lastIndex);
+        assertThat(all.<String>list()).hasSize(100).doesNotHaveDuplicates();
+        test.completeNow();
+      })));
+    });
+  }
+}
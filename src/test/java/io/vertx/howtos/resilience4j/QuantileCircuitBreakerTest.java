@@ -0,0 +1,114 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@ExtendWith(VertxExtension.class)
+public class QuantileCircuitBreakerTest {
+  private static final Duration AGGREGATION_PERIOD = Duration.ofMillis(20);
+
+  private static CircuitBreaker circuitBreaker() {
+    // the slow call threshold of resilience4j alone would never open the breaker
+    return CircuitBreaker.of("test", CircuitBreakerConfig.custom()
+      .minimumNumberOfCalls(10)
+      .slowCallDurationThreshold(Duration.ofMinutes(1))
+      .build());
+  }
+
+  @Test
+  public void shouldOpenWhenTailExceedsThreshold(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = circuitBreaker();
+    QuantileCircuitBreaker quantile = QuantileCircuitBreaker.builder(vertx, circuitBreaker)
+      .threshold(Duration.ofMillis(20))
+      .window(AGGREGATION_PERIOD, 10)
+      .build();
+
+    vertx.getOrCreateContext().runOnContext(ignored -> {
+      // 48 fast calls and 2 slow ones: the average stays low, the p99 does not
+      for (int i = 0; i < 50; i++) {
+        long delay = i % 25 == 0 ? 50 : 1;
+        VertxCircuitBreaker.executeFuture(quantile, () -> vertx.timer(delay).map("Hello world"));
+      }
+
+      vertx.setTimer(300, timer -> {
+        VertxCircuitBreaker.executeFuture(quantile, () -> Future.succeededFuture("Hello world"))
+          .onComplete(test.failing(error -> test.verify(() -> {
+            assertThat(error).isInstanceOf(CallNotPermittedException.class);
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+            assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+            quantile.close();
+            test.completeNow();
+          })));
+      });
+    });
+  }
+
+  @Test
+  public void shouldStayClosedWhenTailIsFast(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = circuitBreaker();
+    QuantileCircuitBreaker quantile = QuantileCircuitBreaker.builder(vertx, circuitBreaker)
+      .threshold(Duration.ofMillis(100))
+      .window(AGGREGATION_PERIOD, 100)
+      .build();
+
+    vertx.getOrCreateContext().runOnContext(ignored -> {
+      for (int i = 0; i < 50; i++) {
+        VertxCircuitBreaker.executeFuture(quantile, () -> vertx.timer(1).map("Hello world"));
+      }
+
+      vertx.setTimer(200, timer -> test.verify(() -> {
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(quantile.getObservedNanos()).isPositive().isLessThan(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(quantile.getBaselineNanos()).isPositive();
+        quantile.close();
+        test.completeNow();
+      }));
+    });
+  }
+
+  @Test
+  public void shouldOpenWhenTailDriftsFromBaseline(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = circuitBreaker();
+    QuantileCircuitBreaker quantile = QuantileCircuitBreaker.builder(vertx, circuitBreaker)
+      .maxDrift(5)
+      .baselineWeight(0.5)
+      .window(AGGREGATION_PERIOD, 5)
+      .build();
+
+    for (int i = 0; i < 100; i++) {
+      quantile.record(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    vertx.setTimer(200, first -> {
+      test.verify(() -> {
+        assertThat(quantile.getBaselineNanos()).isCloseTo(TimeUnit.MILLISECONDS.toNanos(1), within(50_000L));
+        // the window has moved past the fast calls
+        assertThat(quantile.getObservedNanos()).isEqualTo(-1);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+      });
+      // well below any fixed threshold one would configure, but 10 times the usual tail
+      for (int i = 0; i < 100; i++) {
+        quantile.record(TimeUnit.MILLISECONDS.toNanos(10));
+      }
+
+      vertx.setTimer(100, second -> test.verify(() -> {
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        quantile.close();
+        test.completeNow();
+      }));
+    });
+  }
+}
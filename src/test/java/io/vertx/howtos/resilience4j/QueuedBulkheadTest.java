@@ -0,0 +1,155 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@ExtendWith(VertxExtension.class)
+public class QueuedBulkheadTest {
+  private Bulkhead bulkhead;
+
+  @BeforeEach
+  public void setUp() {
+    bulkhead = Bulkhead.of("test", BulkheadConfig.custom()
+      .maxConcurrentCalls(1)
+      .maxWaitDuration(Duration.ZERO)
+      .build());
+  }
+
+  @Test
+  public void shouldRefuseBulkheadThatWouldBlock(Vertx vertx) {
+    Bulkhead blocking = Bulkhead.of("blocking", BulkheadConfig.custom()
+      .maxWaitDuration(Duration.ofSeconds(1))
+      .build());
+
+    assertThatThrownBy(() -> QueuedBulkhead.of(vertx, blocking, 10, Duration.ofSeconds(1)))
+      .isInstanceOf(IllegalArgumentException.class);
+    assertThat(blocking.getBulkheadConfig().getMaxWaitDuration()).isEqualTo(Duration.ofSeconds(1));
+  }
+
+  @Test
+  public void shouldNotLetNewCallsOvertakeQueuedCalls(Vertx vertx, VertxTestContext test) {
+    QueuedBulkhead queued = QueuedBulkhead.of(vertx, bulkhead, 10, Duration.ofSeconds(1));
+    List<String> started = new CopyOnWriteArrayList<>();
+
+    // another user of the bulkhead holds the only permit
+    bulkhead.tryAcquirePermission();
+    Future<String> first = VertxBulkhead.executeFuture(queued, () -> {
+      started.add("first");
+      return Future.succeededFuture("first");
+    });
+    // released outside of the queued bulkhead, which does not drain its queue
+    bulkhead.onComplete();
+    Future<String> second = VertxBulkhead.executeFuture(queued, () -> {
+      started.add("second");
+      return Future.succeededFuture("second");
+    });
+
+    Future.all(first, second).onComplete(test.succeeding(ignored -> test.verify(() -> {
+      assertThat(started).containsExactly("first", "second");
+      test.completeNow();
+    })));
+  }
+
+  @Test
+  public void shouldResumeQueuedCallsInOrder(Vertx vertx, VertxTestContext test) {
+    QueuedBulkhead queued = QueuedBulkhead.of(vertx, bulkhead, 10, Duration.ofSeconds(1));
+    List<Integer> completed = new CopyOnWriteArrayList<>();
+
+    for (int i = 0; i < 3; i++) {
+      int call = i;
+      Supplier<Future<Integer>> supplier = () -> vertx.timer(50).map(call);
+      VertxBulkhead.executeFuture(queued, supplier).onComplete(test.succeeding(result -> {
+        completed.add(result);
+        if (completed.size() == 3) {
+          assertThat(completed).containsExactly(0, 1, 2);
+          assertThat(queued.getQueueSize()).isZero();
+          test.completeNow();
+        }
+      }));
+    }
+
+    test.verify(() -> assertThat(queued.getQueueSize()).isEqualTo(2));
+  }
+
+  @Test
+  public void shouldRejectWhenQueueIsFull(Vertx vertx, VertxTestContext test) {
+    QueuedBulkhead queued = QueuedBulkhead.of(vertx, bulkhead, 1, Duration.ofSeconds(1));
+    Supplier<Future<Integer>> supplier = () -> vertx.timer(100).map(0);
+
+    VertxBulkhead.executeFuture(queued, supplier);
+    VertxBulkhead.executeFuture(queued, supplier);
+    Future<Integer> rejected = VertxBulkhead.executeFuture(queued, supplier);
+
+    rejected.onComplete(test.failing(error -> {
+      assertThat(error).isInstanceOf(BulkheadFullException.class);
+      assertThat(queued.getQueueSize()).isEqualTo(1);
+      test.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldFailQueuedCallAfterMaxWaitDuration(Vertx vertx, VertxTestContext test) {
+    QueuedBulkhead queued = QueuedBulkhead.of(vertx, bulkhead, 10, Duration.ofMillis(50));
+    Supplier<Future<Integer>> supplier = () -> vertx.timer(1000).map(0);
+
+    VertxBulkhead.executeFuture(queued, supplier);
+    long start = System.nanoTime();
+    Future<Integer> expired = VertxBulkhead.executeFuture(queued, supplier);
+
+    expired.onComplete(test.failing(error -> {
+      assertThat(error).isInstanceOf(BulkheadFullException.class);
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(900));
+      assertThat(queued.getQueueSize()).isZero();
+      test.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldNotTakeQueueLockWhenNothingIsQueued(Vertx vertx) throws Exception {
+    QueuedBulkhead queued = QueuedBulkhead.of(vertx, bulkhead, 10, Duration.ofSeconds(1));
+    Field field = QueuedBulkhead.class.getDeclaredField("queue");
+    field.setAccessible(true);
+    Object queue = field.get(queued);
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch unlock = new CountDownLatch(1);
+    Thread holder = new Thread(() -> {
+      synchronized (queue) {
+        locked.countDown();
+        try {
+          unlock.await();
+        } catch (InterruptedException ignored) {
+        }
+      }
+    });
+    holder.start();
+    locked.await();
+    try {
+      Future<String> result = assertTimeoutPreemptively(Duration.ofSeconds(5),
+        () -> VertxBulkhead.executeFuture(queued, () -> Future.succeededFuture("fast")));
+      assertThat(result.result()).isEqualTo("fast");
+      assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+    } finally {
+      unlock.countDown();
+      holder.join();
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.handler.BodyHandler;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class ResilienceHandlerTest {
+  private static Future<HttpServer> startServer(Vertx vertx, Router router) {
+    return vertx.createHttpServer().requestHandler(router).listen(0);
+  }
+
+  @Test
+  public void shouldRejectWith503WhenCircuitBreakerIsOpen(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("handler-cb-open");
+    circuitBreaker.transitionToOpenState();
+    AtomicInteger handled = new AtomicInteger();
+    Router router = Router.router(vertx);
+    router.route("/api/*")
+      .handler(ResilienceHandler.builder().withCircuitBreaker(circuitBreaker).build())
+      .handler(BodyHandler.create());
+    router.post("/api/hello").handler(ctx -> {
+      handled.incrementAndGet();
+      ctx.end("Hello");
+    });
+
+    startServer(vertx, router)
+      .compose(server -> WebClient.create(vertx).post(server.actualPort(), "localhost", "/api/hello").sendBuffer(Buffer.buffer("body")))
+      .onComplete(test.succeeding(response -> test.verify(() -> {
+        assertThat(response.statusCode()).isEqualTo(503);
+        assertThat(handled).hasValue(0);
+        test.completeNow();
+      })));
+  }
+
+  @Test
+  public void shouldRecordServerErrorsInCircuitBreaker(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("handler-cb-errors");
+    Router router = Router.router(vertx);
+    router.route().handler(ResilienceHandler.builder().withCircuitBreaker(circuitBreaker).build());
+    router.get("/ok").handler(ctx -> ctx.end("ok"));
+    router.get("/error").handler(ctx -> ctx.response().setStatusCode(500).end());
+
+    startServer(vertx, router).compose(server -> {
+      WebClient client = WebClient.create(vertx);
+      return client.get(server.actualPort(), "localhost", "/ok").send()
+        .compose(ignored -> client.get(server.actualPort(), "localhost", "/error").send());
+    }).onComplete(test.succeeding(response -> vertx.setTimer(50, ignored -> test.verify(() -> {
+      assertThat(response.statusCode()).isEqualTo(500);
+      assertThat(circuitBreaker.getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(1);
+      assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+      test.completeNow();
+    }))));
+  }
+
+  @Test
+  public void shouldRejectWith429WhenRateLimited(Vertx vertx, VertxTestContext test) {
+    RateLimiter rateLimiter = RateLimiter.of("handler-rl", RateLimiterConfig.custom()
+      .limitForPeriod(1)
+      .limitRefreshPeriod(Duration.ofSeconds(10))
+      .timeoutDuration(Duration.ZERO)
+      .build());
+    Router router = Router.router(vertx);
+    router.route().handler(ResilienceHandler.builder().withRateLimiter(rateLimiter).build());
+    router.get("/").handler(ctx -> ctx.end("ok"));
+
+    startServer(vertx, router).compose(server -> {
+      WebClient client = WebClient.create(vertx);
+      return client.get(server.actualPort(), "localhost", "/").send()
+        .compose(first -> {
+          assertThat(first.statusCode()).isEqualTo(200);
+          return client.get(server.actualPort(), "localhost", "/").send();
+        });
+    }).onComplete(test.succeeding(response -> test.verify(() -> {
+      assertThat(response.statusCode()).isEqualTo(429);
+      assertThat(response.getHeader("Retry-After")).isEqualTo("10");
+      test.completeNow();
+    })));
+  }
+
+  @Test
+  public void shouldRejectWith503WhenBulkheadIsFullAndReleaseOnEnd(Vertx vertx, VertxTestContext test) {
+    Bulkhead bulkhead = Bulkhead.of("handler-bh", BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build());
+    Router router = Router.router(vertx);
+    router.route().handler(ResilienceHandler.builder().withBulkhead(bulkhead).build());
+    router.get("/slow").handler(ctx -> vertx.setTimer(200, ignored -> ctx.end("slow")));
+    router.get("/fast").handler(ctx -> ctx.end("fast"));
+
+    startServer(vertx, router).onComplete(test.succeeding(server -> {
+      WebClient client = WebClient.create(vertx);
+      Future<HttpResponse<Buffer>> slow = client.get(server.actualPort(), "localhost", "/slow").send();
+      vertx.setTimer(50, ignored -> client.get(server.actualPort(), "localhost", "/fast").send()
+        .onComplete(test.succeeding(rejected -> slow.onComplete(test.succeeding(first -> {
+          assertThat(rejected.statusCode()).isEqualTo(503);
+          assertThat(first.statusCode()).isEqualTo(200);
+          client.get(server.actualPort(), "localhost", "/fast").send().onComplete(test.succeeding(permitted -> test.verify(() -> {
+            assertThat(permitted.statusCode()).isEqualTo(200);
+            test.completeNow();
+          })));
+        })))));
+    }));
+  }
+}
@@ -0,0 +1,167 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class ResilienceMetricsTest {
+  private final ResilienceMetrics metrics = new ResilienceMetrics();
+
+  @BeforeEach
+  public void setUp() {
+    ResilienceMetrics.setDefault(metrics);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    ResilienceMetrics.setDefault(null);
+  }
+
+  @Test
+  public void shouldNotRecordUnlessInstalled(Vertx vertx, VertxTestContext test) {
+    ResilienceMetrics.setDefault(null);
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("metrics-cb");
+
+    VertxCircuitBreaker.executeFuture(circuitBreaker, () -> Future.succeededFuture("ok")).onComplete(test.succeeding(result -> test.verify(() -> {
+      assertThat(ResilienceMetrics.getDefault().isEnabled()).isFalse();
+      assertThat(metrics.size(ResilienceMetrics.Policy.CIRCUIT_BREAKER)).isZero();
+      assertThat(ResilienceMetrics.getDefault().recorder(ResilienceMetrics.Policy.CIRCUIT_BREAKER, "metrics-cb")
+        .getCount(ResilienceMetrics.Outcome.SUCCESS)).isZero();
+      test.completeNow();
+    })));
+  }
+
+  @Test
+  public void shouldDropRemovedRecorders() {
+    metrics.recorder(ResilienceMetrics.Policy.BULKHEAD, "metrics-bh").recordRejected();
+    assertThat(metrics.scrape()).contains("name=\"metrics-bh\"");
+
+    metrics.remove(ResilienceMetrics.Policy.BULKHEAD, "metrics-bh");
+
+    assertThat(metrics.size(ResilienceMetrics.Policy.BULKHEAD)).isZero();
+    assertThat(metrics.scrape()).doesNotContain("metrics-bh");
+  }
+
+  @Test
+  public void shouldRecordCircuitBreakerOutcomes(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("metrics-cb");
+
+    Future<String> success = VertxCircuitBreaker.executeFuture(circuitBreaker, () -> vertx.timer(20).map("ok"));
+    Future<String> failure = VertxCircuitBreaker.executeFuture(circuitBreaker, () -> Future.failedFuture(new HelloWorldException()));
+
+    Future.join(success, failure).onComplete(ignored -> {
+      circuitBreaker.transitionToOpenState();
+      VertxCircuitBreaker.executeFuture(circuitBreaker, () -> Future.succeededFuture("ok")).onComplete(test.failing(error -> test.verify(() -> {
+        ResilienceMetrics.Recorder recorder = metrics.recorder(ResilienceMetrics.Policy.CIRCUIT_BREAKER, "metrics-cb");
+        assertThat(recorder.getCount(ResilienceMetrics.Outcome.SUCCESS)).isEqualTo(1);
+        assertThat(recorder.getCount(ResilienceMetrics.Outcome.FAILURE)).isEqualTo(1);
+        assertThat(recorder.getCount(ResilienceMetrics.Outcome.REJECTED)).isEqualTo(1);
+
+        String scrape = metrics.scrape();
+        assertThat(scrape).contains("resilience4j_calls_total{policy=\"circuitbreaker\",name=\"metrics-cb\",outcome=\"rejected\"} 1");
+        assertThat(scrape).containsPattern(
+          "resilience4j_call_duration_seconds\\{policy=\"circuitbreaker\",name=\"metrics-cb\",outcome=\"success\",quantile=\"0.5\"} 0\\.0[12]");
+        test.completeNow();
+      })));
+    });
+  }
+
+  @Test
+  public void shouldRecordRetryAttempts(Vertx vertx, VertxTestContext test) {
+    Retry retry = Retry.of("metrics-retry", RetryConfig.custom().maxAttempts(3).waitDuration(Duration.ofMillis(10)).build());
+    AtomicInteger calls = new AtomicInteger();
+
+    VertxRetry.executeFuture(retry, vertx, () -> calls.incrementAndGet() < 3
+      ? Future.failedFuture(new HelloWorldException())
+      : Future.succeededFuture("ok")).onComplete(test.succeeding(result -> test.verify(() -> {
+      ResilienceMetrics.Recorder recorder = metrics.recorder(ResilienceMetrics.Policy.RETRY, "metrics-retry");
+      assertThat(recorder.getNumberOfCallsWithAttempts(3)).isEqualTo(1);
+      assertThat(recorder.getCount(ResilienceMetrics.Outcome.SUCCESS)).isEqualTo(1);
+      assertThat(metrics.scrape())
+        .contains("resilience4j_retry_attempts_bucket{name=\"metrics-retry\",le=\"2\"} 0")
+        .contains("resilience4j_retry_attempts_bucket{name=\"metrics-retry\",le=\"3\"} 1")
+        .contains("resilience4j_retry_attempts_sum{name=\"metrics-retry\"} 3");
+      test.completeNow();
+    })));
+  }
+
+  @Test
+  public void shouldRecordTimeouts(Vertx vertx, VertxTestContext test) {
+    TimeLimiter timeLimiter = TimeLimiter.of("metrics-tl", TimeLimiterConfig.custom().timeoutDuration(Duration.ofMillis(50)).build());
+
+    // the outcome is recorded by whoever completes the promise first, right after it was completed
+    VertxTimeLimiter.executeFuture(timeLimiter, vertx, () -> vertx.timer(1000)).onComplete(test.failing(error -> vertx.runOnContext(ignored -> test.verify(() -> {
+      ResilienceMetrics.Recorder recorder = metrics.recorder(ResilienceMetrics.Policy.TIME_LIMITER, "metrics-tl");
+      assertThat(recorder.getCount(ResilienceMetrics.Outcome.TIMEOUT)).isEqualTo(1);
+      assertThat(recorder.getCount(ResilienceMetrics.Outcome.SUCCESS)).isZero();
+      test.completeNow();
+    }))));
+  }
+
+  @Test
+  public void shouldRecordRateLimiterDelay(Vertx vertx, VertxTestContext test) {
+    RateLimiter rateLimiter = RateLimiter.of("metrics-rl", RateLimiterConfig.custom()
+      .limitForPeriod(1)
+      .limitRefreshPeriod(Duration.ofMillis(100))
+      .timeoutDuration(Duration.ofSeconds(1))
+      .build());
+
+    List<Future<String>> futures = List.of(
+      VertxRateLimiter.executeFuture(rateLimiter, () -> Future.succeededFuture("ok"), vertx),
+      VertxRateLimiter.executeFuture(rateLimiter, () -> Future.succeededFuture("ok"), vertx));
+
+    Future.all(futures).onComplete(test.succeeding(ignored -> test.verify(() -> {
+      ResilienceMetrics.Recorder recorder = metrics.recorder(ResilienceMetrics.Policy.RATE_LIMITER, "metrics-rl");
+      assertThat(recorder.getCount(ResilienceMetrics.Outcome.SUCCESS)).isEqualTo(2);
+      // one of the two calls waited for the next refresh period
+      assertThat(recorder.getWaitAtQuantile(1.0)).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(1));
+      test.completeNow();
+    })));
+  }
+
+  @Test
+  public void shouldExportBulkheadLimitAndRetryBudget(Vertx vertx, VertxTestContext test) {
+    AdaptiveBulkhead bulkhead = AdaptiveBulkhead.of(Bulkhead.of("metrics-adaptive", BulkheadConfig.custom()
+      .maxConcurrentCalls(100)
+      .build()), LimitAlgorithm.aimd(20, 1, 100));
+    Retry retry = Retry.of("metrics-budget", RetryConfig.custom().maxAttempts(2).waitDuration(Duration.ofMillis(10)).build());
+    RetryBudget budget = RetryBudget.of(0.1, 5);
+    AtomicInteger calls = new AtomicInteger();
+
+    Future<String> bulkheadCall = VertxBulkhead.executeFuture(bulkhead, () -> Future.succeededFuture("ok"));
+    Future<String> retryCall = VertxRetry.executeFuture(retry, budget, vertx, () -> calls.incrementAndGet() < 2
+      ? Future.failedFuture(new HelloWorldException())
+      : Future.succeededFuture("ok"));
+
+    Future.all(bulkheadCall, retryCall).onComplete(test.succeeding(ignored -> test.verify(() -> {
+      String scrape = metrics.scrape();
+      assertThat(scrape).contains("# TYPE resilience4j_bulkhead_limit gauge\n");
+      assertThat(scrape).contains("resilience4j_bulkhead_limit{name=\"metrics-adaptive\"} " + bulkhead.getLimit() + "\n");
+      assertThat(scrape).contains("# TYPE resilience4j_retry_budget_available_tokens gauge\n");
+      assertThat(scrape).contains("resilience4j_retry_budget_available_tokens{name=\"metrics-budget\"} 4.0\n");
+      test.completeNow();
+    })));
+  }
+}
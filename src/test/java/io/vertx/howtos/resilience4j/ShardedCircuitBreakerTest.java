@@ -0,0 +1,109 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class ShardedCircuitBreakerTest {
+  private static final Duration AGGREGATION_PERIOD = Duration.ofMillis(20);
+
+  @Test
+  public void shouldOpenOnceAggregatedFailureRateExceedsThreshold(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = CircuitBreaker.of("test", CircuitBreakerConfig.custom()
+      .minimumNumberOfCalls(5)
+      .build());
+    ShardedCircuitBreaker sharded = ShardedCircuitBreaker.create(vertx, circuitBreaker, AGGREGATION_PERIOD, 10);
+
+    vertx.getOrCreateContext().runOnContext(ignored -> {
+      for (int i = 0; i < 10; i++) {
+        VertxCircuitBreaker.executeFuture(sharded, () -> Future.failedFuture(new HelloWorldException()));
+      }
+      test.verify(() -> {
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.getMetrics().getNumberOfBufferedCalls()).isZero();
+      });
+
+      vertx.setTimer(200, timer -> {
+        VertxCircuitBreaker.executeFuture(sharded, () -> Future.succeededFuture("Hello world"))
+          .onComplete(test.failing(error -> {
+            assertThat(error).isInstanceOf(CallNotPermittedException.class);
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+            sharded.close();
+            test.completeNow();
+          }));
+      });
+    });
+  }
+
+  @Test
+  public void shouldStayClosedWhenCallsSucceed(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = CircuitBreaker.of("test", CircuitBreakerConfig.custom()
+      .minimumNumberOfCalls(5)
+      .build());
+    ShardedCircuitBreaker sharded = ShardedCircuitBreaker.create(vertx, circuitBreaker, AGGREGATION_PERIOD, 100);
+
+    vertx.getOrCreateContext().runOnContext(ignored -> {
+      for (int i = 0; i < 10; i++) {
+        VertxCircuitBreaker.executeFuture(sharded, () -> Future.succeededFuture("Hello world"));
+      }
+
+      vertx.setTimer(200, timer -> test.verify(() -> {
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(sharded.getNumberOfBufferedCalls()).isEqualTo(10);
+        assertThat(sharded.getFailureRate()).isZero();
+        sharded.close();
+        test.completeNow();
+      }));
+    });
+  }
+
+  @Test
+  public void shouldUseUnderlyingCircuitBreakerOutsideEventLoop(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("test");
+    ShardedCircuitBreaker sharded = ShardedCircuitBreaker.create(vertx, circuitBreaker);
+
+    Future<String> future = VertxCircuitBreaker.executeFuture(sharded, () -> Future.succeededFuture("Hello world"));
+
+    future.onComplete(test.succeeding(result -> {
+      assertThat(result).isEqualTo("Hello world");
+      assertThat(circuitBreaker.getMetrics().getNumberOfBufferedCalls()).isEqualTo(1);
+      sharded.close();
+      test.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldNotBeRetainedByEventLoopsOnceClosed(Vertx vertx, VertxTestContext test) {
+    ShardedCircuitBreaker sharded = ShardedCircuitBreaker.create(vertx, CircuitBreaker.ofDefaults("test"), AGGREGATION_PERIOD, 10);
+    WeakReference<ShardedCircuitBreaker> reference = new WeakReference<>(sharded);
+
+    vertx.getOrCreateContext().runOnContext(ignored -> {
+      VertxCircuitBreaker.executeFuture(sharded, () -> Future.succeededFuture("Hello world"));
+      sharded.close();
+
+      // wait on a worker, the running event loop task still references the breaker
+      vertx.executeBlocking(() -> {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+          System.gc();
+          Thread.sleep(10);
+        }
+        return reference.get() == null;
+      }).onComplete(test.succeeding(collected -> test.verify(() -> {
+        assertThat(collected).isTrue();
+        test.completeNow();
+      })));
+    });
+  }
+}
@@ -0,0 +1,111 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.netty.util.internal.InternalThreadLocalMap;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class SingleFlightTest {
+  @Test
+  public void shouldShareOneCallAndOnePermit(Vertx vertx, VertxTestContext test) {
+    Bulkhead bulkhead = Bulkhead.of("single-flight", BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build());
+    SingleFlight<String> singleFlight = SingleFlight.create();
+    AtomicInteger calls = new AtomicInteger();
+
+    vertx.runOnContext(ignored -> {
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        futures.add(singleFlight.execute("hot", VertxBulkhead.decorateFuture(bulkhead, () -> {
+          calls.incrementAndGet();
+          return vertx.timer(50).map("value");
+        })));
+      }
+
+      Future.all(futures).onComplete(test.succeeding(result -> test.verify(() -> {
+        assertThat(result.<String>list()).containsOnly("value").hasSize(100);
+        assertThat(calls).hasValue(1);
+        assertThat(singleFlight.getCalls()).isEqualTo(1);
+        assertThat(singleFlight.getCoalesced()).isEqualTo(99);
+        test.completeNow();
+      })));
+    });
+  }
+
+  @Test
+  public void shouldForgetKeyOnCompletion(Vertx vertx, VertxTestContext test) {
+    SingleFlight<String> singleFlight = SingleFlight.create();
+    AtomicInteger calls = new AtomicInteger();
+    Promise<String> first = Promise.promise();
+
+    vertx.runOnContext(ignored -> {
+      Future<String> future = singleFlight.execute("key", () -> {
+        calls.incrementAndGet();
+        return first.future();
+      });
+      // completed from another thread, the key is forgotten on the caller's event loop
+      vertx.executeBlocking(() -> first.tryComplete("first"));
+
+      future.onComplete(test.succeeding(value -> vertx.runOnContext(ignored2 -> {
+        singleFlight.execute("key", () -> {
+          calls.incrementAndGet();
+          return Future.failedFuture(new HelloWorldException());
+        }).onComplete(test.failing(error -> test.verify(() -> {
+          assertThat(value).isEqualTo("first");
+          assertThat(error).isInstanceOf(HelloWorldException.class);
+          assertThat(calls).hasValue(2);
+          test.completeNow();
+        })));
+      })));
+    });
+  }
+
+  @Test
+  public void shouldCoalesceCallsOutsideOfEventLoop() {
+    SingleFlight<String> singleFlight = SingleFlight.create();
+    Promise<String> promise = Promise.promise();
+
+    Future<String> first = singleFlight.execute("key", promise::future);
+    Future<String> second = singleFlight.execute("key", () -> Future.succeededFuture("unused"));
+    assertThat(second).isSameAs(first);
+
+    promise.complete("value");
+    assertThat(singleFlight.execute("key", () -> Future.succeededFuture("next")).result()).isEqualTo("next");
+  }
+
+  @Test
+  public void shouldNotTakeThreadLocalPerInstance(Vertx vertx, VertxTestContext test) {
+    vertx.runOnContext(ignored -> test.verify(() -> {
+      Promise<String> pending = Promise.promise();
+      SingleFlight<String> first = SingleFlight.create();
+      first.execute("key", pending::future);
+      int lastIndex = InternalThreadLocalMap.lastVariableIndex();
+
+      SingleFlight<String> second = SingleFlight.create();
+      second.execute("key", pending::future);
+      for (int i = 0; i < 100; i++) {
+        SingleFlight.<String>create().execute("key", pending::future);
+      }
+
+      // the instances share a thread local, but not their calls
+      assertThat(InternalThreadLocalMap.lastVariableIndex()).isEqualTo(lastIndex);
+      assertThat(first.getCalls()).isEqualTo(1);
+      assertThat(second.getCalls()).isEqualTo(1);
+      pending.complete("done");
+      test.completeNow();
+    }));
+  }
+}
@@ -0,0 +1,150 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StaleWhileRevalidateCacheTest {
+  private final AtomicLong clock = new AtomicLong();
+
+  private StaleWhileRevalidateCache<String, String> cache(CircuitBreaker circuitBreaker, long maxWeight) {
+    return StaleWhileRevalidateCache.<String, String>builder(circuitBreaker)
+      .ttl(Duration.ofSeconds(1))
+      .maxStaleness(Duration.ofSeconds(10))
+      .maximumWeight(maxWeight, String::length)
+      .clock(clock::get)
+      .build();
+  }
+
+  @Test
+  public void shouldWeighEveryValueTheSameByDefault() {
+    StaleWhileRevalidateCache<String, String> cache = StaleWhileRevalidateCache.<String, String>builder(CircuitBreaker.ofDefaults("swr-default"))
+      .clock(clock::get)
+      .build();
+
+    for (int i = 0; i <= 65536; i++) {
+      cache.get("key-" + i, () -> Future.succeededFuture("value"));
+    }
+
+    assertThat(cache.getEvictions()).isPositive();
+    assertThat(cache.size()).isLessThanOrEqualTo(65536);
+    assertThat(cache.getWeight()).isEqualTo(cache.size() * 1024L);
+  }
+
+  @Test
+  public void shouldServeFreshValueWithoutCalling() {
+    StaleWhileRevalidateCache<String, String> cache = cache(CircuitBreaker.ofDefaults("swr-fresh"), 1024);
+    AtomicInteger calls = new AtomicInteger();
+
+    cache.get("key", () -> Future.succeededFuture("v" + calls.incrementAndGet()));
+    Future<String> cached = cache.get("key", () -> Future.succeededFuture("v" + calls.incrementAndGet()));
+
+    assertThat(cached.result()).isEqualTo("v1");
+    assertThat(calls).hasValue(1);
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldServeStaleValueWhileBreakerIsOpen() {
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("swr-open");
+    StaleWhileRevalidateCache<String, String> cache = cache(circuitBreaker, 1024);
+
+    cache.get("key", () -> Future.succeededFuture("good"));
+    circuitBreaker.transitionToOpenState();
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+
+    assertThat(cache.get("key", () -> Future.succeededFuture("unused")).result()).isEqualTo("good");
+    assertThat(cache.getStaleHits()).isEqualTo(1);
+
+    // past the max staleness, the rejection of the breaker is returned
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+    assertThat(cache.get("key", () -> Future.succeededFuture("unused")).cause()).isInstanceOf(CallNotPermittedException.class);
+  }
+
+  @Test
+  public void shouldNotRefreshWhileBreakerIsOpen() {
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("swr-open-refresh");
+    StaleWhileRevalidateCache<String, String> cache = cache(circuitBreaker, 1024);
+    AtomicInteger refreshes = new AtomicInteger();
+
+    cache.get("key", () -> Future.succeededFuture("old"));
+    circuitBreaker.transitionToOpenState();
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(cache.get("key", () -> Future.succeededFuture("v" + refreshes.incrementAndGet())).result()).isEqualTo("old");
+    }
+    assertThat(refreshes).hasValue(0);
+    assertThat(circuitBreaker.getMetrics().getNumberOfNotPermittedCalls()).isZero();
+
+    circuitBreaker.transitionToClosedState();
+    cache.get("key", () -> Future.succeededFuture("v" + refreshes.incrementAndGet()));
+    assertThat(refreshes).hasValue(1);
+    assertThat(cache.get("key", () -> Future.succeededFuture("unused")).result()).isEqualTo("v1");
+  }
+
+  @Test
+  public void shouldDropValuePastMaxStaleness() {
+    StaleWhileRevalidateCache<String, String> cache = cache(CircuitBreaker.ofDefaults("swr-expired"), 1024);
+
+    cache.get("key", () -> Future.succeededFuture("old"));
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(11));
+
+    assertThat(cache.get("key", () -> Future.failedFuture("down")).failed()).isTrue();
+    assertThat(cache.size()).isZero();
+    assertThat(cache.getWeight()).isZero();
+    assertThat(cache.getMisses()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldRefreshStaleValueOnceInBackground() {
+    StaleWhileRevalidateCache<String, String> cache = cache(CircuitBreaker.ofDefaults("swr-refresh"), 1024);
+    AtomicInteger refreshes = new AtomicInteger();
+    Promise<String> refresh = Promise.promise();
+
+    cache.get("key", () -> Future.succeededFuture("old"));
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+    assertThat(cache.get("key", () -> {
+      refreshes.incrementAndGet();
+      return refresh.future();
+    }).result()).isEqualTo("old");
+    assertThat(cache.get("key", () -> {
+      refreshes.incrementAndGet();
+      return refresh.future();
+    }).result()).isEqualTo("old");
+    assertThat(refreshes).hasValue(1);
+
+    refresh.complete("new");
+    assertThat(cache.get("key", () -> Future.succeededFuture("unused")).result()).isEqualTo("new");
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedByWeight() {
+    StaleWhileRevalidateCache<String, String> cache = cache(CircuitBreaker.ofDefaults("swr-weight"), 10);
+
+    // recency is only tracked to the millisecond
+    cache.get("a", () -> Future.succeededFuture("aaaa"));
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(2));
+    cache.get("b", () -> Future.succeededFuture("bbbb"));
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(2));
+    cache.get("a", () -> Future.succeededFuture("unused"));
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(2));
+    cache.get("c", () -> Future.succeededFuture("cccc"));
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getWeight()).isEqualTo(8);
+    assertThat(cache.getEvictions()).isEqualTo(1);
+    assertThat(cache.get("a", () -> Future.succeededFuture("unused")).result()).isEqualTo("aaaa");
+  }
+}
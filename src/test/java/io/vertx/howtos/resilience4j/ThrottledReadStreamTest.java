@@ -0,0 +1,170 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class ThrottledReadStreamTest {
+  private static final int SIZE = 64 * 1024;
+  private static final int CHUNK_SIZE = 4 * 1024;
+
+  @TempDir
+  Path dir;
+
+  private static RateLimiter rateLimiter(Duration timeout) {
+    // 16 KiB per 100 milliseconds, with a permit per KiB
+    return RateLimiter.of("bandwidth", RateLimiterConfig.custom()
+      .limitForPeriod(16)
+      .limitRefreshPeriod(Duration.ofMillis(100))
+      .timeoutDuration(timeout)
+      .build());
+  }
+
+  private Buffer writeSource(Vertx vertx) {
+    byte[] bytes = new byte[SIZE];
+    ThreadLocalRandom.current().nextBytes(bytes);
+    Buffer content = Buffer.buffer(bytes);
+    vertx.fileSystem().writeFile(dir.resolve("source").toString(), content).await();
+    return content;
+  }
+
+  private AsyncFile open(Vertx vertx, String name) {
+    return vertx.fileSystem().open(dir.resolve(name).toString(), new OpenOptions()).await().setReadBufferSize(CHUNK_SIZE);
+  }
+
+  @Test
+  public void shouldPipeAtRateLimiterPace(Vertx vertx, VertxTestContext test) {
+    Buffer content = writeSource(vertx);
+    RateLimiter rateLimiter = rateLimiter(Duration.ofSeconds(5));
+    AsyncFile source = open(vertx, "source");
+    AsyncFile destination = open(vertx, "destination");
+
+    long start = System.nanoTime();
+    VertxRateLimiter.pipe(rateLimiter, 1024, source, destination, vertx).onComplete(test.succeeding(ignored -> test.verify(() -> {
+      // the first 16 KiB go right away, the remaining 48 KiB take 3 more periods
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+      assertThat(vertx.fileSystem().readFileBlocking(dir.resolve("destination").toString())).isEqualTo(content);
+      test.completeNow();
+    })));
+  }
+
+  @Test
+  public void shouldFailPipeWhenPermitsCannotBeGrantedInTime(Vertx vertx, VertxTestContext test) {
+    writeSource(vertx);
+    RateLimiter rateLimiter = rateLimiter(Duration.ZERO);
+    AsyncFile source = open(vertx, "source");
+    AsyncFile destination = open(vertx, "destination");
+
+    VertxRateLimiter.pipe(rateLimiter, 1024, source, destination, vertx).onComplete(test.failing(error -> test.verify(() -> {
+      assertThat(error).isInstanceOf(RequestNotPermitted.class);
+      test.completeNow();
+    })));
+  }
+
+  @Test
+  public void shouldKeepPendingChunksWhilePaused(Vertx vertx, VertxTestContext test) {
+    // a permit per period, so the second chunk waits while the source still sends two more
+    RateLimiter rateLimiter = RateLimiter.of("chunks", RateLimiterConfig.custom()
+      .limitForPeriod(1)
+      .limitRefreshPeriod(Duration.ofMillis(100))
+      .timeoutDuration(Duration.ofSeconds(5))
+      .build());
+    PushStream source = new PushStream();
+    ThrottledReadStream stream = ThrottledReadStream.create(vertx, rateLimiter, 1024, source);
+    List<Buffer> received = new ArrayList<>();
+
+    vertx.getOrCreateContext().runOnContext(ignored -> {
+      stream.handler(chunk -> {
+        received.add(chunk);
+        if (received.size() == 2) {
+          stream.pause();
+          vertx.setTimer(300, timer -> test.verify(() -> {
+            // the chunks sent after the source was paused are not passed on, nor is the source fetched
+            assertThat(received).hasSize(2);
+            assertThat(source.fetched).isEmpty();
+            stream.fetch(1);
+          }));
+        } else if (received.size() == 3) {
+          vertx.setTimer(300, timer -> test.verify(() -> {
+            assertThat(received).hasSize(3);
+            assertThat(source.fetched).isEmpty();
+            stream.fetch(5);
+          }));
+        } else if (received.size() == 4) {
+          vertx.setTimer(300, timer -> test.verify(() -> {
+            // the demand left once the pending chunks are passed on goes to the source, which stays bounded
+            assertThat(source.fetched).containsExactly(4L);
+            test.completeNow();
+          }));
+        }
+      });
+      for (int i = 0; i < 4; i++) {
+        source.push(Buffer.buffer(new byte[1024]));
+      }
+    });
+  }
+
+  /**
+   * A source sending its chunks whether paused or not, like one with chunks already in flight.
+   */
+  private static final class PushStream implements ReadStream<Buffer> {
+    private final List<Long> fetched = new ArrayList<>();
+    private Handler<Buffer> handler;
+
+    void push(Buffer chunk) {
+      handler.handle(chunk);
+    }
+
+    @Override
+    public PushStream exceptionHandler(Handler<Throwable> handler) {
+      return this;
+    }
+
+    @Override
+    public PushStream handler(Handler<Buffer> handler) {
+      this.handler = handler;
+      return this;
+    }
+
+    @Override
+    public PushStream pause() {
+      return this;
+    }
+
+    @Override
+    public PushStream resume() {
+      return fetch(Long.MAX_VALUE);
+    }
+
+    @Override
+    public PushStream fetch(long amount) {
+      fetched.add(amount);
+      return this;
+    }
+
+    @Override
+    public PushStream endHandler(Handler<Void> endHandler) {
+      return this;
+    }
+  }
+}
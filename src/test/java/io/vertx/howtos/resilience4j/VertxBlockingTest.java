@@ -0,0 +1,87 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class VertxBlockingTest {
+  @Test
+  public void shouldRunCallableOffEventLoopAndRecordOutcome(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("blocking-cb");
+
+    vertx.runOnContext(ignored -> {
+      Context caller = vertx.getOrCreateContext();
+      VertxCircuitBreaker.executeCallable(circuitBreaker, vertx, () -> {
+        assertThat(Context.isOnEventLoopThread()).isFalse();
+        Thread.sleep(20);
+        throw new HelloWorldException();
+      }).onComplete(test.failing(error -> test.verify(() -> {
+        assertThat(error).isInstanceOf(HelloWorldException.class);
+        assertThat(vertx.getOrCreateContext()).isSameAs(caller);
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+        test.completeNow();
+      })));
+    });
+  }
+
+  @Test
+  public void shouldCallCallableOnEveryRetryAttempt(Vertx vertx, VertxTestContext test) {
+    Retry retry = Retry.of("blocking-retry", RetryConfig.custom().maxAttempts(3).waitDuration(Duration.ofMillis(10)).build());
+    AtomicInteger attempts = new AtomicInteger();
+
+    VertxRetry.executeCallable(retry, vertx, () -> {
+      if (attempts.incrementAndGet() < 3) {
+        throw new HelloWorldException();
+      }
+      return "ok";
+    }).onComplete(test.succeeding(result -> test.verify(() -> {
+      assertThat(result).isEqualTo("ok");
+      assertThat(attempts).hasValue(3);
+      test.completeNow();
+    })));
+  }
+
+  @Test
+  public void shouldRejectWhenThreadPoolBulkheadIsFull(Vertx vertx, VertxTestContext test) throws Exception {
+    ThreadPoolBulkhead bulkhead = ThreadPoolBulkhead.of("blocking-pool", ThreadPoolBulkheadConfig.custom()
+      .coreThreadPoolSize(1)
+      .maxThreadPoolSize(1)
+      .queueCapacity(1)
+      .build());
+    CountDownLatch release = new CountDownLatch(1);
+
+    Future<String> running = VertxBulkhead.executeCallable(bulkhead, () -> {
+      release.await(5, TimeUnit.SECONDS);
+      return "running";
+    });
+    Future<String> queued = VertxBulkhead.executeCallable(bulkhead, () -> "queued");
+    Future<String> rejected = VertxBulkhead.executeCallable(bulkhead, () -> "rejected");
+    release.countDown();
+
+    Future.join(running, queued, rejected).onComplete(ignored -> test.verify(() -> {
+      assertThat(running.result()).isEqualTo("running");
+      assertThat(queued.result()).isEqualTo("queued");
+      assertThat(rejected.cause()).isInstanceOf(BulkheadFullException.class);
+      bulkhead.close();
+      test.completeNow();
+    }));
+  }
+}
@@ -0,0 +1,146 @@
+package io.vertx.howtos.resilience4j;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(VertxExtension.class)
+public class VertxDecoratorsTest {
+  private HelloWorldService helloWorldService;
+
+  @BeforeEach
+  public void setUp() {
+    helloWorldService = mock(HelloWorldService.class);
+  }
+
+  @Test
+  public void shouldDecorateFutureWithAllPoliciesAndReturnWithSuccess(Vertx vertx, VertxTestContext test) {
+    when(helloWorldService.returnHelloWorld()).thenReturn("Hello");
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("test");
+    Bulkhead bulkhead = Bulkhead.of("test", BulkheadConfig.custom().maxConcurrentCalls(1).build());
+
+    Supplier<Future<String>> decorated = VertxDecorators.ofSupplier(vertx, HelloWorldService.runAsync(vertx, helloWorldService))
+      .withRetry(Retry.ofDefaults("test"))
+      .withCircuitBreaker(circuitBreaker)
+      .withRateLimiter(RateLimiter.ofDefaults("test"))
+      .withTimeLimiter(TimeLimiter.of(Duration.ofSeconds(5)))
+      .withBulkhead(bulkhead)
+      .decorate();
+
+    decorated.get().map(value -> value + " world").onComplete(test.succeeding(result -> {
+      assertThat(result).isEqualTo("Hello world");
+      verify(helloWorldService).returnHelloWorld();
+      assertThat(circuitBreaker.getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(1);
+      assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+      test.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldRetryAndRecordEveryAttemptInCircuitBreaker(Vertx vertx, VertxTestContext test) {
+    when(helloWorldService.returnHelloWorld())
+      .thenThrow(new HelloWorldException())
+      .thenReturn("Hello world");
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("test");
+
+    Future<String> future = VertxDecorators.ofSupplier(vertx, HelloWorldService.runAsync(vertx, helloWorldService))
+      .withRetry(Retry.ofDefaults("test"))
+      .withCircuitBreaker(circuitBreaker)
+      .get();
+
+    future.onComplete(test.succeeding(result -> {
+      assertThat(result).isEqualTo("Hello world");
+      verify(helloWorldService, times(2)).returnHelloWorld();
+      CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+      assertThat(metrics.getNumberOfBufferedCalls()).isEqualTo(2);
+      assertThat(metrics.getNumberOfFailedCalls()).isEqualTo(1);
+      test.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldFailWithCallNotPermittedWhenCircuitBreakerIsOpen(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("test");
+    circuitBreaker.transitionToOpenState();
+
+    Future<String> future = VertxDecorators.ofSupplier(vertx, HelloWorldService.runAsync(vertx, helloWorldService))
+      .withCircuitBreaker(circuitBreaker)
+      .withTimeLimiter(TimeLimiter.of(Duration.ofSeconds(5)))
+      .get();
+
+    future.onComplete(test.failing(error -> {
+      assertThat(error).isInstanceOf(CallNotPermittedException.class);
+      verify(helloWorldService, never()).returnHelloWorld();
+      test.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldRecordRateLimiterRejectionInCircuitBreaker(Vertx vertx, VertxTestContext test) {
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("test");
+    RateLimiter rateLimiter = RateLimiter.of("test", RateLimiterConfig.custom()
+      .limitForPeriod(1)
+      .limitRefreshPeriod(Duration.ofDays(1))
+      .timeoutDuration(Duration.ZERO)
+      .build());
+    rateLimiter.acquirePermission();
+
+    Future<String> future = VertxDecorators.ofSupplier(vertx, HelloWorldService.runAsync(vertx, helloWorldService))
+      .withCircuitBreaker(circuitBreaker)
+      .withRateLimiter(rateLimiter)
+      .get();
+
+    future.onComplete(test.failing(error -> {
+      assertThat(error).isInstanceOf(RequestNotPermitted.class);
+      verify(helloWorldService, never()).returnHelloWorld();
+      assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+      test.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldTimeOutAndReleaseBulkheadWhenCallCompletes(Vertx vertx, VertxTestContext test) {
+    Bulkhead bulkhead = Bulkhead.of("test", BulkheadConfig.custom().maxConcurrentCalls(1).build());
+    Supplier<Future<Integer>> supplier = () -> vertx.timer(500).map(0);
+
+    Future<Integer> future = VertxDecorators.ofSupplier(vertx, supplier)
+      .withRetry(Retry.of("test", RetryConfig.custom().maxAttempts(1).build()))
+      .withTimeLimiter(TimeLimiter.of(Duration.ofMillis(100)))
+      .withBulkhead(bulkhead)
+      .get();
+
+    future.onComplete(test.failing(error -> {
+      assertThat(error).isInstanceOf(TimeoutException.class);
+      assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isZero();
+      vertx.setTimer(1000, ignored -> test.verify(() -> {
+        assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+        test.completeNow();
+      }));
+    }));
+  }
+}
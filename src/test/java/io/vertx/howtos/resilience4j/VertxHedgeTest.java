@@ -0,0 +1,123 @@
+package io.vertx.howtos.resilience4j;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class VertxHedgeTest {
+  @Test
+  public void shouldTakeResultOfHedgeWhenFirstAttemptIsSlow(Vertx vertx, VertxTestContext test) {
+    Hedge hedge = Hedge.of("test", HedgeConfig.custom()
+      .delay(Duration.ofMillis(50))
+      .build());
+    AtomicInteger attempts = new AtomicInteger();
+    Supplier<Future<String>> supplier = () -> {
+      int attempt = attempts.incrementAndGet();
+      return vertx.timer(attempt == 1 ? 2000 : 10).map("attempt " + attempt);
+    };
+
+    long start = System.nanoTime();
+    Future<String> future = VertxHedge.executeFuture(hedge, vertx, supplier);
+
+    future.onComplete(test.succeeding(result -> {
+      assertThat(result).isEqualTo("attempt 2");
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1000));
+      assertThat(hedge.getNumberOfHedges()).isEqualTo(1);
+      test.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldNotHedgeFastCalls(Vertx vertx, VertxTestContext test) {
+    Hedge hedge = Hedge.of("test", HedgeConfig.custom()
+      .delay(Duration.ofMillis(200))
+      .build());
+    AtomicInteger attempts = new AtomicInteger();
+    Supplier<Future<String>> supplier = () -> {
+      attempts.incrementAndGet();
+      return vertx.timer(10).map("Hello world");
+    };
+
+    Future<String> future = VertxHedge.executeFuture(hedge, vertx, supplier);
+
+    future.onComplete(test.succeeding(result -> {
+      vertx.setTimer(400, ignored -> test.verify(() -> {
+        assertThat(attempts).hasValue(1);
+        assertThat(hedge.getNumberOfHedges()).isZero();
+        test.completeNow();
+      }));
+    }));
+  }
+
+  @Test
+  public void shouldNotHedgeWhenBudgetIsExhausted(Vertx vertx, VertxTestContext test) {
+    Hedge hedge = Hedge.of("test", HedgeConfig.custom()
+      .delay(Duration.ofMillis(10))
+      .budgetRatio(0)
+      .maxBudget(1)
+      .build());
+    AtomicInteger attempts = new AtomicInteger();
+    Supplier<Future<String>> supplier = () -> vertx.timer(100).map("attempt " + attempts.incrementAndGet());
+
+    VertxHedge.executeFuture(hedge, vertx, supplier)
+      .compose(first -> VertxHedge.executeFuture(hedge, vertx, supplier))
+      .onComplete(test.succeeding(result -> {
+        assertThat(attempts).hasValue(3);
+        assertThat(hedge.getNumberOfHedges()).isEqualTo(1);
+        assertThat(hedge.getAvailableBudget()).isZero();
+        test.completeNow();
+      }));
+  }
+
+  @Test
+  public void shouldFailOnceEveryAttemptFailed(Vertx vertx, VertxTestContext test) {
+    Hedge hedge = Hedge.of("test", HedgeConfig.custom()
+      .delay(Duration.ofMillis(10))
+      .maxHedges(2)
+      .build());
+    AtomicInteger attempts = new AtomicInteger();
+    Supplier<Future<String>> supplier = () -> {
+      attempts.incrementAndGet();
+      return vertx.timer(100).compose(ignored -> Future.failedFuture(new HelloWorldException()));
+    };
+
+    Future<String> future = VertxHedge.executeFuture(hedge, vertx, supplier);
+
+    future.onComplete(test.failing(error -> {
+      assertThat(error).isInstanceOf(HelloWorldException.class);
+      assertThat(attempts).hasValue(3);
+      test.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldDeriveDelayFromLatencyQuantile(Vertx vertx, VertxTestContext test) {
+    Hedge hedge = Hedge.of("test", HedgeConfig.custom()
+      .delay(Duration.ofSeconds(1))
+      .delayQuantile(0.95)
+      .minSamples(5)
+      .estimationPeriod(Duration.ofMillis(1))
+      .build());
+    Supplier<Future<String>> supplier = () -> vertx.timer(20).map("Hello world");
+
+    Future<String> calls = Future.succeededFuture();
+    for (int i = 0; i < 10; i++) {
+      calls = calls.compose(ignored -> VertxHedge.executeFuture(hedge, vertx, supplier));
+    }
+
+    calls.onComplete(test.succeeding(result -> {
+      assertThat(hedge.getDelayMillis()).isBetween(15L, 100L);
+      test.completeNow();
+    }));
+  }
+}
@@ -3,6 +3,7 @@ package io.vertx.howtos.resilience4j;
 import io.github.resilience4j.ratelimiter.RateLimiter;
 import io.github.resilience4j.ratelimiter.RateLimiterConfig;
 import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.netty.util.internal.InternalThreadLocalMap;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.junit5.VertxExtension;
@@ -12,6 +13,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -78,4 +83,110 @@ public class VertxRateLimiterTest {
       test.completeNow();
     }));
   }
+
+  @Test
+  public void releaseDelayedCallsInReservationOrder(Vertx vertx, VertxTestContext test) {
+    RateLimiter rateLimiter = RateLimiter.of("test", RateLimiterConfig.custom()
+      .limitForPeriod(1)
+      .limitRefreshPeriod(Duration.ofMillis(50))
+      .timeoutDuration(Duration.ofSeconds(1))
+      .build());
+    List<Integer> order = new CopyOnWriteArrayList<>();
+
+    vertx.runOnContext(ignored -> {
+      long start = System.nanoTime();
+      Future<?>[] futures = new Future<?>[5];
+      for (int i = 0; i < futures.length; i++) {
+        int index = i;
+        futures[i] = VertxRateLimiter.executeFuture(rateLimiter, () -> {
+          order.add(index);
+          return Future.succeededFuture(index);
+        }, vertx);
+      }
+
+      Future.all(List.of(futures)).onComplete(test.succeeding(result -> test.verify(() -> {
+        assertThat(order).containsExactly(0, 1, 2, 3, 4);
+        // the first call may be permitted right away, the others wait for a refresh period each
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(150));
+        test.completeNow();
+      })));
+    });
+  }
+
+  @Test
+  public void leasePermitsInBatchesOnEventLoop(Vertx vertx, VertxTestContext test) {
+    RateLimiter rateLimiter = RateLimiter.of("test", RateLimiterConfig.custom()
+      .limitForPeriod(100)
+      .limitRefreshPeriod(Duration.ofDays(1))
+      .timeoutDuration(Duration.ZERO)
+      .build());
+    LeasingRateLimiter leasing = LeasingRateLimiter.of(vertx, rateLimiter, 1);
+    int batchSize = leasing.getBatchSize();
+    AtomicInteger permitted = new AtomicInteger();
+
+    vertx.runOnContext(ignored -> {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 150; i++) {
+        futures.add(VertxRateLimiter.executeFuture(leasing, () -> Future.succeededFuture(permitted.incrementAndGet()), vertx));
+      }
+
+      Future.join(futures).onComplete(ar -> test.verify(() -> {
+        // the first call reserves a whole batch, the next ones are served from the lease
+        assertThat(rateLimiter.getMetrics().getAvailablePermissions()).isLessThanOrEqualTo(100 - batchSize);
+        assertThat(permitted).hasValue(100);
+        assertThat(futures.stream().filter(Future::failed))
+          .hasSize(50)
+          .allMatch(future -> future.cause() instanceof RequestNotPermitted);
+        test.completeNow();
+      }));
+    });
+  }
+
+  @Test
+  public void expireLeaseAtEndOfRefreshPeriod(Vertx vertx, VertxTestContext test) {
+    RateLimiter rateLimiter = RateLimiter.of("test", RateLimiterConfig.custom()
+      .limitForPeriod(1000)
+      .limitRefreshPeriod(Duration.ofMillis(100))
+      .timeoutDuration(Duration.ZERO)
+      .build());
+    LeasingRateLimiter leasing = LeasingRateLimiter.of(vertx, rateLimiter, 1);
+
+    vertx.runOnContext(ignored -> {
+      VertxRateLimiter.executeFuture(leasing, () -> Future.succeededFuture(0), vertx)
+        .onComplete(test.succeeding(first -> vertx.setTimer(250, ignored2 -> {
+          int available = rateLimiter.getMetrics().getAvailablePermissions();
+          VertxRateLimiter.executeFuture(leasing, () -> Future.succeededFuture(0), vertx)
+            .onComplete(test.succeeding(second -> test.verify(() -> {
+              // the expired lease is dropped and a fresh batch is reserved
+              assertThat(rateLimiter.getMetrics().getAvailablePermissions()).isEqualTo(available - leasing.getBatchSize());
+              test.completeNow();
+            })));
+        })));
+    });
+  }
+
+  @Test
+  public void shouldNotTakeThreadLocalPerLeasingRateLimiter(Vertx vertx, VertxTestContext test) {
+    RateLimiterConfig config = RateLimiterConfig.custom()
+      .limitForPeriod(100)
+      .limitRefreshPeriod(Duration.ofDays(1))
+      .timeoutDuration(Duration.ZERO)
+      .build();
+
+    vertx.runOnContext(ignored -> {
+      VertxRateLimiter.executeFuture(LeasingRateLimiter.of(vertx, RateLimiter.of("first", config), 1), () -> Future.succeededFuture(0), vertx);
+      int lastIndex = InternalThreadLocalMap.lastVariableIndex();
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        LeasingRateLimiter leasing = LeasingRateLimiter.of(vertx, RateLimiter.of("limiter-" + i, config), 1);
+        futures.add(VertxRateLimiter.executeFuture(leasing, () -> Future.succeededFuture(0), vertx));
+      }
+
+      Future.all(futures).onComplete(test.succeeding(all -> test.verify(() -> {
+        // the leases of all the limiters share a single thread local
+        assertThat(InternalThreadLocalMap.lastVariableIndex()).isEqualTo(lastIndex);
+        test.completeNow();
+      })));
+    });
+  }
 }
@@ -3,14 +3,22 @@ package io.vertx.howtos.resilience4j;
 import io.github.resilience4j.retry.MaxRetriesExceededException;
 import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.event.RetryEvent;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -28,6 +36,11 @@ public class VertxRetryTest {
     helloWorldService = mock(HelloWorldService.class);
   }
 
+  @AfterEach
+  public void tearDown() {
+    ResilienceMetrics.setDefault(null);
+  }
+
   @Test
   public void shouldNotRetry(Vertx vertx, VertxTestContext test) {
     when(helloWorldService.returnHelloWorld()).thenReturn("Hello world");
@@ -168,4 +181,96 @@ public class VertxRetryTest {
       test.completeNow();
     }));
   }
+
+  @Test
+  public void shouldGiveUpWhenRetryBudgetIsExhausted(Vertx vertx, VertxTestContext test) {
+    when(helloWorldService.returnHelloWorld()).thenThrow(new HelloWorldException());
+    Retry retry = Retry.of("id", RetryConfig.custom().maxAttempts(3).build());
+    RetryBudget budget = RetryBudget.of(0.1, 1);
+    List<RetryEvent.Type> retryEvents = new CopyOnWriteArrayList<>();
+    retry.getEventPublisher().onEvent(event -> retryEvents.add(event.getEventType()));
+    ResilienceMetrics metrics = new ResilienceMetrics();
+    ResilienceMetrics.setDefault(metrics);
+
+    Future<String> future = VertxRetry.executeFuture(retry, budget, vertx, HelloWorldService.runAsync(vertx, helloWorldService));
+
+    future.onComplete(test.failing(error -> test.verify(() -> {
+      assertThat(error).isInstanceOf(HelloWorldException.class);
+      verify(helloWorldService, times(2)).returnHelloWorld();
+      assertThat(budget.getAvailableTokens()).isZero();
+      assertThat(budget.getNumberOfExhaustedRetries()).isEqualTo(1);
+      // the attempt denied a retry never reached the retry, the call is counted as failed after two attempts by the
+      // recorder of the retry, and as exhausted next to it
+      assertThat(retry.getMetrics().getNumberOfFailedCallsWithRetryAttempt()).isZero();
+      assertThat(retry.getMetrics().getNumberOfFailedCallsWithoutRetryAttempt()).isZero();
+      assertThat(retryEvents).containsExactly(RetryEvent.Type.RETRY);
+      ResilienceMetrics.Recorder recorder = metrics.recorder(ResilienceMetrics.Policy.RETRY, "id");
+      assertThat(recorder.getCount(ResilienceMetrics.Outcome.FAILURE)).isEqualTo(1);
+      assertThat(recorder.getNumberOfCallsWithAttempts(2)).isEqualTo(1);
+      assertThat(recorder.getNumberOfDeniedRetries()).isEqualTo(1);
+      assertThat(metrics.scrape()).contains("resilience4j_retry_budget_exhausted_total{name=\"id\"} 1\n");
+      test.completeNow();
+    })));
+  }
+
+  @Test
+  public void shouldGiveUpStreamWhenRetryBudgetIsExhausted(Vertx vertx, VertxTestContext test) {
+    Retry retry = Retry.of("id", RetryConfig.custom().maxAttempts(5).waitDuration(Duration.ofMillis(10)).build());
+    RetryBudget budget = RetryBudget.of(0.1, 1);
+    AtomicInteger opened = new AtomicInteger();
+    @SuppressWarnings("unchecked")
+    WriteStream<Buffer> destination = mock(WriteStream.class);
+
+    Future<Long> future = VertxRetry.executeStream(retry, budget, vertx, offset -> {
+      opened.incrementAndGet();
+      return Future.failedFuture(new HelloWorldException());
+    }, destination);
+
+    future.onComplete(test.failing(error -> test.verify(() -> {
+      assertThat(error).isInstanceOf(HelloWorldException.class);
+      // a single retry, the budget denied the next ones
+      assertThat(opened.get()).isEqualTo(2);
+      assertThat(budget.getAvailableTokens()).isZero();
+      assertThat(budget.getNumberOfExhaustedRetries()).isEqualTo(1);
+      test.completeNow();
+    })));
+  }
+
+  @Test
+  public void shouldNotCountResultDeniedRetryByBudgetAsRetried(Vertx vertx, VertxTestContext test) {
+    when(helloWorldService.returnHelloWorld()).thenReturn("Hello world");
+    Retry retry = Retry.of("id", RetryConfig.<String>custom().maxAttempts(3).retryOnResult("Hello world"::equals).build());
+    List<RetryEvent.Type> retryEvents = new CopyOnWriteArrayList<>();
+    retry.getEventPublisher().onEvent(event -> retryEvents.add(event.getEventType()));
+    RetryBudget budget = RetryBudget.of(0, 1);
+    budget.tryAcquireRetry();
+
+    Future<String> future = VertxRetry.executeFuture(retry, budget, vertx, HelloWorldService.runAsync(vertx, helloWorldService));
+
+    future.onComplete(test.succeeding(result -> test.verify(() -> {
+      assertThat(result).isEqualTo("Hello world");
+      verify(helloWorldService).returnHelloWorld();
+      assertThat(budget.getNumberOfExhaustedRetries()).isEqualTo(1);
+      assertThat(retry.getMetrics().getNumberOfSuccessfulCallsWithoutRetryAttempt()).isEqualTo(1);
+      assertThat(retry.getMetrics().getNumberOfSuccessfulCallsWithRetryAttempt()).isZero();
+      assertThat(retryEvents).isEmpty();
+      test.completeNow();
+    })));
+  }
+
+  @Test
+  public void shouldRefillRetryBudgetOnFirstAttemptSuccess(Vertx vertx, VertxTestContext test) {
+    when(helloWorldService.returnHelloWorld()).thenReturn("Hello world");
+    Retry retry = Retry.ofDefaults("id");
+    RetryBudget budget = RetryBudget.of(0.5, 10);
+    budget.tryAcquireRetry();
+
+    Future<String> future = VertxRetry.executeFuture(retry, budget, vertx, HelloWorldService.runAsync(vertx, helloWorldService));
+
+    future.onComplete(test.succeeding(result -> {
+      assertThat(result).isEqualTo("Hello world");
+      assertThat(budget.getAvailableTokens()).isEqualTo(9.5);
+      test.completeNow();
+    }));
+  }
 }
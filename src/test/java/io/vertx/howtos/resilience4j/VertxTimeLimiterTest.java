@@ -1,6 +1,7 @@
 package io.vertx.howtos.resilience4j;
 
 import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.netty.util.internal.InternalThreadLocalMap;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.junit5.VertxExtension;
@@ -9,7 +10,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -61,4 +65,82 @@ public class VertxTimeLimiterTest {
       test.completeNow();
     }));
   }
+
+  @Test
+  public void shouldFailWithTimeoutExceptionOnTimeoutScheduler(Vertx vertx, VertxTestContext test) {
+    TimeLimiter timeLimiter = TimeLimiter.of(Duration.ofMillis(100));
+    TimeoutScheduler scheduler = TimeoutScheduler.create(vertx);
+    AtomicInteger timeouts = new AtomicInteger();
+    timeLimiter.getEventPublisher().onTimeout(event -> timeouts.incrementAndGet());
+
+    vertx.runOnContext(ignored -> {
+      long start = System.nanoTime();
+      Future<Integer> future = VertxTimeLimiter.executeFuture(timeLimiter, scheduler, () -> vertx.timer(5000).map(0));
+
+      future.onComplete(test.failing(error -> vertx.runOnContext(ignored2 -> test.verify(() -> {
+        assertThat(error).isInstanceOf(TimeoutException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isBetween(Duration.ofMillis(100), Duration.ofMillis(1000));
+        assertThat(timeouts).hasValue(1);
+        test.completeNow();
+      }))));
+    });
+  }
+
+  @Test
+  public void shouldCompleteWithResultOnTimeoutScheduler(Vertx vertx, VertxTestContext test) {
+    TimeLimiter timeLimiter = TimeLimiter.of(Duration.ofMillis(200));
+    TimeoutScheduler scheduler = TimeoutScheduler.create(vertx, Duration.ofMillis(10), 8);
+    AtomicInteger successes = new AtomicInteger();
+    AtomicInteger errors = new AtomicInteger();
+    timeLimiter.getEventPublisher().onSuccess(event -> successes.incrementAndGet());
+    timeLimiter.getEventPublisher().onError(event -> errors.incrementAndGet());
+
+    vertx.runOnContext(ignored -> {
+      Future<Integer> future = VertxTimeLimiter.executeFuture(timeLimiter, scheduler, () -> vertx.timer(50).map(42));
+
+      future.onComplete(test.succeeding(result -> {
+        // the cancelled timeout must not fire, even once the wheel has gone around several times
+        vertx.setTimer(500, ignored2 -> test.verify(() -> {
+          assertThat(result).isEqualTo(42);
+          assertThat(successes).hasValue(1);
+          assertThat(errors).hasValue(0);
+          test.completeNow();
+        }));
+      }));
+    });
+  }
+
+  @Test
+  public void shouldFallBackToTimerOutsideEventLoop(Vertx vertx, VertxTestContext test) {
+    TimeLimiter timeLimiter = TimeLimiter.of(Duration.ofMillis(100));
+    TimeoutScheduler scheduler = TimeoutScheduler.create(vertx);
+
+    Future<Integer> future = VertxTimeLimiter.decorateFuture(timeLimiter, scheduler, () -> vertx.timer(5000).map(0)).get();
+
+    future.onComplete(test.failing(error -> {
+      assertThat(error).isInstanceOf(TimeoutException.class);
+      test.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldNotTakeThreadLocalPerTimeoutScheduler(Vertx vertx, VertxTestContext test) {
+    TimeLimiter timeLimiter = TimeLimiter.of(Duration.ofMillis(50));
+
+    vertx.runOnContext(ignored -> {
+      VertxTimeLimiter.executeFuture(timeLimiter, TimeoutScheduler.create(vertx), () -> Future.succeededFuture(0));
+      int lastIndex = InternalThreadLocalMap.lastVariableIndex();
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        futures.add(VertxTimeLimiter.executeFuture(timeLimiter, TimeoutScheduler.create(vertx), () -> vertx.timer(5000).map(0)));
+      }
+
+      Future.join(futures).onComplete(ignored2 -> test.verify(() -> {
+        // the wheels of all the schedulers share a thread local, and each one fires its timeouts
+        assertThat(InternalThreadLocalMap.lastVariableIndex()).isEqualTo(lastIndex);
+        assertThat(futures).allSatisfy(future -> assertThat(future.cause()).isInstanceOf(TimeoutException.class));
+        test.completeNow();
+      }));
+    });
+  }
 }